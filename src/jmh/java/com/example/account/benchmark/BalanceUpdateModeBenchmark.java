@@ -0,0 +1,85 @@
+package com.example.account.benchmark;
+
+import com.example.account.controller.TransactionController;
+import com.example.account.dto.UseBalance;
+import com.example.account.exception.AccountException;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 잔액 사용 처리량과 실패율 비교 (계좌 lock vs 낙관적 재시도 vs 조건부 UPDATE vs 메모리 engine)
+ * accounts=1 은 모든 스레드가 한 계좌에 몰리는 경우, 1024 는 거의 충돌이 없는 경우
+ * lock 이 aspect 에 있으므로 controller 를 직접 호출한다.
+ * succeeded/aborted 는 초당 건수, aborted 는 lock 실패 또는 재시도를 다 쓴 건이다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 3)
+@Fork(1)
+@Threads(8)
+public class BalanceUpdateModeBenchmark {
+    private static final long USER_ID = 1L; // data.sql 의 사용자
+    private static final long ID_OFFSET = 1_000_000_000L;
+    private static final long ACCOUNT_NUMBER_OFFSET = 2_000_000_000L;
+    private static final long AMOUNT = 100L;
+
+    @Param({"lock", "optimistic", "conditional", "engine"})
+    private String mode;
+
+    @Param({"1", "16", "1024"})
+    private int accounts;
+
+    private ConfigurableApplicationContext context;
+    private TransactionController transactionController;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Outcome {
+        public long succeeded;
+        public long aborted;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            succeeded = 0;
+            aborted = 0;
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkApplication.start(Map.of("account.balance.update-mode", mode));
+        transactionController = context.getBean(TransactionController.class);
+
+        context.getBean(JdbcTemplate.class).update("insert into account(id, account_number, account_status"
+                + ", balance, registered_at, created_at, updated_at, account_user_id) "
+                + "select x + ?, cast(x + ? as varchar), 'IN_USE', ?, now(), now(), now(), ? "
+                + "from system_range(1, ?)", ID_OFFSET, ACCOUNT_NUMBER_OFFSET, Long.MAX_VALUE / 2, USER_ID, accounts);
+        // engine 은 기동 후에 생긴 계좌를 처음 쓸 때 읽는다.
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Object useBalance(Outcome outcome) {
+        long x = ThreadLocalRandom.current().nextLong(1, accounts + 1);
+        try {
+            UseBalance.Response response = transactionController.useBalance(
+                    new UseBalance.Request(USER_ID, String.valueOf(x + ACCOUNT_NUMBER_OFFSET), AMOUNT));
+            outcome.succeeded++;
+            return response;
+        } catch (AccountException e) {
+            outcome.aborted++;
+            return e;
+        }
+    }
+}
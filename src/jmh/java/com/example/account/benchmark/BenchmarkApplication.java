@@ -0,0 +1,39 @@
+package com.example.account.benchmark;
+
+import com.example.account.AccountApplication;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * 벤치마크용 애플리케이션 기동
+ * web 서버 없이 띄우고, H2 는 매번 새 메모리 DB, 내장 redis 는 개발용과 겹치지 않는 포트를 쓴다.
+ */
+public final class BenchmarkApplication {
+    public static final int REDIS_PORT = 16379;
+
+    private BenchmarkApplication() {
+    }
+
+    public static ConfigurableApplicationContext start(Map<String, Object> properties) {
+        Map<String, Object> defaults = new HashMap<>();
+        defaults.put("spring.datasource.url", "jdbc:h2:mem:bench-" + UUID.randomUUID());
+        defaults.put("spring.redis.port", REDIS_PORT);
+        defaults.put("spring.jpa.properties.hibernate.show_sql", false);
+        defaults.put("logging.level.root", "warn");
+        defaults.putAll(properties);
+
+        // application.yml 보다 우선하도록 command line 인자로 넘긴다.
+        String[] args = defaults.entrySet().stream()
+                .map(entry -> "--" + entry.getKey() + "=" + entry.getValue())
+                .toArray(String[]::new);
+
+        return new SpringApplicationBuilder(AccountApplication.class)
+                .web(WebApplicationType.NONE)
+                .run(args);
+    }
+}
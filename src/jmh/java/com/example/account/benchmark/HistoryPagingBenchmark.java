@@ -0,0 +1,88 @@
+package com.example.account.benchmark;
+
+import com.example.account.dto.TransactionHistory;
+import com.example.account.service.TransactionService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 거래 내역 페이지 조회 지연 (keyset vs offset)
+ * 한 계좌에 거래 rows 건을 넣고, 최신순으로 depth 건을 건너뛴 위치의 페이지를 읽는다.
+ * keyset 은 depth 와 상관없이 일정해야 하고, offset 은 건너뛴 만큼 느려진다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 3)
+@Fork(value = 1, jvmArgs = "-Xmx4g")
+public class HistoryPagingBenchmark {
+    private static final long ID_OFFSET = 1_000_000_000L;
+    private static final String ACCOUNT_NUMBER = "2000000001";
+    private static final int PAGE_SIZE = 20;
+
+    @Param({"1000000"})
+    private int rows;
+
+    @Param({"0", "10000", "900000"})
+    private int depth;
+
+    private ConfigurableApplicationContext context;
+    private TransactionService transactionService;
+    private JdbcTemplate jdbcTemplate;
+    private String cursor;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        // 같은 offset 조회 결과를 H2 가 재사용하지 않도록 끈다.
+        context = BenchmarkApplication.start(Map.of("spring.datasource.url",
+                "jdbc:h2:mem:bench-history;OPTIMIZE_REUSE_RESULTS=FALSE"));
+        transactionService = context.getBean(TransactionService.class);
+        jdbcTemplate = context.getBean(JdbcTemplate.class);
+
+        jdbcTemplate.update("insert into account(id, account_number, account_status, balance"
+                + ", registered_at, created_at, updated_at, account_user_id) "
+                + "values (?, ?, 'IN_USE', 1000, now(), now(), now(), 1)", ID_OFFSET, ACCOUNT_NUMBER);
+        // 초마다 2건씩 같은 시각이 생기도록 넣는다. (id 로 순서를 가르는 경우 포함)
+        jdbcTemplate.update("insert into transaction(id, account_id, amount, balance_snapshot"
+                + ", transaction_at, transaction_id, transaction_result_type, transaction_type"
+                + ", created_at, updated_at) "
+                + "select x + ?, ?, 100, 1000"
+                + ", dateadd('SECOND', x / 2, timestamp '2024-01-01 00:00:00'), 'T' || x"
+                + ", case when mod(x, 10) = 0 then 'F' else 'S' end, 'USE', now(), now() "
+                + "from system_range(1, ?)", ID_OFFSET, ID_OFFSET, rows);
+
+        cursor = depth == 0 ? null : jdbcTemplate.queryForObject(
+                "select transaction_at, id from transaction"
+                        + " use index (idx_transaction_account_id_transaction_at_id) where account_id = ?"
+                        + " order by account_id, transaction_at desc, id desc offset ? rows fetch next 1 row only",
+                (rs, rowNum) -> new TransactionHistory.Cursor(
+                        rs.getTimestamp(1).toLocalDateTime(), rs.getLong(2)).encode(),
+                ID_OFFSET, depth - 1);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public TransactionHistory.Response keysetPage() {
+        return transactionService.getTransactionHistory(ACCOUNT_NUMBER, null, null, cursor, PAGE_SIZE);
+    }
+
+    @Benchmark
+    public List<Map<String, Object>> offsetPage() {
+        // keyset 과 같은 index 순서로 읽도록 지정한다. (지정하지 않으면 FK index 로 찾은 뒤 전부 정렬한다.)
+        return jdbcTemplate.queryForList("select id, transaction_id, transaction_type, transaction_result_type"
+                        + ", amount, balance_snapshot, transaction_at from transaction"
+                        + " use index (idx_transaction_account_id_transaction_at_id) where account_id = ?"
+                        + " order by account_id, transaction_at desc, id desc offset ? rows fetch next ? rows only",
+                ID_OFFSET, depth, PAGE_SIZE);
+    }
+}
@@ -0,0 +1,87 @@
+package com.example.account.benchmark;
+
+import com.example.account.controller.TransactionController;
+import com.example.account.dto.UseBalance;
+import com.example.account.exception.AccountException;
+import com.example.account.service.HotAccountService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 한 계좌에 몰리는 잔액 사용 처리량 (분할하지 않은 계좌 vs bucket 으로 나눈 계좌)
+ * buckets=0 은 모든 요청이 계좌 lock 하나에 줄을 서고, N 이면 계좌 lock 없이 bucket 행 N 개에 나뉜다.
+ * 잔액은 충분하게 넣어서 rebalance 는 일어나지 않는다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 3)
+@Fork(1)
+@Threads(8)
+public class HotAccountBenchmark {
+    private static final long USER_ID = 1L; // data.sql 의 사용자
+    private static final long ACCOUNT_ID = 1_000_000_000L;
+    private static final String ACCOUNT_NUMBER = "2000000000";
+    private static final long AMOUNT = 100L;
+
+    @Param({"lock", "conditional"})
+    private String mode;
+
+    @Param({"0", "8"})
+    private int buckets;
+
+    private ConfigurableApplicationContext context;
+    private TransactionController transactionController;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Outcome {
+        public long succeeded;
+        public long aborted;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            succeeded = 0;
+            aborted = 0;
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkApplication.start(Map.of(
+                "account.balance.update-mode", mode,
+                "account.lock.type", "local"));
+        transactionController = context.getBean(TransactionController.class);
+
+        context.getBean(JdbcTemplate.class).update("insert into account(id, account_number, account_status"
+                + ", balance, registered_at, created_at, updated_at, account_user_id) "
+                + "values (?, ?, 'IN_USE', ?, now(), now(), now(), ?)",
+                ACCOUNT_ID, ACCOUNT_NUMBER, Long.MAX_VALUE / 2, USER_ID);
+        if (buckets > 0) {
+            context.getBean(HotAccountService.class).changeBuckets(ACCOUNT_NUMBER, buckets);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Object useBalance(Outcome outcome) {
+        try {
+            UseBalance.Response response = transactionController.useBalance(
+                    new UseBalance.Request(USER_ID, ACCOUNT_NUMBER, AMOUNT));
+            outcome.succeeded++;
+            return response;
+        } catch (AccountException e) {
+            outcome.aborted++;
+            return e;
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.example.account.benchmark;
+
+import com.example.account.domain.Account;
+import com.example.account.domain.Transaction;
+import com.example.account.repository.AccountRepository;
+import com.example.account.repository.TransactionRepository;
+import com.example.account.service.AccountService;
+import com.example.account.service.TransactionIdGenerator;
+import com.example.account.type.TransactionResultType;
+import com.example.account.type.TransactionType;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 거래 기록 insert 처리량
+ * before : 기존 설정 (sequence pooled optimizer, batch 없음)
+ * after  : jdbc batch 100 + order_inserts + pooled-lo (application.yml 설정)
+ * id 는 두 경우 모두 increment 50 sequence 에서 미리 받아두므로 차이는 insert batch 에서 나온다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 3)
+@Fork(1)
+public class LedgerInsertBenchmark {
+    private static final int ROWS_PER_TRANSACTION = 100;
+
+    @Param({"before", "after"})
+    private String config;
+
+    private ConfigurableApplicationContext context;
+    private TransactionRepository transactionRepository;
+    private TransactionTemplate transactionTemplate;
+    private TransactionIdGenerator transactionIdGenerator;
+    private Account account;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkApplication.start("before".equals(config)
+                ? Map.of("spring.jpa.properties.hibernate.id.optimizer.pooled.preferred", "pooled",
+                         "spring.jpa.properties.hibernate.jdbc.batch_size", 1,
+                         "spring.jpa.properties.hibernate.jdbc.batch_versioned_data", false,
+                         "spring.jpa.properties.hibernate.order_inserts", false,
+                         "spring.jpa.properties.hibernate.order_updates", false)
+                : Map.of());
+        transactionRepository = context.getBean(TransactionRepository.class);
+        transactionTemplate = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        transactionIdGenerator = context.getBean(TransactionIdGenerator.class);
+
+        String accountNumber = context.getBean(AccountService.class)
+                .createAccount(1L, 1_000_000L).getAccountNumber();
+        account = context.getBean(AccountRepository.class)
+                .findByAccountNumber(accountNumber).orElseThrow();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS_PER_TRANSACTION)
+    public void insertTransactions() {
+        transactionTemplate.executeWithoutResult(status -> {
+            List<Transaction> transactions = new ArrayList<>(ROWS_PER_TRANSACTION);
+            for (int i = 0; i < ROWS_PER_TRANSACTION; i++) {
+                transactions.add(Transaction.builder()
+                        .transactionType(TransactionType.USE)
+                        .transactionResultType(TransactionResultType.S)
+                        .account(account)
+                        .amount(100L)
+                        .balanceSnapshot(account.getBalance())
+                        .transactionId(transactionIdGenerator.generate())
+                        .transactionAt(LocalDateTime.now())
+                        .build());
+            }
+            transactionRepository.saveAll(transactions);
+        });
+    }
+}
@@ -0,0 +1,79 @@
+package com.example.account.benchmark;
+
+import com.example.account.service.LocalLockService;
+import com.example.account.service.LockService;
+import com.example.account.service.RedisLockService;
+import org.openjdk.jmh.annotations.*;
+import org.redisson.Redisson;
+import org.redisson.api.RedissonClient;
+import org.redisson.config.Config;
+import redis.embedded.RedisServer;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * lock/unlock 처리량 비교 (local striped lock vs redisson)
+ * accounts=1 은 한 계좌에 모든 스레드가 몰리는 경우, 64 는 분산된 경우
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 3)
+@Fork(1)
+@Threads(8)
+public class LockServiceBenchmark {
+    private static final int REDIS_PORT = 16379;
+
+    @Param({"local", "redis"})
+    private String backend;
+
+    @Param({"1", "64"})
+    private int accounts;
+
+    private RedisServer redisServer;
+    private RedissonClient redissonClient;
+    private LockService lockService;
+    private String[] accountNumbers;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        if ("redis".equals(backend)) {
+            redisServer = new RedisServer(REDIS_PORT);
+            redisServer.start();
+            Config config = new Config();
+            config.useSingleServer().setAddress("redis://127.0.0.1:" + REDIS_PORT);
+            redissonClient = Redisson.create(config);
+            lockService = new RedisLockService(redissonClient);
+        } else {
+            lockService = new LocalLockService(1024);
+        }
+
+        accountNumbers = new String[accounts];
+        for (int i = 0; i < accounts; i++) {
+            accountNumbers[i] = String.valueOf(1000000000L + i);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        if (redissonClient != null) {
+            redissonClient.shutdown();
+        }
+        if (redisServer != null) {
+            redisServer.stop();
+        }
+    }
+
+    @Benchmark
+    public void lockAndUnlock() {
+        String accountNumber = accountNumbers[ThreadLocalRandom.current().nextInt(accounts)];
+        lockService.lock(accountNumber);
+        try {
+            // 임계 구역
+        } finally {
+            lockService.unlock(accountNumber);
+        }
+    }
+}
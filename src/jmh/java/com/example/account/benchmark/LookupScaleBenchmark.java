@@ -0,0 +1,76 @@
+package com.example.account.benchmark;
+
+import com.example.account.repository.AccountRepository;
+import com.example.account.repository.TransactionRepository;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 데이터 규모에 따른 단건 조회 지연
+ * index 가 있으면 rows 가 늘어도 조회 시간이 거의 같아야 한다.
+ * 거래 rows 건, 계좌 rows / 10 건을 미리 넣는다.
+ * 10M 은 힙이 필요하므로 직접 지정한다. (-p rows=10000000 -jvmArgs -Xmx8g)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 3)
+@Fork(value = 1, jvmArgs = "-Xmx4g")
+public class LookupScaleBenchmark {
+    private static final long ID_OFFSET = 1_000_000_000L;
+    private static final long ACCOUNT_NUMBER_OFFSET = 2_000_000_000L;
+
+    @Param({"10000", "1000000"})
+    private int rows;
+
+    private ConfigurableApplicationContext context;
+    private AccountRepository accountRepository;
+    private TransactionRepository transactionRepository;
+    private int accounts;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkApplication.start(Map.of());
+        accountRepository = context.getBean(AccountRepository.class);
+        transactionRepository = context.getBean(TransactionRepository.class);
+        accounts = Math.max(1, rows / 10);
+
+        JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+        jdbcTemplate.update("insert into account(id, account_number, account_status, balance"
+                + ", registered_at, created_at, updated_at, account_user_id) "
+                + "select x + ?, cast(x + ? as varchar), 'IN_USE', 1000, now(), now(), now(), 1 "
+                + "from system_range(1, ?)", ID_OFFSET, ACCOUNT_NUMBER_OFFSET, accounts);
+        jdbcTemplate.update("insert into transaction(id, account_id, amount, balance_snapshot"
+                + ", transaction_at, transaction_id, transaction_result_type, transaction_type"
+                + ", created_at, updated_at) "
+                + "select x + ?, mod(x, ?) + 1 + ?, 100, 1000"
+                + ", dateadd('SECOND', x, timestamp '2024-01-01 00:00:00'), 'T' || x, 'S', 'USE'"
+                + ", now(), now() "
+                + "from system_range(1, ?)", ID_OFFSET, accounts, ID_OFFSET, rows);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Object findByAccountNumber() {
+        long x = ThreadLocalRandom.current().nextLong(1, accounts + 1);
+        return accountRepository.findByAccountNumber(String.valueOf(x + ACCOUNT_NUMBER_OFFSET))
+                .orElseThrow();
+    }
+
+    @Benchmark
+    public Object findByTransactionId() {
+        long x = ThreadLocalRandom.current().nextLong(1, rows + 1);
+        return transactionRepository.findByTransactionId("T" + x)
+                .orElseThrow();
+    }
+}
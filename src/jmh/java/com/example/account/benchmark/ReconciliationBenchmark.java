@@ -0,0 +1,95 @@
+package com.example.account.benchmark;
+
+import com.example.account.dto.Reconciliation;
+import com.example.account.service.ReconciliationService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 잔액 대조 1회 소요 시간
+ * accounts 개 계좌에 계좌당 transactionsPerAccount 건의 정상 거래를 넣어 둔다.
+ * full 은 대조 위치 없이 전체를 읽고, incremental 은 전체 대조 후 1% 계좌에만 거래가 한 건씩 생긴 경우다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgs = "-Xmx3g")
+public class ReconciliationBenchmark {
+    private static final long OPENING_BALANCE = 1_000_000L;
+
+    @Param({"full", "incremental"})
+    private String run;
+
+    @Param({"1", "4"})
+    private int parallelism;
+
+    @Param({"10000"})
+    private int accounts;
+
+    @Param({"100"})
+    private int transactionsPerAccount;
+
+    private ConfigurableApplicationContext context;
+    private JdbcTemplate jdbcTemplate;
+    private ReconciliationService reconciliationService;
+    private long nextTransactionId;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkApplication.start(Map.of("account.reconciliation.parallelism", parallelism));
+        jdbcTemplate = context.getBean(JdbcTemplate.class);
+        reconciliationService = context.getBean(ReconciliationService.class);
+
+        jdbcTemplate.update("insert into account(id, account_number, account_status, balance"
+                + ", registered_at, created_at, updated_at, account_user_id) "
+                + "select x, cast(x + 3000000000 as varchar), 'IN_USE', ?, now(), now(), now(), 1 "
+                + "from system_range(1, ?)", OPENING_BALANCE - transactionsPerAccount, accounts);
+        jdbcTemplate.update("insert into transaction(id, account_id, amount, balance_snapshot"
+                + ", transaction_at, transaction_id, transaction_result_type, transaction_type, created_at, updated_at) "
+                + "select a.x * 1000 + n.x, a.x, 1, ? - n.x, dateadd(second, n.x, timestamp '2024-01-01 00:00:00')"
+                + ", cast(a.x * 1000 + n.x as varchar), 'S', 'USE', now(), now() "
+                + "from system_range(1, ?) a, system_range(1, ?) n", OPENING_BALANCE, accounts, transactionsPerAccount);
+        nextTransactionId = (long) (accounts + 1) * 1000;
+
+        if ("incremental".equals(run)) {
+            reconciliationService.reconcile();
+        }
+    }
+
+    @Setup(Level.Invocation)
+    public void prepare() {
+        if ("full".equals(run)) {
+            jdbcTemplate.update("delete from reconciliation_checkpoint");
+            return;
+        }
+        // 1% 계좌에 거래 한 건씩
+        for (long accountId = 1; accountId <= accounts; accountId += 100) {
+            long id = nextTransactionId++;
+            jdbcTemplate.update("update account set balance = balance - 1 where id = ?", accountId);
+            jdbcTemplate.update("insert into transaction(id, account_id, amount, balance_snapshot"
+                            + ", transaction_at, transaction_id, transaction_result_type, transaction_type, created_at, updated_at) "
+                            + "select ?, id, 1, balance, now(), ?, 'S', 'USE', now(), now() from account where id = ?",
+                    id, String.valueOf(id), accountId);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Reconciliation.Result reconcile() {
+        Reconciliation.Result result = reconciliationService.reconcile();
+        if (result.getMismatchCount() != 0) {
+            throw new IllegalStateException("unexpected mismatches : " + result.getMismatchCount());
+        }
+        return result;
+    }
+}
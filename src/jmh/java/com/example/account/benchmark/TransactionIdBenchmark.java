@@ -0,0 +1,44 @@
+package com.example.account.benchmark;
+
+import com.example.account.service.SnowflakeTransactionIdGenerator;
+import com.example.account.service.TransactionIdGenerator;
+import com.example.account.service.UuidTransactionIdGenerator;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 거래 id 생성 처리량 (무작위 UUID vs 시간순 snowflake)
+ * 1 스레드와 8 스레드가 같은 생성기를 나눠 쓰는 경우를 비교한다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 3)
+@Fork(1)
+public class TransactionIdBenchmark {
+    @Param({"uuid", "snowflake"})
+    private String type;
+
+    private TransactionIdGenerator generator;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        generator = "uuid".equals(type)
+                ? new UuidTransactionIdGenerator()
+                : new SnowflakeTransactionIdGenerator(0);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public String generate() {
+        return generator.generate();
+    }
+
+    @Benchmark
+    @Threads(8)
+    public String generateContended() {
+        return generator.generate();
+    }
+}
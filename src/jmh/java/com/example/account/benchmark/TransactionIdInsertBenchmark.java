@@ -0,0 +1,77 @@
+package com.example.account.benchmark;
+
+import com.example.account.service.AccountService;
+import com.example.account.service.TransactionIdGenerator;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * transaction_id index 에 대한 insert 지역성
+ * 거래 rows 건을 미리 넣어 둔 뒤 100건씩 insert 한다.
+ * 무작위 id 는 index 곳곳에 들어가고, 시간순 id 는 항상 오른쪽 끝에 붙는다.
+ * JPA 영향을 빼기 위해 jdbc batch 로 직접 넣는다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 3)
+@Fork(value = 1, jvmArgs = "-Xmx2g")
+public class TransactionIdInsertBenchmark {
+    private static final int ROWS_PER_BATCH = 100;
+    private static final String INSERT_SQL = "insert into transaction(id, account_id, amount, balance_snapshot"
+            + ", transaction_at, transaction_id, transaction_result_type, transaction_type, created_at, updated_at)"
+            + " values (?, ?, 100, 1000, ?, ?, 'S', 'USE', ?, ?)";
+
+    @Param({"uuid", "snowflake"})
+    private String type;
+
+    @Param({"500000"})
+    private int rows;
+
+    private ConfigurableApplicationContext context;
+    private JdbcTemplate jdbcTemplate;
+    private TransactionIdGenerator transactionIdGenerator;
+    private long accountId;
+    private final AtomicLong ids = new AtomicLong(1_000_000_000L);
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkApplication.start(Map.of("account.transaction-id.type", type));
+        jdbcTemplate = context.getBean(JdbcTemplate.class);
+        transactionIdGenerator = context.getBean(TransactionIdGenerator.class);
+
+        String accountNumber = context.getBean(AccountService.class)
+                .createAccount(1L, 1_000_000L).getAccountNumber();
+        accountId = jdbcTemplate.queryForObject(
+                "select id from account where account_number = ?", Long.class, accountNumber);
+        for (int i = 0; i < rows; i += ROWS_PER_BATCH) {
+            insertTransactions();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS_PER_BATCH)
+    public void insertTransactions() {
+        Timestamp now = new Timestamp(System.currentTimeMillis());
+        List<Object[]> batch = new ArrayList<>(ROWS_PER_BATCH);
+        for (int i = 0; i < ROWS_PER_BATCH; i++) {
+            batch.add(new Object[]{ids.incrementAndGet(), accountId, now,
+                    transactionIdGenerator.generate(), now, now});
+        }
+        jdbcTemplate.batchUpdate(INSERT_SQL, batch);
+    }
+}
@@ -0,0 +1,54 @@
+package com.example.account.benchmark;
+
+import com.example.account.dto.TransactionDto;
+import com.example.account.service.AccountService;
+import com.example.account.service.TransactionService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 잔액 사용/취소 서비스 처리 시간 (H2 + 내장 redis)
+ * lock 은 controller 의 aspect 에서 잡으므로 여기서는 서비스 트랜잭션만 잰다.
+ * 취소 비용은 useAndCancelBalance - useBalance 로 본다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 3)
+@Fork(1)
+public class TransactionServiceBenchmark {
+    private static final long USER_ID = 1L; // data.sql 의 사용자
+    private static final long AMOUNT = 100L;
+
+    private ConfigurableApplicationContext context;
+    private TransactionService transactionService;
+    private String accountNumber;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkApplication.start(Map.of());
+        transactionService = context.getBean(TransactionService.class);
+        accountNumber = context.getBean(AccountService.class)
+                .createAccount(USER_ID, Long.MAX_VALUE / 2).getAccountNumber();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public TransactionDto useBalance() {
+        return transactionService.useBalance(USER_ID, accountNumber, AMOUNT);
+    }
+
+    @Benchmark
+    public TransactionDto useAndCancelBalance() {
+        TransactionDto used = transactionService.useBalance(USER_ID, accountNumber, AMOUNT);
+        return transactionService.cancelBalance(used.getTransactionId(), accountNumber, AMOUNT);
+    }
+}
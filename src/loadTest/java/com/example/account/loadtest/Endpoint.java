@@ -0,0 +1,18 @@
+package com.example.account.loadtest;
+
+public enum Endpoint {
+    USE("POST /transaction/use"),
+    CANCEL("POST /transaction/cancel"),
+    ACCOUNT("GET /account"),
+    QUERY("GET /transaction/{id}");
+
+    private final String description;
+
+    Endpoint(String description) {
+        this.description = description;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+}
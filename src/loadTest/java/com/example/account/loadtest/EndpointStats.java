@@ -0,0 +1,50 @@
+package com.example.account.loadtest;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * endpoint 하나의 응답 시간과 결과 집계
+ * 오류는 응답 body 의 errorCode 별로 센다. (예외 응답도 200 으로 내려오므로)
+ */
+public class EndpointStats {
+    public static final String LOCK_FAILURE = "ACCOUNT_TRANSACTION_LOCK";
+    public static final String IO_ERROR = "IO_ERROR";
+
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private final Map<String, Long> errors = new TreeMap<>();
+
+    public void recordSuccess(long nanos) {
+        latency.record(nanos);
+    }
+
+    public void recordError(long nanos, String errorCode) {
+        latency.record(nanos);
+        errors.merge(errorCode, 1L, Long::sum);
+    }
+
+    public void merge(EndpointStats other) {
+        latency.merge(other.latency);
+        other.errors.forEach((code, count) -> errors.merge(code, count, Long::sum));
+    }
+
+    public LatencyHistogram getLatency() {
+        return latency;
+    }
+
+    public long getRequests() {
+        return latency.getTotalCount();
+    }
+
+    public long getErrorCount() {
+        return errors.values().stream().mapToLong(Long::longValue).sum();
+    }
+
+    public long getLockFailures() {
+        return errors.getOrDefault(LOCK_FAILURE, 0L);
+    }
+
+    public Map<String, Long> getErrors() {
+        return errors;
+    }
+}
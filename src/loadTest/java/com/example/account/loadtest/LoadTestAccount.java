@@ -0,0 +1,4 @@
+package com.example.account.loadtest;
+
+public record LoadTestAccount(long userId, String accountNumber) {
+}
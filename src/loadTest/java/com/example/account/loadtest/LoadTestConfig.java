@@ -0,0 +1,112 @@
+package com.example.account.loadtest;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 부하 시나리오 설정 (system property, gradle 에서는 -Pload.xxx 로 넘긴다)
+ * load.threads  : 동시에 요청을 보내는 스레드 수
+ * load.duration : 측정 시간(초), load.warmup : 측정 전 워밍업 시간(초)
+ * load.accounts : 요청이 분산되는 계좌 수 (적을수록 hot account 경합)
+ * load.mix      : endpoint 별 비중, 예) use=50,cancel=20,account=20,query=10
+ * load.probe.threads, load.probe.mix : 위 부하와 별도로 돌리는 관찰용 스레드 (기본 0, account=1)
+ *     예) hot account 에 몰린 잔액 사용이 GET /account 응답을 막는지 확인할 때 쓴다.
+ * app.xxx       : 애플리케이션 설정으로 넘긴다. 예) app.spring.threads.virtual.enabled=true
+ */
+public class LoadTestConfig {
+    private final int threads;
+    private final int durationSeconds;
+    private final int warmupSeconds;
+    private final int accounts;
+    private final Map<Endpoint, Integer> mix;
+    private final int probeThreads;
+    private final Map<Endpoint, Integer> probeMix;
+
+    private LoadTestConfig(int threads, int durationSeconds, int warmupSeconds, int accounts,
+                           Map<Endpoint, Integer> mix, int probeThreads, Map<Endpoint, Integer> probeMix) {
+        this.threads = threads;
+        this.durationSeconds = durationSeconds;
+        this.warmupSeconds = warmupSeconds;
+        this.accounts = accounts;
+        this.mix = mix;
+        this.probeThreads = probeThreads;
+        this.probeMix = probeMix;
+    }
+
+    public static LoadTestConfig fromSystemProperties() {
+        return new LoadTestConfig(
+                Integer.getInteger("load.threads", 32),
+                Integer.getInteger("load.duration", 30),
+                Integer.getInteger("load.warmup", 5),
+                Integer.getInteger("load.accounts", 1000),
+                parseMix(System.getProperty("load.mix", "use=50,cancel=20,account=20,query=10")),
+                Integer.getInteger("load.probe.threads", 0),
+                parseMix(System.getProperty("load.probe.mix", "account=1")));
+    }
+
+    /**
+     * app. 으로 시작하는 system property 를 애플리케이션 command line 인자로 바꾼다.
+     */
+    public static List<String> applicationArguments() {
+        List<String> arguments = new ArrayList<>();
+        System.getProperties().forEach((key, value) -> {
+            String name = key.toString();
+            if (name.startsWith("app.")) {
+                arguments.add("--" + name.substring("app.".length()) + "=" + value);
+            }
+        });
+        return arguments;
+    }
+
+    static Map<Endpoint, Integer> parseMix(String value) {
+        Map<Endpoint, Integer> mix = new EnumMap<>(Endpoint.class);
+        for (String entry : value.split(",")) {
+            String[] pair = entry.trim().split("=");
+            if (pair.length != 2) {
+                throw new IllegalArgumentException("Invalid load.mix entry : " + entry);
+            }
+            mix.put(Endpoint.valueOf(pair[0].trim().toUpperCase()), Integer.parseInt(pair[1].trim()));
+        }
+        if (mix.values().stream().mapToInt(Integer::intValue).sum() <= 0) {
+            throw new IllegalArgumentException("load.mix must have a positive weight : " + value);
+        }
+        return mix;
+    }
+
+    public int getThreads() {
+        return threads;
+    }
+
+    public int getDurationSeconds() {
+        return durationSeconds;
+    }
+
+    public int getWarmupSeconds() {
+        return warmupSeconds;
+    }
+
+    public int getAccounts() {
+        return accounts;
+    }
+
+    public Map<Endpoint, Integer> getMix() {
+        return mix;
+    }
+
+    public int getProbeThreads() {
+        return probeThreads;
+    }
+
+    public Map<Endpoint, Integer> getProbeMix() {
+        return probeMix;
+    }
+
+    @Override
+    public String toString() {
+        return "threads=" + threads + ", duration=" + durationSeconds + "s, warmup=" + warmupSeconds
+                + "s, accounts=" + accounts + ", mix=" + mix
+                + (probeThreads > 0 ? ", probe.threads=" + probeThreads + ", probe.mix=" + probeMix : "");
+    }
+}
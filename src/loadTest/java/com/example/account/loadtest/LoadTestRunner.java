@@ -0,0 +1,171 @@
+package com.example.account.loadtest;
+
+import com.example.account.AccountApplication;
+import com.example.account.service.AccountService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * REST API 부하 테스트
+ * 내장 redis 와 새 H2 로 애플리케이션을 띄우고, 계좌를 만든 뒤 설정한 비율로 요청을 보낸다.
+ * endpoint 별 처리량, p50/p99/p999 응답 시간, lock 획득 실패율을 출력한다.
+ *
+ * ./gradlew loadTest -Pload.accounts=1000   (계좌가 분산된 경우)
+ * ./gradlew loadTest -Pload.accounts=2      (소수의 hot account 에 몰리는 경우)
+ *
+ * hot account 잔액 사용이 다른 요청을 굶기는지 (platform thread / virtual thread 비교)
+ * ./gradlew loadTest -Pload.threads=2000 -Pload.accounts=1 -Pload.mix=use=1 -Pload.probe.threads=4 \
+ *     -Papp.spring.threads.virtual.enabled=true
+ */
+public final class LoadTestRunner {
+    private static final int REDIS_PORT = 16380; // 개발용, 벤치마크용 redis 와 겹치지 않게
+    private static final long INITIAL_BALANCE = 1_000_000_000_000L;
+    private static final int ACCOUNTS_PER_USER = 10;
+    private static final long FIRST_USER_ID = 1000L;
+
+    private LoadTestRunner() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadTestConfig config = LoadTestConfig.fromSystemProperties();
+        System.out.println("Load test : " + config);
+
+        try (ConfigurableApplicationContext context = start()) {
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            LoadTestAccount[] accounts = createAccounts(context, config.getAccounts());
+
+            List<Map<Endpoint, EndpointStats>> stats = run(config, "http://127.0.0.1:" + port, accounts);
+            print(stats.get(0), config.getDurationSeconds());
+            if (config.getProbeThreads() > 0) {
+                System.out.println();
+                System.out.println("probe (" + config.getProbeThreads() + " threads)");
+                print(stats.get(1), config.getDurationSeconds());
+            }
+        }
+    }
+
+    private static ConfigurableApplicationContext start() {
+        List<String> arguments = new ArrayList<>(List.of(
+                "--server.port=0",
+                "--spring.datasource.url=jdbc:h2:mem:load-" + UUID.randomUUID(),
+                "--spring.redis.port=" + REDIS_PORT,
+                "--spring.jpa.properties.hibernate.show_sql=false",
+                "--logging.level.root=warn",
+                "--logging.level.com.example.account=off")); // 실패 응답마다 남는 error 로그 제외
+        arguments.addAll(LoadTestConfig.applicationArguments()); // 나중에 온 값이 우선한다.
+        return new SpringApplicationBuilder(AccountApplication.class)
+                .run(arguments.toArray(String[]::new));
+    }
+
+    private static LoadTestAccount[] createAccounts(ConfigurableApplicationContext context, int count) {
+        int users = (count + ACCOUNTS_PER_USER - 1) / ACCOUNTS_PER_USER;
+        List<Object[]> userRows = new ArrayList<>(users);
+        for (int i = 0; i < users; i++) {
+            userRows.add(new Object[]{FIRST_USER_ID + i, "load-" + i});
+        }
+        context.getBean(JdbcTemplate.class).batchUpdate(
+                "insert into account_user(id, name, account_count, created_at, updated_at) "
+                        + "values (?, ?, 0, now(), now())", userRows);
+
+        AccountService accountService = context.getBean(AccountService.class);
+        LoadTestAccount[] accounts = new LoadTestAccount[count];
+        for (int i = 0; i < count; i++) {
+            long userId = FIRST_USER_ID + i / ACCOUNTS_PER_USER;
+            accounts[i] = new LoadTestAccount(userId,
+                    accountService.createAccount(userId, INITIAL_BALANCE).getAccountNumber());
+        }
+        return accounts;
+    }
+
+    /**
+     * @return 0 : 부하 스레드 집계, 1 : 관찰용(probe) 스레드 집계
+     */
+    private static List<Map<Endpoint, EndpointStats>> run(LoadTestConfig config, String baseUrl,
+                                                          LoadTestAccount[] accounts) throws Exception {
+        HttpClient httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+        ObjectMapper objectMapper = new ObjectMapper();
+
+        long measureStart = System.nanoTime() + Duration.ofSeconds(config.getWarmupSeconds()).toNanos();
+        long end = measureStart + Duration.ofSeconds(config.getDurationSeconds()).toNanos();
+
+        // 수천 개의 동시 요청도 부하를 만드는 쪽이 병목이 되지 않도록 virtual thread 로 보낸다.
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<Map<Endpoint, EndpointStats>>> workers = new ArrayList<>();
+            for (int i = 0; i < config.getThreads(); i++) {
+                workers.add(executor.submit(new LoadWorker(httpClient, objectMapper, baseUrl,
+                        accounts, config.getMix(), measureStart, end)));
+            }
+            List<Future<Map<Endpoint, EndpointStats>>> probes = new ArrayList<>();
+            for (int i = 0; i < config.getProbeThreads(); i++) {
+                probes.add(executor.submit(new LoadWorker(httpClient, objectMapper, baseUrl,
+                        accounts, config.getProbeMix(), measureStart, end)));
+            }
+            return List.of(merge(workers), merge(probes));
+        }
+    }
+
+    private static Map<Endpoint, EndpointStats> merge(
+            List<Future<Map<Endpoint, EndpointStats>>> futures) throws Exception {
+        Map<Endpoint, EndpointStats> merged = new EnumMap<>(Endpoint.class);
+        for (Endpoint endpoint : Endpoint.values()) {
+            merged.put(endpoint, new EndpointStats());
+        }
+        for (Future<Map<Endpoint, EndpointStats>> future : futures) {
+            future.get().forEach((endpoint, stats) -> merged.get(endpoint).merge(stats));
+        }
+        return merged;
+    }
+
+    private static void print(Map<Endpoint, EndpointStats> stats, int durationSeconds) {
+        String format = "%-26s %10s %10s %9s %9s %9s %9s %8s %10s%n";
+        System.out.printf(format, "endpoint", "requests", "req/s",
+                "p50(ms)", "p99(ms)", "p999(ms)", "max(ms)", "errors", "lock-fail%");
+
+        EndpointStats total = new EndpointStats();
+        stats.forEach((endpoint, endpointStats) -> {
+            if (endpointStats.getRequests() > 0) {
+                printRow(format, endpoint.getDescription(), endpointStats, durationSeconds);
+                total.merge(endpointStats);
+            }
+        });
+        printRow(format, "total", total, durationSeconds);
+
+        if (!total.getErrors().isEmpty()) {
+            System.out.println("errors by code : " + total.getErrors());
+        }
+    }
+
+    private static void printRow(String format, String name, EndpointStats stats, int durationSeconds) {
+        LatencyHistogram latency = stats.getLatency();
+        System.out.printf(format, name,
+                stats.getRequests(),
+                String.format("%.1f", (double) stats.getRequests() / durationSeconds),
+                millis(latency.valueAtPercentile(50)),
+                millis(latency.valueAtPercentile(99)),
+                millis(latency.valueAtPercentile(99.9)),
+                millis(latency.getMax()),
+                stats.getErrorCount(),
+                String.format("%.2f", 100.0 * stats.getLockFailures() / stats.getRequests()));
+    }
+
+    private static String millis(long nanos) {
+        return String.format("%.2f", nanos / 1_000_000.0);
+    }
+}
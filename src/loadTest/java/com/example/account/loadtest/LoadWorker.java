@@ -0,0 +1,172 @@
+package com.example.account.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 응답을 받으면 바로 다음 요청을 보내는 closed-loop 부하 스레드
+ * 취소/조회는 이 스레드가 성공시킨 사용 거래를 대상으로 하고, 대상이 없으면 사용으로 대신한다.
+ */
+public class LoadWorker implements Callable<Map<Endpoint, EndpointStats>> {
+    private static final long AMOUNT = 100L;
+    private static final int MAX_CANCELABLE = 1000;
+
+    private final HttpClient httpClient;
+    private final ObjectMapper objectMapper;
+    private final String baseUrl;
+    private final LoadTestAccount[] accounts;
+    private final Endpoint[] endpoints;
+    private final int[] cumulativeWeights;
+    private final long measureStartNanos;
+    private final long endNanos;
+
+    private final Map<Endpoint, EndpointStats> stats = new EnumMap<>(Endpoint.class);
+    private final Deque<String[]> cancelable = new ArrayDeque<>(); // {transactionId, accountNumber}
+    private String lastTransactionId;
+
+    public LoadWorker(HttpClient httpClient, ObjectMapper objectMapper, String baseUrl,
+                      LoadTestAccount[] accounts, Map<Endpoint, Integer> mix,
+                      long measureStartNanos, long endNanos) {
+        this.httpClient = httpClient;
+        this.objectMapper = objectMapper;
+        this.baseUrl = baseUrl;
+        this.accounts = accounts;
+        this.endpoints = mix.keySet().toArray(new Endpoint[0]);
+        this.cumulativeWeights = new int[endpoints.length];
+        int sum = 0;
+        for (int i = 0; i < endpoints.length; i++) {
+            sum += mix.get(endpoints[i]);
+            cumulativeWeights[i] = sum;
+        }
+        this.measureStartNanos = measureStartNanos;
+        this.endNanos = endNanos;
+        for (Endpoint endpoint : Endpoint.values()) {
+            stats.put(endpoint, new EndpointStats());
+        }
+    }
+
+    @Override
+    public Map<Endpoint, EndpointStats> call() {
+        while (System.nanoTime() < endNanos) {
+            switch (nextEndpoint()) {
+                case USE -> use();
+                case CANCEL -> cancel();
+                case ACCOUNT -> getAccounts();
+                case QUERY -> queryTransaction();
+            }
+        }
+        return stats;
+    }
+
+    private Endpoint nextEndpoint() {
+        int pick = ThreadLocalRandom.current().nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+        for (int i = 0; i < cumulativeWeights.length; i++) {
+            if (pick < cumulativeWeights[i]) {
+                return endpoints[i];
+            }
+        }
+        return endpoints[endpoints.length - 1];
+    }
+
+    private void use() {
+        LoadTestAccount account = randomAccount();
+        JsonNode response = send(Endpoint.USE, post("/transaction/use",
+                Map.of("userId", account.userId(),
+                        "accountNumber", account.accountNumber(),
+                        "amount", AMOUNT)));
+        if (response != null) {
+            lastTransactionId = response.get("transactionId").asText();
+            if (cancelable.size() == MAX_CANCELABLE) {
+                cancelable.pollFirst();
+            }
+            cancelable.addLast(new String[]{lastTransactionId, account.accountNumber()});
+        }
+    }
+
+    private void cancel() {
+        String[] used = cancelable.pollLast();
+        if (used == null) {
+            use();
+            return;
+        }
+        send(Endpoint.CANCEL, post("/transaction/cancel",
+                Map.of("transactionId", used[0],
+                        "accountNumber", used[1],
+                        "amount", AMOUNT)));
+    }
+
+    private void getAccounts() {
+        send(Endpoint.ACCOUNT, HttpRequest.newBuilder(
+                URI.create(baseUrl + "/account?user_id=" + randomAccount().userId())).GET().build());
+    }
+
+    private void queryTransaction() {
+        if (lastTransactionId == null) {
+            use();
+            return;
+        }
+        send(Endpoint.QUERY, HttpRequest.newBuilder(
+                URI.create(baseUrl + "/transaction/" + lastTransactionId)).GET().build());
+    }
+
+    private LoadTestAccount randomAccount() {
+        return accounts[ThreadLocalRandom.current().nextInt(accounts.length)];
+    }
+
+    private HttpRequest post(String path, Map<String, Object> body) {
+        try {
+            return HttpRequest.newBuilder(URI.create(baseUrl + path))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(body)))
+                    .build();
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * @return 성공이면 응답 body, 실패면 null
+     */
+    private JsonNode send(Endpoint endpoint, HttpRequest request) {
+        long start = System.nanoTime();
+        String errorCode;
+        JsonNode body = null;
+        try {
+            HttpResponse<byte[]> response = httpClient.send(request, HttpResponse.BodyHandlers.ofByteArray());
+            if (response.statusCode() != 200) {
+                errorCode = "HTTP_" + response.statusCode();
+            } else {
+                body = objectMapper.readTree(response.body());
+                JsonNode code = body.get("errorCode");
+                errorCode = code == null || code.isNull() ? null : code.asText();
+            }
+        } catch (IOException e) {
+            errorCode = EndpointStats.IO_ERROR;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+        long elapsed = System.nanoTime() - start;
+
+        if (start >= measureStartNanos) { // 워밍업 구간은 집계하지 않는다.
+            if (errorCode == null) {
+                stats.get(endpoint).recordSuccess(elapsed);
+            } else {
+                stats.get(endpoint).recordError(elapsed, errorCode);
+            }
+        }
+        return errorCode == null ? body : null;
+    }
+}
@@ -0,0 +1,14 @@
+package com.example.account.aop;
+
+import java.lang.annotation.*;
+
+/**
+ * Idempotency-Key 헤더가 있는 요청은 같은 key 로 다시 와도 처음 응답을 그대로 돌려준다.
+ * 계좌 lock 보다 먼저 확인하므로 재요청은 lock 도 DB 도 거치지 않는다.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+@Inherited
+public @interface Idempotent {
+}
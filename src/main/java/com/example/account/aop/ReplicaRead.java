@@ -0,0 +1,17 @@
+package com.example.account.aop;
+
+import org.springframework.transaction.annotation.Transactional;
+
+import java.lang.annotation.*;
+
+/**
+ * 조회 전용 메서드는 읽기 전용 트랜잭션으로 실행하고, replica 가 있으면 replica 에서 읽는다.
+ * 쓰기 트랜잭션 안에서 불리면 그 트랜잭션(primary)에 그대로 참여한다.
+ */
+@Target({ElementType.METHOD, ElementType.TYPE})
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+@Inherited
+@Transactional(readOnly = true)
+public @interface ReplicaRead {
+}
@@ -0,0 +1,62 @@
+package com.example.account.config;
+
+import com.example.account.service.ReplicaReadPolicy;
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+
+import javax.sql.DataSource;
+
+/**
+ * primary(spring.datasource)와 replica(account.datasource.replica)를 두고
+ * @ReplicaRead 로 표시한 조회만 replica 로 보낸다.
+ * 테이블 생성(ddl-auto)과 data.sql 은 primary 에만 실행되므로 replica 는 DB 복제로 스키마와 데이터를 받아야 한다.
+ * 로컬에서는 replica url 을 primary 와 같은 H2 메모리 DB 로 두어 읽기 전용 pool 로 연다. (복제 지연은 없다)
+ */
+@Configuration
+@ConditionalOnProperty(name = "account.datasource.replica.enabled", havingValue = "true")
+public class DataSourceRoutingConfiguration {
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        return properties.initializeDataSourceBuilder()
+                .type(HikariDataSource.class)
+                .build();
+    }
+
+    @Bean
+    @ConfigurationProperties("account.datasource.replica.hikari")
+    public HikariDataSource replicaDataSource(
+            @Value("${account.datasource.replica.url}") String url,
+            @Value("${account.datasource.replica.username:}") String username,
+            @Value("${account.datasource.replica.password:}") String password,
+            @Value("${account.datasource.replica.driver-class-name:}") String driverClassName) {
+        HikariDataSource dataSource = DataSourceBuilder.create()
+                .type(HikariDataSource.class)
+                .url(url)
+                .username(username)
+                .password(password)
+                .build();
+        if (!driverClassName.isEmpty()) {
+            dataSource.setDriverClassName(driverClassName);
+        }
+        dataSource.setReadOnly(true);
+        return dataSource;
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(
+            @Qualifier("primaryDataSource") DataSource primaryDataSource,
+            @Qualifier("replicaDataSource") DataSource replicaDataSource,
+            ReplicaReadPolicy replicaReadPolicy) {
+        return ReadWriteRoutingDataSource.create(primaryDataSource, replicaDataSource, replicaReadPolicy);
+    }
+}
@@ -0,0 +1,38 @@
+package com.example.account.config;
+
+import com.example.account.service.ReplicaReadPolicy;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+import javax.sql.DataSource;
+import java.util.Map;
+
+/**
+ * 읽기 전용 트랜잭션은 replica, 그 외(쓰기, lock 을 잡은 경로, 트랜잭션 밖)는 primary 로 보낸다.
+ * 트랜잭션을 시작할 때는 아직 읽기 전용 여부가 정해지지 않았으므로
+ * LazyConnectionDataSourceProxy 로 감싸서 첫 statement 를 보낼 때 고른다.
+ */
+public class ReadWriteRoutingDataSource extends AbstractRoutingDataSource {
+    private enum Route {
+        PRIMARY, REPLICA
+    }
+
+    private final ReplicaReadPolicy replicaReadPolicy;
+
+    private ReadWriteRoutingDataSource(DataSource primary, DataSource replica, ReplicaReadPolicy replicaReadPolicy) {
+        this.replicaReadPolicy = replicaReadPolicy;
+        setTargetDataSources(Map.of(Route.PRIMARY, primary, Route.REPLICA, replica));
+        setDefaultTargetDataSource(primary);
+        afterPropertiesSet();
+    }
+
+    public static DataSource create(DataSource primary, DataSource replica, ReplicaReadPolicy replicaReadPolicy) {
+        return new LazyConnectionDataSourceProxy(
+                new ReadWriteRoutingDataSource(primary, replica, replicaReadPolicy));
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        return replicaReadPolicy.isReplicaRead() ? Route.REPLICA : Route.PRIMARY;
+    }
+}
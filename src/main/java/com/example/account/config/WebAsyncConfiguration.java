@@ -0,0 +1,36 @@
+package com.example.account.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.async.AsyncWebRequest;
+import org.springframework.web.context.request.async.CallableProcessingInterceptor;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.concurrent.Callable;
+
+/**
+ * 엔드포인트별 servlet async timeout
+ * StreamingResponseBody 는 WebAsyncTask 로 감쌀 수 없어서 spring.mvc.async.request-timeout
+ * (없으면 Tomcat 기본 30초)만 적용된다.
+ * 컨트롤러가 TIMEOUT_ATTRIBUTE 에 밀리초를 넣어두면 비동기 처리를 시작하기 전에 그 값으로 바꾼다.
+ */
+@Configuration
+public class WebAsyncConfiguration implements WebMvcConfigurer {
+    public static final String TIMEOUT_ATTRIBUTE = WebAsyncConfiguration.class.getName() + ".timeout";
+
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        configurer.registerCallableInterceptors(new CallableProcessingInterceptor() {
+            @Override
+            public <T> void beforeConcurrentHandling(NativeWebRequest request, Callable<T> task) {
+                if (request instanceof AsyncWebRequest asyncWebRequest
+                        && request.getAttribute(TIMEOUT_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST)
+                        instanceof Long timeout) {
+                    asyncWebRequest.setTimeout(timeout);
+                }
+            }
+        });
+    }
+}
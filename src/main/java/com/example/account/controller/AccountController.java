@@ -1,10 +1,19 @@
 package com.example.account.controller;
 
-import com.example.account.domain.Account;
+import com.example.account.aop.AccountLock;
+import com.example.account.dto.AccountBuckets;
+import com.example.account.dto.AccountDetail;
 import com.example.account.dto.AccountInfo;
 import com.example.account.dto.CreateAccount;
 import com.example.account.dto.DeleteAccount;
+import com.example.account.dto.Reconciliation;
+import com.example.account.dto.TransactionHistory;
 import com.example.account.service.AccountService;
+import com.example.account.service.HotAccountService;
+import com.example.account.service.ReconciliationService;
+import com.example.account.service.TransactionService;
+import com.example.account.type.TransactionResultType;
+import com.example.account.type.TransactionType;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.web.bind.annotation.*;
@@ -16,6 +25,9 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 public class AccountController {
     private final AccountService accountService;
+    private final TransactionService transactionService;
+    private final ReconciliationService reconciliationService;
+    private final HotAccountService hotAccountService;
 
     @PostMapping("/account")
     public CreateAccount.Response createAccount(
@@ -46,8 +58,47 @@ public class AccountController {
                 .collect(Collectors.toList());
     }
 
+    /**
+     * 사용이 몰리는 계좌의 잔액을 bucket 으로 나눈다. (0 이면 다시 합친다)
+     */
+    @PostMapping("/account/buckets")
+    @AccountLock
+    public AccountBuckets.Response changeBuckets(
+            @RequestBody @Valid AccountBuckets.Request request){
+        return AccountBuckets.Response.from(
+                hotAccountService.changeBuckets(
+                        request.getAccountNumber()
+                        , request.getBucketCount())
+                , request.getBucketCount()
+        );
+    }
+
     @GetMapping("/account/{id}")
-    public Account getAccount(@PathVariable Long id){
+    public AccountDetail getAccount(@PathVariable Long id){
         return accountService.getAccount(id);
     }
+
+    /**
+     * 계좌의 거래 내역 (최신순)
+     * 다음 페이지는 응답의 nextCursor 를 cursor 로 넘겨서 받는다.
+     */
+    @GetMapping("/account/{accountNumber}/transactions")
+    public TransactionHistory.Response getTransactionHistory(
+            @PathVariable String accountNumber,
+            @RequestParam(value = "transaction_type", required = false) TransactionType transactionType,
+            @RequestParam(value = "result_type", required = false) TransactionResultType resultType,
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "size", defaultValue = "20") int size
+    ){
+        return transactionService.getTransactionHistory(
+                accountNumber, transactionType, resultType, cursor, size);
+    }
+
+    /**
+     * 원장으로 계산한 잔액과 계좌 잔액 대조 (지난 대조 이후 거래가 있는 계좌만)
+     */
+    @PostMapping("/account/reconciliation")
+    public Reconciliation.Result reconcile(){
+        return reconciliationService.reconcile();
+    }
 }
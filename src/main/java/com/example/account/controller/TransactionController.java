@@ -1,62 +1,149 @@
 package com.example.account.controller;
 
 import com.example.account.aop.AccountLock;
+import com.example.account.aop.Idempotent;
+import com.example.account.config.WebAsyncConfiguration;
+import com.example.account.dto.CacheStatsResponse;
 import com.example.account.dto.CancelBalance;
 import com.example.account.dto.QueryTransactionResponse;
 import com.example.account.dto.UseBalance;
+import com.example.account.dto.UseBalanceBatch;
 import com.example.account.exception.AccountException;
+import com.example.account.service.FailedTransactionWriter;
+import com.example.account.service.LedgerEngine;
+import com.example.account.service.LedgerExportService;
+import com.example.account.service.TransactionBatchService;
 import com.example.account.service.TransactionService;
+import com.example.account.type.ErrorCode;
+import com.example.account.type.ExportFormat;
+import com.example.account.type.TransactionType;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * 잔액 관련 컨트롤러
  * 1. 잔액 사용
  * 2. 잔액 사용 취소
  * 3. 거래 확인
+ * 4. 잔액 사용 일괄 처리
+ * 5. 거래 조회 cache 통계
+ * 6. 잔액 사용/취소 비동기 처리 (lock 을 기다리는 동안 요청 스레드를 반납)
+ * 7. 사용/취소는 Idempotency-Key 헤더로 재요청을 한 번만 처리
+ * 8. 전체 원장 내보내기 (NDJSON/CSV 스트리밍)
+ * 9. engine 모드에서는 사용/취소를 LedgerEngine 이 처리
+ * 10. 실패한 사용/취소는 FailedTransactionWriter 가 모아서 저장 (lock 을 잡은 채로 DB 에 쓰지 않는다)
  */
 @Slf4j
 @RestController
 @RequiredArgsConstructor
 public class TransactionController {
     private final TransactionService transactionService;
+    private final TransactionBatchService transactionBatchService;
+    private final LedgerExportService ledgerExportService;
+    private final LedgerEngine ledgerEngine;
+    private final FailedTransactionWriter failedTransactionWriter;
+
+    @Value("${account.export.timeout:2h}")
+    private Duration exportTimeout;
+
     @PostMapping("/transaction/use")
+    @Idempotent
     @AccountLock
     public UseBalance.Response useBalance(
             @Valid @RequestBody UseBalance.Request request
-    ) throws InterruptedException {
+    ) {
+        return processUseBalance(request);
+    }
+
+    /**
+     * lock 은 LockAopAspect 가 비동기로 잡고, 잡힌 뒤에 이 메서드를 실행한다.
+     */
+    @PostMapping("/transaction/use/async")
+    @Idempotent
+    @AccountLock
+    public CompletableFuture<UseBalance.Response> useBalanceAsync(
+            @Valid @RequestBody UseBalance.Request request
+    ) {
+        return CompletableFuture.completedFuture(processUseBalance(request));
+    }
+
+    private UseBalance.Response processUseBalance(UseBalance.Request request) {
         try {
-            Thread.sleep(5000L);
-            return UseBalance.Response.from(
-                    transactionService.useBalance(request.getUserId(),
+            return UseBalance.Response.from(ledgerEngine.isEnabled()
+                    ? ledgerEngine.useBalance(request.getUserId(),
+                            request.getAccountNumber(), request.getAmount())
+                    : transactionService.useBalance(request.getUserId(),
                             request.getAccountNumber(), request.getAmount())
             );
         } catch (AccountException e){
             log.error("Failed to use balance. ");
 
-            transactionService.saveFailedUseTransaction(
+            if (e.getErrorCode() == ErrorCode.TRANSACTION_RESULT_UNKNOWN) {
+                throw e; // 나중에 성공으로 커밋될 수 있으므로 실패 거래를 남기지 않는다.
+            }
+            failedTransactionWriter.record(
+                    TransactionType.USE,
                     request.getAccountNumber(),
                     request.getAmount()
             );
             throw e;
         }
     }
+
+    @PostMapping("/transaction/use/batch")
+    public UseBalanceBatch.Response useBalanceBatch(
+            @Valid @RequestBody UseBalanceBatch.Request request
+    ){
+        return UseBalanceBatch.Response.from(
+                transactionBatchService.useBalance(request.getRequests())
+        );
+    }
+
     @PostMapping("/transaction/cancel")
+    @Idempotent
     @AccountLock
     public CancelBalance.Response cancelBalance(
             @Valid @RequestBody CancelBalance.Request request
     ){
+        return processCancelBalance(request);
+    }
+
+    @PostMapping("/transaction/cancel/async")
+    @Idempotent
+    @AccountLock
+    public CompletableFuture<CancelBalance.Response> cancelBalanceAsync(
+            @Valid @RequestBody CancelBalance.Request request
+    ){
+        return CompletableFuture.completedFuture(processCancelBalance(request));
+    }
+
+    private CancelBalance.Response processCancelBalance(CancelBalance.Request request) {
         try {
-            return CancelBalance.Response.from(
-                    transactionService.cancelBalance(request.getTransactionId(),
+            return CancelBalance.Response.from(ledgerEngine.isEnabled()
+                    ? ledgerEngine.cancelBalance(request.getTransactionId(),
+                            request.getAccountNumber(), request.getAmount())
+                    : transactionService.cancelBalance(request.getTransactionId(),
                             request.getAccountNumber(), request.getAmount())
             );
         } catch (AccountException e){
             log.error("Failed to use balance. ");
 
-            transactionService.saveFailedCancelTransaction(
+            if (e.getErrorCode() == ErrorCode.TRANSACTION_RESULT_UNKNOWN) {
+                throw e; // 나중에 성공으로 커밋될 수 있으므로 실패 거래를 남기지 않는다.
+            }
+            failedTransactionWriter.record(
+                    TransactionType.CANCEL,
                     request.getAccountNumber(),
                     request.getAmount()
             );
@@ -71,4 +158,26 @@ public class TransactionController {
         return QueryTransactionResponse.fromTransactionDto(
                 transactionService.queryTransaction(transactionId));
     }
+
+    /**
+     * 응답을 모아두지 않고 읽는 대로 내려보낸다.
+     * 전체 원장은 servlet async 기본 timeout 안에 끝나지 않으므로 account.export.timeout 을 따로 적용한다.
+     */
+    @GetMapping("/transaction/export")
+    public ResponseEntity<StreamingResponseBody> exportLedger(
+            @RequestParam(value = "format", defaultValue = "NDJSON") ExportFormat format,
+            HttpServletRequest request
+    ){
+        request.setAttribute(WebAsyncConfiguration.TIMEOUT_ATTRIBUTE, exportTimeout.toMillis());
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(format.getContentType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        "attachment; filename=\"ledger." + format.getExtension() + "\"")
+                .body(outputStream -> ledgerExportService.export(format, outputStream));
+    }
+
+    @GetMapping("/transaction/cache/stats")
+    public CacheStatsResponse getTransactionCacheStats(){
+        return transactionService.getTransactionCacheStats();
+    }
 }
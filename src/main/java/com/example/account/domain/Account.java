@@ -3,15 +3,22 @@ package com.example.account.domain;
 import com.example.account.exception.AccountException;
 import com.example.account.type.AccountStatus;
 import com.example.account.type.ErrorCode;
+import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.EnumType;
 import jakarta.persistence.Enumerated;
+import jakarta.persistence.FetchType;
+import jakarta.persistence.Index;
 import jakarta.persistence.ManyToOne;
+import jakarta.persistence.Table;
+import jakarta.persistence.Version;
 import lombok.AllArgsConstructor;
+import lombok.Builder;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
 import lombok.experimental.SuperBuilder;
+import org.hibernate.annotations.ColumnDefault;
 
 import java.time.LocalDateTime;
 
@@ -22,8 +29,12 @@ import java.time.LocalDateTime;
 @AllArgsConstructor
 @SuperBuilder
 @Entity
+@Table(indexes = {
+        @Index(name = "uk_account_account_number", columnList = "account_number", unique = true),
+        @Index(name = "idx_account_account_user_id", columnList = "account_user_id")
+})
 public class Account extends BaseEntity{
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY) // 계좌 조회는 사용자 id(FK) 만 쓰므로 사용자 행은 필요할 때만 읽는다.
     private AccountUser accountUser;
     private String accountNumber;
 
@@ -34,6 +45,20 @@ public class Account extends BaseEntity{
     private LocalDateTime registeredAt;
     private LocalDateTime unRegisteredAt;
 
+    @Version // lock 없이 변경할 때 동시 수정 감지 (account.balance.update-mode=optimistic)
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    private Long version;
+
+    // 0 이면 분할하지 않은 계좌, N 이면 잔액이 AccountBucket N 개에 나뉘어 있고 이 행의 잔액은 0 이다.
+    @Builder.Default
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    private Integer bucketCount = 0;
+
+    public boolean isSplit() {
+        return bucketCount != null && bucketCount > 0;
+    }
 
     public void useBalance(Long amount) {
         if(amount > balance){
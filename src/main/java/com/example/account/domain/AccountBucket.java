@@ -0,0 +1,29 @@
+package com.example.account.domain;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.experimental.SuperBuilder;
+
+/**
+ * 분할 계좌(hot account)의 잔액 조각
+ * 사용은 bucket 행 하나만 조건부 UPDATE 하므로, 행 lock 이 bucket 마다의 lock 이 된다.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@SuperBuilder
+@Entity
+@Table(indexes = {
+        @Index(name = "uk_account_bucket_account_id_bucket_index", columnList = "account_id, bucket_index", unique = true)
+})
+public class AccountBucket extends BaseEntity {
+    private Long accountId;
+    private Integer bucketIndex; // 0 ~ bucketCount - 1
+    private Long balance;
+}
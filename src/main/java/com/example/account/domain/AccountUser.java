@@ -1,11 +1,14 @@
 package com.example.account.domain;
 
+import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import lombok.AllArgsConstructor;
+import lombok.Builder;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
 import lombok.experimental.SuperBuilder;
+import org.hibernate.annotations.ColumnDefault;
 
 @Getter
 @Setter
@@ -15,4 +18,10 @@ import lombok.experimental.SuperBuilder;
 @Entity
 public class AccountUser extends BaseEntity{
     private String name;
+
+    // 지금까지 개설한 계좌 수 (해지 계좌 포함), update 한 번으로 원자적으로 증가시킨다.
+    @Builder.Default
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    private Integer accountCount = 0;
 }
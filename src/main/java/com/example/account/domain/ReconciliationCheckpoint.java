@@ -0,0 +1,35 @@
+package com.example.account.domain;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.experimental.SuperBuilder;
+
+import java.time.LocalDateTime;
+
+/**
+ * 계좌별 잔액 대조 진행 위치
+ * 다음 대조는 이 거래 이후의 거래만 읽고, 원장 잔액을 여기서부터 이어서 계산한다.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@SuperBuilder
+@Entity
+@Table(indexes = {
+        @Index(name = "uk_reconciliation_checkpoint_account_id", columnList = "account_id", unique = true)
+})
+public class ReconciliationCheckpoint extends BaseEntity {
+    private Long accountId;
+
+    // 마지막으로 대조한 성공 거래 (거래 시각, id 순서)
+    private LocalDateTime lastTransactionAt;
+    private Long lastTransactionId;
+
+    private Long ledgerBalance; // 마지막 거래까지 원장으로 계산한 잔액
+}
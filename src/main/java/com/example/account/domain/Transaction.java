@@ -5,7 +5,10 @@ import com.example.account.type.TransactionType;
 import jakarta.persistence.Entity;
 import jakarta.persistence.EnumType;
 import jakarta.persistence.Enumerated;
+import jakarta.persistence.FetchType;
+import jakarta.persistence.Index;
 import jakarta.persistence.ManyToOne;
+import jakarta.persistence.Table;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
@@ -20,13 +23,17 @@ import java.time.LocalDateTime;
 @NoArgsConstructor
 @SuperBuilder
 @Entity
+@Table(indexes = {
+        @Index(name = "uk_transaction_transaction_id", columnList = "transaction_id", unique = true),
+        @Index(name = "idx_transaction_account_id_transaction_at_id", columnList = "account_id, transaction_at desc, id desc")
+})
 public class Transaction extends BaseEntity{
     @Enumerated(EnumType.STRING)
     private TransactionType transactionType;
     @Enumerated(EnumType.STRING)
     private TransactionResultType transactionResultType;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY) // 거래 조회는 계좌번호만 join 해서 읽는다.
     private Account account;
     private Long amount;
     private Long balanceSnapshot;
@@ -0,0 +1,7 @@
+package com.example.account.dto;
+
+/**
+ * 계좌 id 와 잔액만 읽는 projection (조건부 차감 후 잔액 스냅샷)
+ */
+public record AccountBalance(Long accountId, Long balance) {
+}
@@ -0,0 +1,48 @@
+package com.example.account.dto;
+
+import com.example.account.aop.AccountLockIdInterface;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+/**
+ * 계좌 잔액 분할 (hot account), bucketCount 0 은 분할 해제
+ */
+public class AccountBuckets {
+    @Getter
+    @AllArgsConstructor
+    public static class Request implements AccountLockIdInterface {
+
+        @NotBlank
+        @Size(min = 10, max = 10)
+        private String accountNumber;
+
+        @NotNull
+        @Min(0)
+        private Integer bucketCount;
+
+    }
+
+    @Getter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    public static class Response {
+        private String accountNumber;
+        private Integer bucketCount;
+        private Long balance; // bucket 합계
+
+        public static Response from(AccountDto accountDto, Integer bucketCount) {
+            return Response.builder()
+                    .accountNumber(accountDto.getAccountNumber())
+                    .bucketCount(bucketCount)
+                    .balance(accountDto.getBalance())
+                    .build();
+        }
+    }
+}
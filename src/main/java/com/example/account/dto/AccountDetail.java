@@ -0,0 +1,20 @@
+package com.example.account.dto;
+
+import com.example.account.type.AccountStatus;
+
+import java.time.LocalDateTime;
+
+/**
+ * 계좌 단건 조회 응답 projection
+ * 사용자는 id 만 담고, 분할 계좌의 잔액은 bucket 합계
+ */
+public record AccountDetail(
+        Long id,
+        Long userId,
+        String accountNumber,
+        AccountStatus accountStatus,
+        Long balance,
+        LocalDateTime registeredAt,
+        LocalDateTime unRegisteredAt
+) {
+}
@@ -21,10 +21,15 @@ public class AccountDto {
     private LocalDateTime unRegisteredAt;
 
     public static AccountDto fromEntity(Account account){
+        return fromEntity(account, account.getBalance());
+    }
+
+    // 분할 계좌는 bucket 합계를 잔액으로 보여준다.
+    public static AccountDto fromEntity(Account account, Long balance){
         return AccountDto.builder()
                 .userId(account.getAccountUser().getId())
                 .accountNumber(account.getAccountNumber())
-                .balance(account.getBalance())
+                .balance(balance)
                 .registeredAt(account.getRegisteredAt())
                 .unRegisteredAt(account.getUnRegisteredAt())
                 .build();
@@ -0,0 +1,15 @@
+package com.example.account.dto;
+
+import com.example.account.type.AccountStatus;
+
+/**
+ * 잔액 사용/취소 검증에 필요한 계좌 상태만 읽는 projection (LedgerEngine 적재용)
+ */
+public record AccountSnapshot(
+        Long accountId,
+        String accountNumber,
+        Long userId,
+        AccountStatus accountStatus,
+        Long balance
+) {
+}
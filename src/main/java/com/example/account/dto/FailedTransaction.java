@@ -0,0 +1,18 @@
+package com.example.account.dto;
+
+import com.example.account.type.TransactionType;
+
+import java.time.LocalDateTime;
+
+/**
+ * 실패한 사용/취소 한 건, FailedTransactionWriter 가 모아서 저장한다.
+ * 거래 번호와 시각은 실패한 시점에 정한다.
+ */
+public record FailedTransaction(
+        TransactionType transactionType,
+        String accountNumber,
+        Long amount,
+        String transactionId,
+        LocalDateTime transactionAt
+) {
+}
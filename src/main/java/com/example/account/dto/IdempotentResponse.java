@@ -0,0 +1,18 @@
+package com.example.account.dto;
+
+import com.example.account.type.ErrorCode;
+
+/**
+ * Idempotency-Key 로 저장해 두는 응답
+ * 같은 key 로 본문이 다른 요청이 오면 저장된 응답을 돌려주지 않도록 요청 본문의 hash 를 같이 둔다.
+ * 결과를 모르는 실패(TRANSACTION_RESULT_UNKNOWN)는 응답 대신 오류 코드를 둬서 재요청에도 같은 오류로 응답한다.
+ */
+public record IdempotentResponse(String requestHash, Object response, ErrorCode errorCode) {
+    public IdempotentResponse(String requestHash, Object response) {
+        this(requestHash, response, null);
+    }
+
+    public static IdempotentResponse failed(String requestHash, ErrorCode errorCode) {
+        return new IdempotentResponse(requestHash, null, errorCode);
+    }
+}
@@ -0,0 +1,35 @@
+package com.example.account.dto;
+
+import com.example.account.type.TransactionResultType;
+import com.example.account.type.TransactionType;
+
+import java.time.LocalDateTime;
+
+/**
+ * LedgerEngine 이 메모리에서 처리한 거래 한 건, LedgerStore 가 Transaction 으로 저장한다.
+ * previousBalance 는 이 거래를 반영하기 전 메모리 잔액 (저장할 때 DB 잔액과 비교)
+ */
+public record LedgerRecord(
+        Long accountId,
+        Long userId,
+        String accountNumber,
+        TransactionType transactionType,
+        TransactionResultType transactionResultType,
+        Long amount,
+        Long previousBalance,
+        Long balanceSnapshot,
+        String transactionId,
+        LocalDateTime transactionAt
+) {
+    public TransactionDto toDto() {
+        return TransactionDto.builder()
+                .accountNumber(accountNumber)
+                .transactionType(transactionType)
+                .transactionResultType(transactionResultType)
+                .amount(amount)
+                .balanceSnapshot(balanceSnapshot)
+                .transactionId(transactionId)
+                .transactionAt(transactionAt)
+                .build();
+    }
+}
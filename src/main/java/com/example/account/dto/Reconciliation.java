@@ -0,0 +1,47 @@
+package com.example.account.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class Reconciliation {
+    /**
+     * transactionId 가 있으면 그 거래의 잔액 스냅샷이 앞 거래로 계산한 값과 다르고,
+     * 없으면 마지막 거래까지 계산한 잔액이 계좌 잔액과 다르다.
+     */
+    @Getter
+    @AllArgsConstructor
+    public static class Mismatch {
+        private String accountNumber;
+        private String transactionId;
+        private Long expectedBalance;
+        private Long actualBalance;
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class Result {
+        public static final Result EMPTY = new Result(0, 0, 0, List.of());
+
+        private long accountCount;
+        private long transactionCount;
+        private long mismatchCount;
+        private List<Mismatch> mismatches; // 최대 account.reconciliation.max-mismatches 건
+
+        public Result merge(Result other, int maxMismatches) {
+            List<Mismatch> merged = new ArrayList<>(mismatches);
+            for (Mismatch mismatch : other.mismatches) {
+                if (merged.size() >= maxMismatches) {
+                    break;
+                }
+                merged.add(mismatch);
+            }
+            return new Result(accountCount + other.accountCount,
+                    transactionCount + other.transactionCount,
+                    mismatchCount + other.mismatchCount,
+                    merged);
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package com.example.account.dto;
+
+import com.example.account.type.TransactionType;
+
+import java.time.LocalDateTime;
+
+/**
+ * 잔액 대조용 거래 한 건과 그 계좌의 현재 잔액 (projection)
+ */
+public record ReconciliationRow(
+        Long accountId,
+        String accountNumber,
+        Long accountBalance,
+        Long id,
+        String transactionId,
+        TransactionType transactionType,
+        Long amount,
+        Long balanceSnapshot,
+        LocalDateTime transactionAt
+) {
+}
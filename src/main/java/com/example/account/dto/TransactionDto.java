@@ -24,8 +24,13 @@ public class TransactionDto {
     private LocalDateTime transactionAt;
 
     public static TransactionDto fromEntity(Transaction transaction){
+        return fromEntity(transaction, transaction.getAccount().getAccountNumber());
+    }
+
+    // account 가 읽지 않은 proxy 일 때 계좌번호를 따로 받는다.
+    public static TransactionDto fromEntity(Transaction transaction, String accountNumber){
         return TransactionDto.builder()
-                .accountNumber(transaction.getAccount().getAccountNumber())
+                .accountNumber(accountNumber)
                 .transactionType(transaction.getTransactionType())
                 .transactionResultType(transaction.getTransactionResultType())
                 .amount(transaction.getAmount())
@@ -0,0 +1,73 @@
+package com.example.account.dto;
+
+import com.example.account.exception.AccountException;
+import com.example.account.type.ErrorCode;
+import com.example.account.type.TransactionResultType;
+import com.example.account.type.TransactionType;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * 계좌별 거래 내역 (최신순, (transaction_at, id) 기준 keyset 페이지)
+ */
+public class TransactionHistory {
+    /**
+     * 거래 한 건, Account 를 읽지 않도록 query 에서 바로 만든다.
+     */
+    @Getter
+    @AllArgsConstructor
+    public static class Item {
+        @JsonIgnore
+        private Long id; // 다음 페이지 커서용
+        private String transactionId;
+        private TransactionType transactionType;
+        private TransactionResultType transactionResultType;
+        private Long amount;
+        private Long balanceSnapshot;
+        private LocalDateTime transactedAt;
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class Response {
+        private String accountNumber;
+        private List<Item> transactions;
+        private String nextCursor; // 마지막 페이지면 null
+    }
+
+    /**
+     * 마지막으로 받은 거래의 (거래 시각, id). 클라이언트에는 불투명한 문자열로 준다.
+     */
+    public record Cursor(LocalDateTime transactionAt, Long id) {
+        // 첫 페이지는 모든 거래보다 뒤에 있는 커서에서 시작한다.
+        public static final Cursor FIRST = new Cursor(LocalDateTime.of(9999, 12, 31, 0, 0), Long.MAX_VALUE);
+
+        public static Cursor after(Item item) {
+            return new Cursor(item.getTransactedAt(), item.getId());
+        }
+
+        public static Cursor decode(String cursor) {
+            if (cursor == null || cursor.isEmpty()) {
+                return FIRST;
+            }
+            try {
+                String[] parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8)
+                        .split("\\|");
+                return new Cursor(LocalDateTime.parse(parts[0]), Long.parseLong(parts[1]));
+            } catch (RuntimeException e) {
+                throw new AccountException(ErrorCode.INVALID_REQUEST);
+            }
+        }
+
+        public String encode() {
+            return Base64.getUrlEncoder().withoutPadding()
+                    .encodeToString((transactionAt + "|" + id).getBytes(StandardCharsets.UTF_8));
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.account.repository;
+
+import com.example.account.domain.AccountBucket;
+import com.example.account.dto.AccountBalance;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface AccountBucketRepository extends JpaRepository<AccountBucket, Long> {
+    /**
+     * bucket 하나에서 잔액이 충분할 때만 차감한다. (반영된 행 수 0 이면 잔액 부족)
+     */
+    @Modifying(flushAutomatically = true)
+    @Query("update AccountBucket b set b.balance = b.balance - :amount, b.updatedAt = local datetime"
+            + " where b.accountId = :accountId and b.bucketIndex = :bucketIndex and b.balance >= :amount")
+    int debit(@Param("accountId") Long accountId,
+              @Param("bucketIndex") int bucketIndex,
+              @Param("amount") Long amount);
+
+    @Modifying(flushAutomatically = true)
+    @Query("update AccountBucket b set b.balance = b.balance + :amount, b.updatedAt = local datetime"
+            + " where b.accountId = :accountId and b.bucketIndex = :bucketIndex")
+    int credit(@Param("accountId") Long accountId,
+               @Param("bucketIndex") int bucketIndex,
+               @Param("amount") Long amount);
+
+    /**
+     * 계좌의 bucket 행을 모두 잠근다. (값은 그대로) 반환값은 잠근 bucket 수
+     */
+    @Modifying(flushAutomatically = true)
+    @Query("update AccountBucket b set b.balance = b.balance where b.accountId = :accountId")
+    int lockAll(@Param("accountId") Long accountId);
+
+    /**
+     * total 을 bucket 에 고르게 나눈다. 나머지는 앞쪽 bucket 에 1 씩 더 준다.
+     */
+    @Modifying(flushAutomatically = true)
+    @Query("update AccountBucket b set b.balance = :share"
+            + " + case when b.bucketIndex < :remainder then 1 else 0 end, b.updatedAt = local datetime"
+            + " where b.accountId = :accountId")
+    int spread(@Param("accountId") Long accountId,
+               @Param("share") long share,
+               @Param("remainder") long remainder);
+
+    @Query("select coalesce(sum(b.balance), 0) from AccountBucket b where b.accountId = :accountId")
+    long sumBalance(@Param("accountId") Long accountId);
+
+    @Query("select new com.example.account.dto.AccountBalance(b.accountId, sum(b.balance))"
+            + " from AccountBucket b where b.accountId in :accountIds group by b.accountId")
+    List<AccountBalance> sumBalanceByAccountIds(@Param("accountIds") Collection<Long> accountIds);
+
+    @Modifying(flushAutomatically = true)
+    @Query("delete from AccountBucket b where b.accountId = :accountId")
+    int deleteByAccountId(@Param("accountId") Long accountId);
+}
@@ -2,19 +2,113 @@ package com.example.account.repository;
 
 import com.example.account.domain.Account;
 import com.example.account.domain.AccountUser;
+import com.example.account.dto.AccountBalance;
+import com.example.account.dto.AccountDetail;
+import com.example.account.dto.AccountDto;
+import com.example.account.dto.AccountSnapshot;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface AccountRepository extends JpaRepository<Account, Long> { //<레파지토리가 활용하게될 entity, pk 타입>
-    Optional<Account> findFirstByOrderByIdDesc();
+    // 분할 계좌는 bucket 합계를 같은 query 안에서 더한다.
+    String TOTAL_BALANCE = "case when a.bucketCount > 0"
+            + " then (select coalesce(sum(b.balance), 0L) from AccountBucket b where b.accountId = a.id)"
+            + " else a.balance end";
 
-    Integer countByAccountUser(AccountUser accountUser);
+    Optional<Account> findFirstByOrderByIdDesc();
 
     Optional<Account> findByAccountNumber(String AccountNumber);
 
     List<Account> findByAccountUser(AccountUser accountUser);
+
+    /**
+     * 사용자 확인과 계좌 목록을 query 한 번으로 읽는다.
+     * 사용자가 없으면 빈 목록, 계좌가 없는 사용자는 accountNumber 가 null 인 행 하나가 나온다.
+     */
+    @Query("select new com.example.account.dto.AccountDto(u.id, a.accountNumber, " + TOTAL_BALANCE
+            + ", a.registeredAt, a.unRegisteredAt)"
+            + " from AccountUser u left join Account a on a.accountUser = u"
+            + " where u.id = :userId order by a.id")
+    List<AccountDto> findDtosByUserId(@Param("userId") Long userId);
+
+    @Query("select new com.example.account.dto.AccountDetail(a.id, a.accountUser.id, a.accountNumber"
+            + ", a.accountStatus, " + TOTAL_BALANCE + ", a.registeredAt, a.unRegisteredAt)"
+            + " from Account a where a.id = :id")
+    Optional<AccountDetail> findDetailById(@Param("id") Long id);
+
+    /**
+     * 소유주, 상태, 잔액 조건을 만족할 때만 차감한다. 반영된 행 수(0 또는 1)를 돌려준다.
+     * version 도 올려서 entity 로 변경 중인 쪽이 충돌을 감지하게 한다.
+     */
+    @Modifying(flushAutomatically = true)
+    @Query("update Account a set a.balance = a.balance - :amount, a.version = a.version + 1"
+            + ", a.updatedAt = local datetime"
+            + " where a.accountNumber = :accountNumber and a.accountUser.id = :userId"
+            + " and a.accountStatus = com.example.account.type.AccountStatus.IN_USE and a.balance >= :amount")
+    int debit(@Param("accountNumber") String accountNumber,
+              @Param("userId") Long userId,
+              @Param("amount") Long amount);
+
+    /**
+     * LedgerEngine 이 메모리에서 계산한 잔액을 반영한다.
+     * DB 잔액이 engine 이 알던 값(expected)이고 분할되지 않은 계좌일 때만 바꾸며, 사용이 있으면 사용 중인 계좌여야 한다.
+     * 반영된 행 수(0 또는 1)를 돌려준다.
+     */
+    @Modifying(flushAutomatically = true)
+    @Query("update Account a set a.balance = :balance, a.version = a.version + 1, a.updatedAt = local datetime"
+            + " where a.id = :id and a.balance = :expected and a.bucketCount = 0"
+            + " and (:use = false or a.accountStatus = com.example.account.type.AccountStatus.IN_USE)")
+    int applyBalance(@Param("id") Long id,
+                     @Param("expected") Long expected,
+                     @Param("balance") Long balance,
+                     @Param("use") boolean use);
+
+    boolean existsByBucketCountGreaterThan(int bucketCount);
+
+    @Query("select max(a.id) from Account a")
+    Optional<Long> findMaxId();
+
+    @Query("select a.id from Account a where a.accountNumber = :accountNumber")
+    Optional<Long> findIdByAccountNumber(@Param("accountNumber") String accountNumber);
+
+    @Query("select a.bucketCount from Account a where a.accountNumber = :accountNumber")
+    Optional<Integer> findBucketCountByAccountNumber(@Param("accountNumber") String accountNumber);
+
+    // 잔액 분할/합치기 동안 계좌 행을 잠근다.
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select a from Account a where a.accountNumber = :accountNumber")
+    Optional<Account> findForUpdateByAccountNumber(@Param("accountNumber") String accountNumber);
+
+    @Query("select new com.example.account.dto.AccountBalance(a.id, a.balance)"
+            + " from Account a where a.accountNumber = :accountNumber")
+    Optional<AccountBalance> findBalanceByAccountNumber(@Param("accountNumber") String accountNumber);
+
+    @Query("select new com.example.account.dto.AccountSnapshot(a.id, a.accountNumber, a.accountUser.id"
+            + ", a.accountStatus, a.balance) from Account a where a.accountNumber = :accountNumber")
+    Optional<AccountSnapshot> findSnapshotByAccountNumber(@Param("accountNumber") String accountNumber);
+
+    // 실패 거래를 묶어서 저장할 때 계좌를 한 번에 읽는다. (잔액 스냅샷은 분할 계좌면 bucket 합계)
+    @Query("select new com.example.account.dto.AccountSnapshot(a.id, a.accountNumber, a.accountUser.id"
+            + ", a.accountStatus, " + TOTAL_BALANCE + ") from Account a where a.accountNumber in :accountNumbers")
+    List<AccountSnapshot> findSnapshotsByAccountNumbers(@Param("accountNumbers") Collection<String> accountNumbers);
+
+    // 트랜잭션 안에서 읽고, 다 쓰면 stream 을 닫아야 한다.
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("select new com.example.account.dto.AccountSnapshot(a.id, a.accountNumber, a.accountUser.id"
+            + ", a.accountStatus, a.balance) from Account a")
+    Stream<AccountSnapshot> streamSnapshots();
 }
@@ -2,9 +2,16 @@ package com.example.account.repository;
 
 import com.example.account.domain.AccountUser;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 @Repository
 public interface AccountUserRepository extends JpaRepository<AccountUser, Long> {
-
+    // 최대 개수 미만일 때만 증가, 갱신된 row 수(0 or 1)를 돌려준다.
+    @Modifying
+    @Query("update AccountUser u set u.accountCount = u.accountCount + 1 " +
+            "where u.id = :userId and u.accountCount < :maxCount")
+    int increaseAccountCount(@Param("userId") Long userId, @Param("maxCount") int maxCount);
 }
@@ -0,0 +1,15 @@
+package com.example.account.repository;
+
+import com.example.account.domain.ReconciliationCheckpoint;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface ReconciliationCheckpointRepository extends JpaRepository<ReconciliationCheckpoint, Long> {
+    List<ReconciliationCheckpoint> findByAccountIdBetween(Long fromAccountId, Long toAccountId);
+
+    Optional<ReconciliationCheckpoint> findByAccountId(Long accountId);
+}
@@ -1,12 +1,103 @@
 package com.example.account.repository;
 
+import com.example.account.aop.ReplicaRead;
 import com.example.account.domain.Transaction;
+import com.example.account.dto.LedgerEntry;
+import com.example.account.dto.ReconciliationRow;
+import com.example.account.dto.TransactionDto;
+import com.example.account.dto.TransactionHistory;
+import com.example.account.type.TransactionResultType;
+import com.example.account.type.TransactionType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface TransactionRepository extends JpaRepository<Transaction, Long> {
     Optional<Transaction> findByTransactionId(String transactionId);
+
+    // 대조 순서(거래 시각, id)로 마지막 거래
+    Optional<Transaction> findFirstByAccount_IdAndTransactionResultTypeOrderByTransactionAtDescIdDesc(
+            Long accountId, TransactionResultType transactionResultType);
+
+    /**
+     * 거래 조회 API 용, 계좌는 계좌번호만 join 해서 읽는다.
+     * replica 가 있으면 replica 에서 읽는다. (취소처럼 방금 만든 거래를 찾아야 하는 쪽은 findByTransactionId)
+     */
+    @ReplicaRead
+    @Query("select new com.example.account.dto.TransactionDto(a.accountNumber, t.transactionType"
+            + ", t.transactionResultType, t.amount, t.balanceSnapshot, t.transactionId, t.transactionAt)"
+            + " from Transaction t join t.account a where t.transactionId = :transactionId")
+    Optional<TransactionDto> findDtoByTransactionId(@Param("transactionId") String transactionId);
+
+    /**
+     * 커서 (transactionAt, id) 보다 앞선 거래를 최신순으로 조회 (keyset)
+     * (account_id, transaction_at desc, id desc) index 를 커서 위치부터 순서대로 읽으므로 페이지 깊이와 상관없이 일정하다.
+     * (H2 는 index 의 첫 컬럼부터 정렬 조건에 있어야 정렬 없이 index 순서를 쓰므로 account_id 도 정렬 조건에 둔다.)
+     * 조건이 null 이면 거르지 않는다.
+     * 계좌 id 는 계좌번호로 subquery 에서 찾으므로 query 한 번으로 끝난다. (상수로 한 번만 계산되어 index 조건으로 쓰인다.)
+     */
+    @Query("select new com.example.account.dto.TransactionHistory$Item(t.id, t.transactionId, t.transactionType"
+            + ", t.transactionResultType, t.amount, t.balanceSnapshot, t.transactionAt)"
+            + " from Transaction t"
+            + " where t.account.id = (select a.id from Account a where a.accountNumber = :accountNumber)"
+            + " and t.transactionAt <= :transactionAt"
+            + " and (t.transactionAt < :transactionAt or t.id < :id)"
+            + " and (:transactionType is null or t.transactionType = :transactionType)"
+            + " and (:resultType is null or t.transactionResultType = :resultType)"
+            + " order by t.account.id, t.transactionAt desc, t.id desc")
+    List<TransactionHistory.Item> findHistory(@Param("accountNumber") String accountNumber,
+                                              @Param("transactionAt") LocalDateTime transactionAt,
+                                              @Param("id") Long id,
+                                              @Param("transactionType") TransactionType transactionType,
+                                              @Param("resultType") TransactionResultType resultType,
+                                              Limit limit);
+
+    /**
+     * 전체 원장을 id 순서로 흘려 읽는다. (forward-only cursor, fetch size 만큼씩 가져온다.)
+     * projection 이라 persistence context 에 entity 가 쌓이지 않는다.
+     * 트랜잭션 안에서 읽고, 다 쓰면 stream 을 닫아야 한다.
+     */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("select new com.example.account.dto.LedgerEntry(t.transactionId, a.accountNumber, t.transactionType"
+            + ", t.transactionResultType, t.amount, t.balanceSnapshot, t.transactionAt)"
+            + " from Transaction t join t.account a order by t.id")
+    Stream<LedgerEntry> streamLedger();
+
+    /**
+     * 계좌 id 구간의 성공 거래를 계좌별로 거래 순서대로 읽는다. 대조 위치가 있으면 그 뒤의 거래만 읽는다.
+     * 계좌에서 출발해 (account_id, transaction_at) index 를 대조 위치부터 읽으므로 새 거래가 없는 계좌는 거의 비용이 없다.
+     * 계좌 잔액도 같은 query 로 읽어서 거래 목록과 같은 시점의 값을 비교한다.
+     * 분할 계좌는 bucket 마다 동시에 차감되어 스냅샷이 이어지지 않으므로 제외한다.
+     */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("select new com.example.account.dto.ReconciliationRow(a.id, a.accountNumber, a.balance"
+            + ", t.id, t.transactionId, t.transactionType, t.amount, t.balanceSnapshot, t.transactionAt)"
+            + " from Account a"
+            + " left join ReconciliationCheckpoint c on c.accountId = a.id"
+            + " join Transaction t on t.account = a"
+            + " and t.transactionAt >= coalesce(c.lastTransactionAt, cast('1970-01-01 00:00:00' as LocalDateTime))"
+            + " where a.id between :fromAccountId and :toAccountId and a.bucketCount = 0"
+            + " and t.transactionResultType = com.example.account.type.TransactionResultType.S"
+            + " and (c.id is null or t.transactionAt > c.lastTransactionAt"
+            + " or (t.transactionAt = c.lastTransactionAt and t.id > c.lastTransactionId))"
+            + " order by a.id, t.transactionAt, t.id")
+    Stream<ReconciliationRow> streamForReconciliation(@Param("fromAccountId") Long fromAccountId,
+                                                      @Param("toAccountId") Long toAccountId);
 }
@@ -0,0 +1,120 @@
+package com.example.account.service;
+
+import com.example.account.dto.AccountDto;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RTopic;
+import org.redisson.api.RedissonClient;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 사용자별 계좌 목록 near cache
+ * 계좌 생성/해지, 잔액 사용/취소가 커밋되면 redis pub/sub 으로 모든 노드에 무효화를 알린다.
+ * 메시지를 놓치는 경우에도 TTL 이 지나면 DB 에서 다시 읽는다.
+ * 알림은 요청 스레드(계좌 lock 안)에서 redis 응답을 기다리지 않도록 비동기로 보낸다.
+ */
+@Slf4j
+@Component
+public class AccountCache {
+    private static final String TOPIC = "ACCACHE:invalidate";
+    private static final int EPOCH_STRIPES = 4096;
+
+    private final Cache<Long, List<AccountDto>> cache;
+    private final RTopic topic;
+    private final ReplicaReadPolicy replicaReadPolicy;
+    // 조회 도중 그 사용자의 무효화가 일어났으면 읽어온 목록을 넣지 않기 위한 세대 번호
+    // 사용자 id 로 나눈 stripe 마다 두므로 다른 사용자의 변경은 (같은 stripe 가 아니면) 영향이 없다.
+    private final AtomicLongArray epochs = new AtomicLongArray(EPOCH_STRIPES);
+    private int listenerId;
+
+    public AccountCache(
+            RedissonClient redissonClient,
+            ReplicaReadPolicy replicaReadPolicy,
+            @Value("${account.cache.account.maximum-size:100000}") long maximumSize,
+            @Value("${account.cache.account.expire-after-write:1m}") Duration expireAfterWrite) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expireAfterWrite)
+                .build();
+        this.topic = redissonClient.getTopic(TOPIC);
+        this.replicaReadPolicy = replicaReadPolicy;
+    }
+
+    @PostConstruct
+    public void subscribe() {
+        listenerId = topic.addListener(Long.class, (channel, userId) -> invalidateLocal(userId));
+    }
+
+    @PreDestroy
+    public void unsubscribe() {
+        topic.removeListener(listenerId);
+    }
+
+    public Optional<List<AccountDto>> get(Long userId) {
+        return Optional.ofNullable(cache.getIfPresent(userId));
+    }
+
+    /**
+     * DB 조회를 시작하기 전에 받아두고 putIfUnchanged 에 넘긴다.
+     */
+    public long currentEpoch(Long userId) {
+        return epochs.get(getStripeIndex(userId));
+    }
+
+    public void putIfUnchanged(Long userId, long readEpoch, List<AccountDto> accounts) {
+        cache.put(userId, accounts);
+        // 넣는 사이에 무효화가 들어왔으면 오래된 목록일 수 있으므로 다시 지운다.
+        if (epochs.get(getStripeIndex(userId)) != readEpoch) {
+            cache.invalidate(userId);
+        }
+    }
+
+    // 롤백되면 바뀐 것이 없으므로 커밋 이후에만 무효화한다.
+    public void invalidateAfterCommit(Long userId) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            invalidate(userId);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                invalidate(userId);
+            }
+        });
+    }
+
+    private void invalidate(Long userId) {
+        invalidateLocal(userId);
+        try {
+            topic.publishAsync(userId).whenComplete((receivers, e) -> {
+                if (e != null) {
+                    log.error("Failed to publish account cache invalidation. userId : {}", userId, e);
+                }
+            });
+        } catch (Exception e) {
+            log.error("Failed to publish account cache invalidation. userId : {}", userId, e);
+        }
+    }
+
+    // 다른 노드의 변경도 여기로 들어오므로 replica 지연 동안 primary 에서 읽도록 같이 기록한다.
+    private void invalidateLocal(Long userId) {
+        replicaReadPolicy.recordChange(userId);
+        epochs.incrementAndGet(getStripeIndex(userId));
+        cache.invalidate(userId);
+    }
+
+    private static int getStripeIndex(Long userId) {
+        return (int) ((userId ^ (userId >>> 32)) & (EPOCH_STRIPES - 1));
+    }
+}
@@ -0,0 +1,152 @@
+package com.example.account.service;
+
+import com.example.account.type.ErrorCode;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.Method;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * lock 대기/보유 시간, 낙관적 모드의 충돌 건수, 서비스 메서드별 처리 시간과 결과(ErrorCode),
+ * 실패 거래 기록 queue 깊이와 처리 건수 집계
+ * meter 는 미리(메서드는 처음 호출될 때 한 번) 만들어 두고, 요청마다 tag 나 meter 를 새로 만들지 않는다.
+ */
+@Component
+public class AccountMetrics {
+    private static final String SUCCESS = "SUCCESS";
+    private static final String UNKNOWN_ERROR = "UNKNOWN_ERROR";
+
+    private final MeterRegistry meterRegistry;
+    private final Timer lockWaitAcquired;
+    private final Timer lockWaitFailed;
+    private final Timer lockHold;
+    private final Counter conflictRetried;
+    private final Counter conflictAborted;
+    private final Counter failureQueued;
+    private final Counter failureDirect;
+    private final Counter failureWritten;
+    private final Counter failureDiscarded;
+    private final Map<Method, MethodMeters> methodMeters = new ConcurrentHashMap<>();
+
+    public AccountMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        this.lockWaitAcquired = lockWaitTimer("acquired");
+        this.lockWaitFailed = lockWaitTimer("failed");
+        this.lockHold = Timer.builder("account.lock.hold")
+                .description("계좌 lock 을 잡고 있던 시간")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.conflictRetried = conflictCounter("retried");
+        this.conflictAborted = conflictCounter("aborted");
+        this.failureQueued = failureCounter("queued");
+        this.failureDirect = failureCounter("direct");
+        this.failureWritten = failureCounter("written");
+        this.failureDiscarded = failureCounter("discarded");
+    }
+
+    private Timer lockWaitTimer(String result) {
+        return Timer.builder("account.lock.wait")
+                .description("계좌 lock 을 얻기까지 기다린 시간")
+                .tag("result", result)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    private Counter conflictCounter(String result) {
+        return Counter.builder("account.balance.conflict")
+                .description("낙관적 모드에서 version 충돌로 다시 실행(retried)하거나 포기(aborted)한 건수")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    private Counter failureCounter(String result) {
+        return Counter.builder("account.failure.records")
+                .description("실패 거래 기록 건수 (queued : queue 에 넣음, direct : queue 가 가득 차서 요청 스레드에서 저장"
+                        + ", written : 저장함, discarded : 계좌가 없거나 저장하지 못해 버림)")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    public void registerFailureQueue(Collection<?> queue) {
+        Gauge.builder("account.failure.queue.depth", queue, Collection::size)
+                .description("저장을 기다리는 실패 거래 기록 수")
+                .register(meterRegistry);
+    }
+
+    public void recordLockWait(long nanos, boolean acquired) {
+        (acquired ? lockWaitAcquired : lockWaitFailed).record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordLockHold(long nanos) {
+        lockHold.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordConflict(boolean retried) {
+        (retried ? conflictRetried : conflictAborted).increment();
+    }
+
+    public void recordFailureEnqueued(boolean queued) {
+        (queued ? failureQueued : failureDirect).increment();
+    }
+
+    public void recordFailureWritten(int written, int discarded) {
+        failureWritten.increment(written);
+        failureDiscarded.increment(discarded);
+    }
+
+    /**
+     * @param errorCode 성공이면 null
+     * @param failed    AccountException 이 아닌 예외로 실패했으면 true
+     */
+    public void recordServiceCall(Method method, long nanos, ErrorCode errorCode, boolean failed) {
+        MethodMeters meters = methodMeters.get(method);
+        if (meters == null) {
+            meters = methodMeters.computeIfAbsent(method, MethodMeters::new);
+        }
+        meters.timer.record(nanos, TimeUnit.NANOSECONDS);
+        if (errorCode != null) {
+            meters.failures.get(errorCode).increment();
+        } else if (failed) {
+            meters.unknownFailure.increment();
+        } else {
+            meters.success.increment();
+        }
+    }
+
+    private final class MethodMeters {
+        private final Timer timer;
+        private final Counter success;
+        private final Counter unknownFailure;
+        private final Map<ErrorCode, Counter> failures = new EnumMap<>(ErrorCode.class);
+
+        private MethodMeters(Method method) {
+            String name = method.getDeclaringClass().getSimpleName() + "." + method.getName();
+            this.timer = Timer.builder("account.service.duration")
+                    .description("서비스 메서드 처리 시간 (트랜잭션 커밋 포함)")
+                    .tag("method", name)
+                    .publishPercentileHistogram()
+                    .register(meterRegistry);
+            this.success = outcomeCounter(name, SUCCESS);
+            this.unknownFailure = outcomeCounter(name, UNKNOWN_ERROR);
+            for (ErrorCode errorCode : ErrorCode.values()) {
+                failures.put(errorCode, outcomeCounter(name, errorCode.name()));
+            }
+        }
+
+        private Counter outcomeCounter(String method, String outcome) {
+            return Counter.builder("account.service.outcome")
+                    .description("서비스 메서드 결과 건수")
+                    .tag("method", method)
+                    .tag("outcome", outcome)
+                    .register(meterRegistry);
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.example.account.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 계좌번호 발급기 (hi/lo)
+ * DB 에서 블록 단위로 번호를 예약하고, 블록 안에서는 메모리에서 하나씩 나눠준다.
+ * 노드끼리 블록이 겹치지 않으므로 동시에 생성해도 번호가 충돌하지 않는다.
+ * 재시작하면 쓰지 못한 번호는 건너뛴다.
+ */
+@Slf4j
+@Component
+public class AccountNumberAllocator {
+    private final AccountNumberBlockService accountNumberBlockService;
+    private final int blockSize;
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private long next;
+    private long limit;
+
+    public AccountNumberAllocator(
+            AccountNumberBlockService accountNumberBlockService,
+            @Value("${account.number.block-size:100}") int blockSize) {
+        this.accountNumberBlockService = accountNumberBlockService;
+        this.blockSize = blockSize;
+    }
+
+    public String nextAccountNumber() {
+        lock.lock();
+        try {
+            if (next >= limit) {
+                next = reserveBlock();
+                limit = next + blockSize;
+                log.debug("Reserved account number block [{}, {})", next, limit);
+            }
+            return String.valueOf(next++);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private long reserveBlock() {
+        try {
+            return accountNumberBlockService.reserveBlock(blockSize);
+        } catch (DataIntegrityViolationException e) {
+            // 다른 노드가 카운터 row 를 먼저 만든 경우, 다시 읽어서 예약한다.
+            return accountNumberBlockService.reserveBlock(blockSize);
+        }
+    }
+}
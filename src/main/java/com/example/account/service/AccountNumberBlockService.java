@@ -0,0 +1,50 @@
+package com.example.account.service;
+
+import com.example.account.domain.AccountNumberSequence;
+import com.example.account.repository.AccountNumberSequenceRepository;
+import com.example.account.repository.AccountRepository;
+import jakarta.transaction.Transactional;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+/**
+ * 계좌번호 블록 예약
+ * 카운터 row 에 비관적 lock 을 걸고 size 만큼 전진시킨 뒤 바로 커밋한다.
+ * 계좌 생성 트랜잭션과 분리해서 row lock 을 짧게 잡는다.
+ */
+@Service
+@RequiredArgsConstructor
+public class AccountNumberBlockService {
+    static final String SEQUENCE_NAME = "ACCOUNT_NUMBER";
+    static final long FIRST_ACCOUNT_NUMBER = 1000000000L;
+
+    private final AccountNumberSequenceRepository accountNumberSequenceRepository;
+    private final AccountRepository accountRepository;
+
+    /**
+     * @return 예약한 블록의 첫 번호, [first, first + size) 를 이 노드가 사용한다.
+     */
+    @Transactional(Transactional.TxType.REQUIRES_NEW)
+    public long reserveBlock(int size) {
+        AccountNumberSequence sequence = accountNumberSequenceRepository.findForUpdate(SEQUENCE_NAME)
+                .orElseGet(this::initSequence);
+
+        long first = sequence.getNextValue();
+        sequence.setNextValue(first + size);
+        accountNumberSequenceRepository.save(sequence);
+
+        return first;
+    }
+
+    // 카운터가 없으면 기존 계좌의 마지막 번호 다음부터 시작한다.
+    private AccountNumberSequence initSequence() {
+        long nextValue = accountRepository.findFirstByOrderByIdDesc()
+                .map(account -> Long.parseLong(account.getAccountNumber()) + 1)
+                .orElse(FIRST_ACCOUNT_NUMBER);
+
+        return AccountNumberSequence.builder()
+                .name(SEQUENCE_NAME)
+                .nextValue(nextValue)
+                .build();
+    }
+}
@@ -1,7 +1,9 @@
 package com.example.account.service;
 
+import com.example.account.aop.ReplicaRead;
 import com.example.account.domain.Account;
 import com.example.account.domain.AccountUser;
+import com.example.account.dto.AccountDetail;
 import com.example.account.dto.AccountDto;
 import com.example.account.exception.AccountException;
 import com.example.account.repository.AccountRepository;
@@ -13,6 +15,7 @@ import org.springframework.stereotype.Service;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Objects;
+import java.util.Optional;
 import java.util.stream.Collectors;
 
 import static com.example.account.type.AccountStatus.IN_USE;
@@ -22,8 +25,15 @@ import static com.example.account.type.ErrorCode.*;
 @Service
 @RequiredArgsConstructor
 public class AccountService {
+    private static final int MAX_ACCOUNT_PER_USER = 10;
+
     private final AccountRepository accountRepository;
     private final AccountUserRepository accountUserRepository;
+    private final AccountNumberAllocator accountNumberAllocator;
+    private final AccountCache accountCache;
+    private final LedgerEngine ledgerEngine;
+    private final HotAccountService hotAccountService;
+    private final ReplicaReadPolicy replicaReadPolicy;
 
     /**
      * 사용자가 있는지 조회
@@ -36,9 +46,8 @@ public class AccountService {
     public AccountDto createAccount(Long userId, Long initialBalance){
         AccountUser accountUser = getAccountUser(userId);
         validateCreateAccount(accountUser);
-        String newAccountNumber = accountRepository.findFirstByOrderByIdDesc()
-                .map(account -> (Integer.parseInt(account.getAccountNumber()))+1+"")
-                .orElse("1000000000");
+        String newAccountNumber = accountNumberAllocator.nextAccountNumber();
+        accountCache.invalidateAfterCommit(userId);
 
         return AccountDto.fromEntity(
                 accountRepository.save(
@@ -57,18 +66,21 @@ public class AccountService {
                 .orElseThrow(() -> new AccountException(USER_NOT_FOUND));
     }
 
+    // 계좌 수 증가와 최대 개수 검사를 update 한 번으로 처리한다.
     private void validateCreateAccount(AccountUser accountUser) {
-        if(accountRepository.countByAccountUser(accountUser) == 10){
+        if(accountUserRepository.increaseAccountCount(accountUser.getId(), MAX_ACCOUNT_PER_USER) == 0){
             throw new AccountException(MAX_ACCOUNT_PER_USER_10);
         }
     }
 
-    @Transactional
-    public Account getAccount(Long id){
+    // 응답에 필요한 컬럼만 읽는다. (사용자는 id 만, 분할 계좌의 잔액은 bucket 합계)
+    @ReplicaRead
+    public AccountDetail getAccount(Long id){
         if(id<0){
             throw new RuntimeException("Minus");
         }
-        return accountRepository.findById(id).get(); // Optional<T>에서 값을 꺼내는 것은 일반적이지 않아서 경고뜨긴함
+        return accountRepository.findDetailById(id)
+                .orElseThrow(() -> new AccountException(ACCOUNT_NOT_FOUND));
     }
 
 
@@ -79,36 +91,59 @@ public class AccountService {
         Account account = accountRepository.findByAccountNumber(accountNumber)
                 .orElseThrow(()-> new AccountException(ACCOUNT_NOT_FOUND));
 
-        validateDeleteAccount(accountUser, account);
+        validateDeleteAccount(accountUser, account,
+                account.isSplit() ? hotAccountService.getBalance(account) : account.getBalance());
 
         account.setAccountStatus(UNREGISTERED);
         account.setUnRegisteredAt(LocalDateTime.now());
 
         accountRepository.save(account);
+        accountCache.invalidateAfterCommit(userId);
+        ledgerEngine.evictAfterCommit(accountNumber); // engine 메모리의 계좌 상태도 다시 읽게 한다.
 
         return AccountDto.fromEntity(account);
     }
 
-    private static void validateDeleteAccount(AccountUser accountUser, Account account) throws AccountException {
+    private static void validateDeleteAccount(AccountUser accountUser, Account account, Long balance) throws AccountException {
         if(!Objects.equals(accountUser.getId(), account.getAccountUser().getId())){
             throw new AccountException(USER_ACCOUNT_UN_MATCH);
         }
         if(account.getAccountStatus() == UNREGISTERED){
             throw new AccountException(ACCOUNT_ALREADY_UNREGISTERED);
         }
-        if(account.getBalance() > 0){
+        if(balance > 0){
             throw new AccountException(BALANCE_NOT_EMPTY);
         }
     }
 
-    @Transactional
+    /**
+     * near cache 에 있으면 DB 를 거치지 않는다.
+     * 변경이 커밋되면 무효화되므로 차감 이후의 잔액이 보인다.
+     * replica 에서 읽되, 방금 계좌가 바뀐 사용자는 replica 가 따라오기 전일 수 있으므로 primary 에서 읽는다.
+     */
+    @ReplicaRead
     public List<AccountDto> getAccountByUserId(Long userId) {
-        AccountUser accountUser = getAccountUser(userId);
+        Optional<List<AccountDto>> cached = accountCache.get(userId);
+        if (cached.isPresent()) {
+            return cached.get();
+        }
+        long readEpoch = accountCache.currentEpoch(userId);
 
-        List<Account> accounts = accountRepository.findByAccountUser(accountUser);
+        List<AccountDto> accountDtos = replicaReadPolicy.isRecentlyChanged(userId)
+                ? replicaReadPolicy.readFromPrimary(() -> loadAccounts(userId))
+                : loadAccounts(userId);
+        accountCache.putIfUnchanged(userId, readEpoch, accountDtos);
+        return accountDtos;
+    }
 
-        return accounts.stream()
-                .map(AccountDto::fromEntity) // account -> AccountDto.fromEntity(account)
-                .collect(Collectors.toList());
+    // 사용자 확인, 계좌 목록, 분할 계좌의 bucket 합계를 query 한 번으로 읽는다.
+    private List<AccountDto> loadAccounts(Long userId) {
+        List<AccountDto> rows = accountRepository.findDtosByUserId(userId);
+        if (rows.isEmpty()) {
+            throw new AccountException(USER_NOT_FOUND);
+        }
+        return rows.stream()
+                .filter(row -> row.getAccountNumber() != null) // 계좌가 없는 사용자
+                .collect(Collectors.toUnmodifiableList());
     }
 }
@@ -0,0 +1,39 @@
+package com.example.account.service;
+
+import com.example.account.type.BalanceUpdateMode;
+import lombok.Getter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * 잔액 변경을 계좌 lock 으로 보호할지, lock 없이 낙관적으로 처리할지 정한다.
+ * 낙관적 모드에서는 version 충돌이 나면 maxRetries 번까지 처음부터 다시 실행한다.
+ * 조건부 모드에서는 잔액 사용을 entity 를 읽지 않고 UPDATE 한 번으로 처리한다.
+ * engine 모드에서는 사용/취소를 LedgerEngine 이 처리한다.
+ */
+@Getter
+@Component
+public class BalanceUpdatePolicy {
+    private final BalanceUpdateMode mode;
+    private final int maxRetries;
+
+    public BalanceUpdatePolicy(
+            @Value("${account.balance.update-mode:lock}") BalanceUpdateMode mode,
+            @Value("${account.balance.optimistic.max-retries:3}") int maxRetries
+    ) {
+        this.mode = mode;
+        this.maxRetries = maxRetries;
+    }
+
+    public boolean isLockFree() {
+        return mode != BalanceUpdateMode.LOCK;
+    }
+
+    public boolean isConditionalDebit() {
+        return mode == BalanceUpdateMode.CONDITIONAL;
+    }
+
+    public boolean isEngine() {
+        return mode == BalanceUpdateMode.ENGINE;
+    }
+}
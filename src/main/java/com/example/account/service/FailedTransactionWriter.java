@@ -0,0 +1,152 @@
+package com.example.account.service;
+
+import com.example.account.dto.FailedTransaction;
+import com.example.account.type.TransactionType;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 실패 거래 기록 writer
+ * 사용/취소가 실패하면 계좌 lock 을 잡은 채로 계좌를 다시 읽고 한 건씩 insert 하지 않고 bounded queue 에 넣는다.
+ * writer 스레드가 max-batch 건씩 꺼내서 TransactionService 로 한 번에 저장한다.
+ * queue 가 가득 차면 offer-timeout 만큼 기다리고, 그래도 자리가 없으면 요청 스레드에서 바로 저장한다.
+ * (실패가 몰리면 요청이 느려지는 것으로 버틴다.)
+ * 종료할 때는 queue 에 남은 기록을 모두 저장한 뒤 멈춘다.
+ * 다만 queue 는 메모리에만 있으므로 정상 종료가 아닌 경우(프로세스 crash, kill -9, OOM)에는
+ * 아직 저장하지 않은 기록이 최대 queue-size 건까지 사라진다. 실패 거래는 잔액을 바꾸지 않는 이력이라
+ * 이 유실을 감수하고 요청 스레드의 insert 를 줄인 것이다. 유실을 허용할 수 없으면 queue-size 를 작게 줄이거나
+ * (대부분 요청 스레드에서 바로 저장) 기록 전에 durable 저장소에 먼저 남기는 방식으로 바꿔야 한다.
+ */
+@Slf4j
+@Component
+public class FailedTransactionWriter {
+    private static final long POLL_MILLIS = 100L;
+    private static final long STOP_WAIT_SECONDS = 10L;
+
+    private final TransactionService transactionService;
+    private final TransactionIdGenerator transactionIdGenerator;
+    private final AccountMetrics accountMetrics;
+    private final BlockingQueue<FailedTransaction> queue;
+    private final int maxBatch;
+    private final long offerTimeoutNanos;
+    private volatile boolean running;
+    private Thread writer;
+
+    public FailedTransactionWriter(
+            TransactionService transactionService,
+            TransactionIdGenerator transactionIdGenerator,
+            AccountMetrics accountMetrics,
+            @Value("${account.failure.queue-size:10000}") int queueSize,
+            @Value("${account.failure.max-batch:500}") int maxBatch,
+            @Value("${account.failure.offer-timeout:50ms}") Duration offerTimeout
+    ) {
+        this.transactionService = transactionService;
+        this.transactionIdGenerator = transactionIdGenerator;
+        this.accountMetrics = accountMetrics;
+        this.queue = new ArrayBlockingQueue<>(queueSize);
+        this.maxBatch = maxBatch;
+        this.offerTimeoutNanos = offerTimeout.toNanos();
+        accountMetrics.registerFailureQueue(queue);
+    }
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        writer = Thread.ofPlatform().name("failure-writer").start(this::run);
+    }
+
+    /**
+     * 새 기록은 요청 스레드에서 저장하게 하고, 이미 받은 기록은 저장한 뒤 멈춘다.
+     */
+    @PreDestroy
+    public void stop() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        try {
+            writer.join(TimeUnit.SECONDS.toMillis(STOP_WAIT_SECONDS));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        // writer 가 시간 안에 끝내지 못했거나, 멈추는 사이에 들어온 기록
+        List<FailedTransaction> rest = new ArrayList<>();
+        queue.drainTo(rest);
+        if (!rest.isEmpty()) {
+            write(rest);
+        }
+        log.info("Failed transaction writer stopped. drained : {}", rest.size());
+    }
+
+    public void record(TransactionType transactionType, String accountNumber, Long amount) {
+        FailedTransaction failedTransaction = new FailedTransaction(transactionType, accountNumber, amount,
+                transactionIdGenerator.generate(), LocalDateTime.now());
+        if (running && offer(failedTransaction)) {
+            accountMetrics.recordFailureEnqueued(true);
+            // 넣는 사이에 멈췄고 남은 기록을 이미 비웠으면 직접 저장한다. (다른 쪽이 꺼냈으면 remove 가 false)
+            if (!running && queue.remove(failedTransaction)) {
+                write(List.of(failedTransaction));
+            }
+            return;
+        }
+        accountMetrics.recordFailureEnqueued(false);
+        write(List.of(failedTransaction));
+    }
+
+    private boolean offer(FailedTransaction failedTransaction) {
+        try {
+            return queue.offer(failedTransaction, offerTimeoutNanos, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private void run() {
+        List<FailedTransaction> batch = new ArrayList<>(maxBatch);
+        while (running || !queue.isEmpty()) {
+            FailedTransaction first;
+            try {
+                first = queue.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            if (first == null) {
+                continue;
+            }
+            batch.add(first);
+            queue.drainTo(batch, maxBatch - 1);
+            write(batch);
+            batch.clear();
+        }
+    }
+
+    // 묶음 저장이 실패하면 한 건 때문에 전부 잃지 않도록 한 건씩 다시 저장한다.
+    private void write(List<FailedTransaction> batch) {
+        try {
+            int written = transactionService.saveFailedTransactions(batch);
+            accountMetrics.recordFailureWritten(written, batch.size() - written);
+        } catch (RuntimeException e) {
+            if (batch.size() == 1) {
+                log.error("Failed to save failed transaction. accountNumber : {}",
+                        batch.get(0).accountNumber(), e);
+                accountMetrics.recordFailureWritten(0, 1);
+                return;
+            }
+            log.warn("Failed to save failed transaction batch, retrying one by one. size : {}", batch.size(), e);
+            batch.forEach(failedTransaction -> write(List.of(failedTransaction)));
+        }
+    }
+}
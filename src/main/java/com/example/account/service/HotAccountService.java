@@ -0,0 +1,228 @@
+package com.example.account.service;
+
+import com.example.account.domain.Account;
+import com.example.account.domain.AccountBucket;
+import com.example.account.domain.ReconciliationCheckpoint;
+import com.example.account.domain.Transaction;
+import com.example.account.dto.AccountBalance;
+import com.example.account.dto.AccountDto;
+import com.example.account.exception.AccountException;
+import com.example.account.repository.AccountBucketRepository;
+import com.example.account.repository.AccountRepository;
+import com.example.account.repository.ReconciliationCheckpointRepository;
+import com.example.account.repository.TransactionRepository;
+import com.example.account.type.AccountStatus;
+import com.example.account.type.ErrorCode;
+import com.example.account.type.TransactionResultType;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.transaction.Transactional;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.Collectors;
+
+/**
+ * 잔액 분할 계좌 (hot account)
+ * 사용이 몰리는 계좌의 잔액을 N 개의 bucket 행으로 나눈다.
+ * 분할된 계좌는 계좌 lock 을 잡지 않고, 사용은 임의의 bucket 부터 조건부 UPDATE 로 잔액이 충분한 bucket 하나만 차감한다.
+ * 각 bucket 행의 DB lock 이 bucket 의 lock 이 되므로, 한 계좌의 차감이 bucket 수만큼 동시에 진행된다.
+ * 어느 bucket 도 혼자서는 모자라면 모든 bucket 을 잠그고 합계에서 차감한 뒤 고르게 다시 나눈다. (rebalance)
+ * 분할된 동안 계좌 행의 잔액은 0 이고, 계좌 잔액은 bucket 잔액의 합이다.
+ * engine 모드는 잔액을 메모리에 두므로 분할할 수 없다.
+ * 분할된 동안의 거래 스냅샷은 이어지지 않으므로, 분할을 바꿀 때 잔액 대조 위치를 그 시점으로 옮긴다.
+ */
+@Slf4j
+@Service
+public class HotAccountService {
+    private final AccountRepository accountRepository;
+    private final AccountBucketRepository accountBucketRepository;
+    private final TransactionRepository transactionRepository;
+    private final ReconciliationCheckpointRepository reconciliationCheckpointRepository;
+    private final AccountCache accountCache;
+    private final BalanceUpdatePolicy balanceUpdatePolicy;
+    private final int maxBuckets;
+    // 계좌번호 -> 분할 여부, lock 을 잡을지 정하는 데만 쓴다. (다른 노드의 변경은 TTL 뒤에 보인다)
+    private final Cache<String, Boolean> hotAccounts;
+
+    public HotAccountService(
+            AccountRepository accountRepository,
+            AccountBucketRepository accountBucketRepository,
+            TransactionRepository transactionRepository,
+            ReconciliationCheckpointRepository reconciliationCheckpointRepository,
+            AccountCache accountCache,
+            BalanceUpdatePolicy balanceUpdatePolicy,
+            @Value("${account.hot.max-buckets:64}") int maxBuckets,
+            @Value("${account.hot.cache-ttl:5s}") Duration cacheTtl
+    ) {
+        this.accountRepository = accountRepository;
+        this.accountBucketRepository = accountBucketRepository;
+        this.transactionRepository = transactionRepository;
+        this.reconciliationCheckpointRepository = reconciliationCheckpointRepository;
+        this.accountCache = accountCache;
+        this.balanceUpdatePolicy = balanceUpdatePolicy;
+        this.maxBuckets = maxBuckets;
+        this.hotAccounts = Caffeine.newBuilder()
+                .maximumSize(100_000)
+                .expireAfterWrite(cacheTtl)
+                .build();
+    }
+
+    public boolean isHot(String accountNumber) {
+        return hotAccounts.get(accountNumber, key -> accountRepository.findBucketCountByAccountNumber(key)
+                .map(bucketCount -> bucketCount > 0)
+                .orElse(false));
+    }
+
+    public void evict(String accountNumber) {
+        hotAccounts.invalidate(accountNumber);
+    }
+
+    /**
+     * 계좌 잔액을 bucketCount 개로 (다시) 나눈다. 0 이면 bucket 을 합쳐서 계좌 행으로 되돌린다.
+     * 계좌 행과 모든 bucket 행을 잠그므로 진행 중인 사용이 끝난 뒤에 바뀐다.
+     */
+    @Transactional
+    public AccountDto changeBuckets(String accountNumber, int bucketCount) {
+        if (bucketCount < 0 || bucketCount > maxBuckets
+                || (bucketCount > 0 && balanceUpdatePolicy.isEngine())) {
+            throw new AccountException(ErrorCode.INVALID_REQUEST);
+        }
+        Account account = accountRepository.findForUpdateByAccountNumber(accountNumber)
+                .orElseThrow(() -> new AccountException(ErrorCode.ACCOUNT_NOT_FOUND));
+        if (account.getAccountStatus() != AccountStatus.IN_USE) {
+            throw new AccountException(ErrorCode.ACCOUNT_ALREADY_UNREGISTERED);
+        }
+
+        long total = account.getBalance();
+        if (account.isSplit()) {
+            accountBucketRepository.lockAll(account.getId());
+            total += accountBucketRepository.sumBalance(account.getId());
+            accountBucketRepository.deleteByAccountId(account.getId());
+        }
+        if (bucketCount > 0) {
+            List<AccountBucket> buckets = new ArrayList<>(bucketCount);
+            for (int i = 0; i < bucketCount; i++) {
+                buckets.add(AccountBucket.builder()
+                        .accountId(account.getId())
+                        .bucketIndex(i)
+                        .balance(total / bucketCount + (i < total % bucketCount ? 1 : 0))
+                        .build());
+            }
+            accountBucketRepository.saveAll(buckets);
+            account.setBalance(0L);
+        } else {
+            account.setBalance(total);
+        }
+        account.setBucketCount(bucketCount);
+        moveCheckpoint(account.getId(), total);
+        accountCache.invalidateAfterCommit(account.getAccountUser().getId());
+        evictAfterCommit(accountNumber);
+        log.info("Account buckets changed. accountNumber : {}, bucketCount : {}", accountNumber, bucketCount);
+
+        return AccountDto.fromEntity(account, total);
+    }
+
+    /**
+     * 대조 위치를 지금까지의 마지막 성공 거래와 현재 잔액으로 옮긴다.
+     * 분할을 해제하면 대조가 다시 이 계좌를 읽는데, 분할 전 위치에서 이어가면 분할 동안의 스냅샷 때문에 거짓 불일치가 나온다.
+     * 거래가 없으면 대조 위치를 지워서 첫 거래부터 대조하게 한다.
+     */
+    private void moveCheckpoint(Long accountId, long balance) {
+        Optional<Transaction> last = transactionRepository
+                .findFirstByAccount_IdAndTransactionResultTypeOrderByTransactionAtDescIdDesc(
+                        accountId, TransactionResultType.S);
+        Optional<ReconciliationCheckpoint> checkpoint = reconciliationCheckpointRepository.findByAccountId(accountId);
+        if (last.isEmpty()) {
+            checkpoint.ifPresent(reconciliationCheckpointRepository::delete);
+            return;
+        }
+        ReconciliationCheckpoint moved = checkpoint.orElseGet(() -> ReconciliationCheckpoint.builder()
+                .accountId(accountId)
+                .build());
+        moved.setLastTransactionAt(last.get().getTransactionAt());
+        moved.setLastTransactionId(last.get().getId());
+        moved.setLedgerBalance(balance);
+        reconciliationCheckpointRepository.save(moved);
+    }
+
+    /**
+     * 분할 계좌에서 차감하고 차감 후 계좌 잔액(bucket 합계)을 돌려준다.
+     * 호출하는 쪽의 트랜잭션 안에서 실행되고, 차감한 bucket 행은 커밋까지 잠겨 있다.
+     */
+    public long debit(Account account, Long amount) {
+        int bucketCount = account.getBucketCount();
+        int start = ThreadLocalRandom.current().nextInt(bucketCount);
+        for (int i = 0; i < bucketCount; i++) {
+            if (accountBucketRepository.debit(account.getId(), (start + i) % bucketCount, amount) == 1) {
+                return accountBucketRepository.sumBalance(account.getId());
+            }
+        }
+        return rebalanceAndDebit(account, amount);
+    }
+
+    private long rebalanceAndDebit(Account account, Long amount) {
+        if (accountBucketRepository.lockAll(account.getId()) != account.getBucketCount()) {
+            // 읽은 뒤에 분할이 바뀐 경우, 다시 요청하면 바뀐 상태로 처리한다.
+            throw new AccountException(ErrorCode.ACCOUNT_TRANSACTION_LOCK);
+        }
+        long total = accountBucketRepository.sumBalance(account.getId());
+        if (total < amount) {
+            throw new AccountException(ErrorCode.AMOUNT_EXCEED_BALANCE);
+        }
+        long remaining = total - amount;
+        accountBucketRepository.spread(account.getId(),
+                remaining / account.getBucketCount(), remaining % account.getBucketCount());
+        log.debug("Account buckets rebalanced. accountNumber : {}", account.getAccountNumber());
+        return remaining;
+    }
+
+    /**
+     * 분할 계좌에 더한다. (사용 취소) 잔액 확인이 필요 없으므로 아무 bucket 에나 더한다.
+     */
+    public long credit(Account account, Long amount) {
+        if (amount < 0) {
+            throw new AccountException(ErrorCode.INVALID_REQUEST);
+        }
+        int bucketIndex = ThreadLocalRandom.current().nextInt(account.getBucketCount());
+        if (accountBucketRepository.credit(account.getId(), bucketIndex, amount) == 0) {
+            throw new AccountException(ErrorCode.ACCOUNT_TRANSACTION_LOCK);
+        }
+        return accountBucketRepository.sumBalance(account.getId());
+    }
+
+    public long getBalance(Account account) {
+        return account.getBalance() + accountBucketRepository.sumBalance(account.getId());
+    }
+
+    /**
+     * 분할 계좌의 잔액을 한 번에 읽는다. (계좌 id -> bucket 합계)
+     */
+    public Map<Long, Long> getBalances(Collection<Long> accountIds) {
+        return accountBucketRepository.sumBalanceByAccountIds(accountIds).stream()
+                .collect(Collectors.toMap(AccountBalance::accountId, AccountBalance::balance));
+    }
+
+    private void evictAfterCommit(String accountNumber) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            evict(accountNumber);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                evict(accountNumber);
+            }
+        });
+    }
+}
@@ -0,0 +1,147 @@
+package com.example.account.service;
+
+import com.example.account.aop.AccountLockIdInterface;
+import com.example.account.dto.IdempotentResponse;
+import com.example.account.exception.AccountException;
+import com.example.account.type.ErrorCode;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+
+/**
+ * Idempotency-Key 헤더로 같은 요청의 재실행을 막는다.
+ * 성공한 응답을 저장하고, 아무것도 바뀌지 않은 실패(AccountException)면 key 를 풀어서 다시 시도할 수 있게 한다.
+ * 결과를 모르는 실패는 재실행하면 두 번 처리될 수 있으므로 key 를 풀지 않는다.
+ * TRANSACTION_RESULT_UNKNOWN 은 오류 코드를 응답처럼 저장해서 재요청에도 같은 오류로 응답하고(거래 조회로 확인),
+ * 그 밖의 예외는 처리 중 표시를 pending-ttl 이 지날 때까지 둔다.
+ * 같은 key 가 처리 중이면 기다리지 않고 IDEMPOTENT_REQUEST_IN_PROGRESS 로 응답한다.
+ * key 는 계좌번호와 묶어서 저장하므로 다른 계좌의 key 와 겹치지 않고,
+ * 동기/비동기 엔드포인트로 번갈아 재시도해도 같은 요청으로 본다.
+ * 같은 key 로 본문이 다른 요청이 오면 IDEMPOTENCY_KEY_REUSED 로 거절한다.
+ */
+@Slf4j
+@Aspect
+@Component
+@Order(1) // LockAopAspect 보다 바깥에서 실행
+@RequiredArgsConstructor
+public class IdempotencyAspect {
+    public static final String HEADER = "Idempotency-Key";
+    private static final int MAX_KEY_LENGTH = 64;
+
+    private final IdempotencyStore idempotencyStore;
+    private final ObjectMapper objectMapper;
+
+    @Around("@annotation(com.example.account.aop.Idempotent) && args(request)")
+    public Object aroundMethod(
+            ProceedingJoinPoint pjp,
+            AccountLockIdInterface request
+    ) throws Throwable {
+        String idempotencyKey = getIdempotencyKey();
+        if (idempotencyKey == null) {
+            return pjp.proceed();
+        }
+        String key = request.getAccountNumber() + ":" + idempotencyKey;
+        String requestHash = hash(request);
+
+        Optional<Object> stored = idempotencyStore.reserve(key);
+        if (stored.isPresent()) {
+            if (IdempotencyStore.PENDING.equals(stored.get())) {
+                throw new AccountException(ErrorCode.IDEMPOTENT_REQUEST_IN_PROGRESS);
+            }
+            IdempotentResponse response = (IdempotentResponse) stored.get();
+            if (!requestHash.equals(response.requestHash())) {
+                log.warn("Idempotency key reused with a different request. key : {}", key);
+                throw new AccountException(ErrorCode.IDEMPOTENCY_KEY_REUSED);
+            }
+            if (response.errorCode() != null) {
+                throw new AccountException(response.errorCode());
+            }
+            log.debug("Replay stored response. key : {}", key);
+            return isAsync(pjp)
+                    ? CompletableFuture.completedFuture(response.response())
+                    : response.response();
+        }
+
+        Object result;
+        try {
+            result = pjp.proceed();
+        } catch (Throwable e) {
+            onFailure(key, requestHash, e);
+            throw e;
+        }
+        if (result instanceof CompletionStage<?> stage) {
+            return stage.toCompletableFuture().whenComplete((value, error) -> {
+                if (error != null) {
+                    onFailure(key, requestHash,
+                            error instanceof CompletionException && error.getCause() != null ? error.getCause() : error);
+                } else {
+                    idempotencyStore.complete(key, new IdempotentResponse(requestHash, value));
+                }
+            });
+        }
+        idempotencyStore.complete(key, new IdempotentResponse(requestHash, result));
+        return result;
+    }
+
+    private void onFailure(String key, String requestHash, Throwable error) {
+        if (!(error instanceof AccountException accountException)) {
+            log.warn("Keep idempotency key pending after unexpected failure. key : {}", key);
+            return;
+        }
+        if (accountException.getErrorCode() == ErrorCode.TRANSACTION_RESULT_UNKNOWN) {
+            idempotencyStore.complete(key, IdempotentResponse.failed(requestHash, accountException.getErrorCode()));
+            return;
+        }
+        idempotencyStore.release(key);
+    }
+
+    private static boolean isAsync(ProceedingJoinPoint pjp) {
+        return pjp.getSignature() instanceof MethodSignature signature
+                && CompletionStage.class.isAssignableFrom(signature.getReturnType());
+    }
+
+    // 요청 타입과 본문(JSON)의 SHA-256
+    String hash(AccountLockIdInterface request) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(request.getClass().getName().getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest.digest(objectMapper.writeValueAsBytes(request)));
+        } catch (NoSuchAlgorithmException | JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String getIdempotencyKey() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (!(attributes instanceof ServletRequestAttributes servletAttributes)) {
+            return null;
+        }
+        String idempotencyKey = servletAttributes.getRequest().getHeader(HEADER);
+        if (idempotencyKey == null || idempotencyKey.isBlank()) {
+            return null;
+        }
+        if (idempotencyKey.length() > MAX_KEY_LENGTH) {
+            throw new AccountException(ErrorCode.INVALID_REQUEST);
+        }
+        return idempotencyKey;
+    }
+}
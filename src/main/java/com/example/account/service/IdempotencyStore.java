@@ -0,0 +1,23 @@
+package com.example.account.service;
+
+import java.util.Optional;
+
+/**
+ * Idempotency-Key 별 응답 저장소
+ * 처음 온 요청이 key 를 처리 중(PENDING)으로 잡고, 끝나면 응답으로 바꿔 둔다.
+ * 처리 중 표시는 짧게(pending-ttl), 응답은 길게(ttl) 보관한다.
+ */
+public interface IdempotencyStore {
+    Object PENDING = "PENDING";
+
+    /**
+     * 처음 보는 key 면 처리 중으로 표시하고 empty,
+     * 이미 있으면 저장된 응답(처리 중이면 PENDING)을 돌려준다.
+     */
+    Optional<Object> reserve(String key);
+
+    void complete(String key, Object response);
+
+    // 실패한 요청은 다시 시도할 수 있도록 처리 중 표시를 지운다.
+    void release(String key);
+}
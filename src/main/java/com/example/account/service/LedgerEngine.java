@@ -0,0 +1,555 @@
+package com.example.account.service;
+
+import com.example.account.domain.Transaction;
+import com.example.account.dto.AccountSnapshot;
+import com.example.account.dto.LedgerRecord;
+import com.example.account.dto.TransactionDto;
+import com.example.account.dto.UseBalance;
+import com.example.account.dto.UseBalanceBatch;
+import com.example.account.exception.AccountException;
+import com.example.account.repository.AccountUserRepository;
+import com.example.account.repository.TransactionRepository;
+import com.example.account.type.AccountStatus;
+import com.example.account.type.ErrorCode;
+import com.example.account.type.TransactionResultType;
+import com.example.account.type.TransactionType;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 메모리 잔액 엔진 (account.balance.update-mode=engine)
+ * 계좌 잔액을 계좌번호 hash 로 나눈 shard 에 두고, shard 마다 writer 스레드 하나가
+ * ring buffer 에서 사용/취소 명령을 꺼내 lock 없이 검증하고 반영한다.
+ * 반영한 거래는 shard 의 persister 스레드가 묶어서 저장하고, 저장이 커밋된 뒤에 응답한다. (group commit)
+ * 저장이 실패하면 그 뒤로 메모리에만 반영된 계좌를 버리고 DB 에서 다시 읽는다.
+ * 잔액을 노드 메모리에 두므로 계좌를 한 노드에서만 처리하는 배포에서 사용한다.
+ * 응답은 response-timeout 까지만 기다린다. writer 가 아직 꺼내지 않은 명령은 버리고 ACCOUNT_TRANSACTION_LOCK 으로,
+ * 이미 반영해서 persister 로 넘긴 명령은 나중에 커밋될 수 있으므로 TRANSACTION_RESULT_UNKNOWN 으로 실패한다.
+ */
+@Slf4j
+@Component
+public class LedgerEngine {
+    private static final long POLL_MILLIS = 100L;
+    private static final long STOP_WAIT_SECONDS = 10L;
+
+    private final LedgerStore ledgerStore;
+    private final TransactionRepository transactionRepository;
+    private final AccountUserRepository accountUserRepository;
+    private final TransactionIdGenerator transactionIdGenerator;
+    private final boolean enabled;
+    private final int ringSize;
+    private final int maxBatch;
+    private final long responseTimeoutMillis;
+    private final Shard[] shards;
+    private final int mask;
+    private volatile boolean running;
+
+    public LedgerEngine(
+            LedgerStore ledgerStore,
+            TransactionRepository transactionRepository,
+            AccountUserRepository accountUserRepository,
+            TransactionIdGenerator transactionIdGenerator,
+            BalanceUpdatePolicy balanceUpdatePolicy,
+            @Value("${account.engine.shards:4}") int shardCount,
+            @Value("${account.engine.ring-size:1024}") int ringSize,
+            @Value("${account.engine.max-batch:256}") int maxBatch,
+            @Value("${account.engine.response-timeout:5s}") Duration responseTimeout
+    ) {
+        this.ledgerStore = ledgerStore;
+        this.transactionRepository = transactionRepository;
+        this.accountUserRepository = accountUserRepository;
+        this.transactionIdGenerator = transactionIdGenerator;
+        this.enabled = balanceUpdatePolicy.isEngine();
+        this.ringSize = ringSize;
+        this.maxBatch = maxBatch;
+        this.responseTimeoutMillis = responseTimeout.toMillis();
+        int size = Integer.highestOneBit(Math.max(1, shardCount - 1) << 1);
+        this.shards = new Shard[enabled ? size : 0];
+        this.mask = size - 1;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 저장된 계좌 잔액을 shard 에 적재한 뒤 writer 를 시작한다.
+     * 분할 계좌가 남아 있으면 시작하지 않는다. (POST /account/buckets 로 0 개로 합친 뒤 engine 모드로 바꾼다)
+     */
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        if (ledgerStore.hasSplitAccounts()) {
+            throw new IllegalStateException("Merge split accounts (bucketCount = 0) before enabling engine mode");
+        }
+        for (int i = 0; i < shards.length; i++) {
+            shards[i] = new Shard(i);
+        }
+        long[] count = {0};
+        ledgerStore.replay(snapshot -> {
+            getShard(snapshot.accountNumber()).accounts.put(snapshot.accountNumber(), new AccountState(snapshot));
+            count[0]++;
+        });
+        running = true;
+        for (Shard shard : shards) {
+            shard.start();
+        }
+        log.info("Ledger engine started. shards : {}, accounts : {}", shards.length, count[0]);
+    }
+
+    /**
+     * 새 명령은 받지 않고, 이미 받은 명령은 처리하고 저장한 뒤 멈춘다.
+     */
+    @PreDestroy
+    public void stop() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        for (Shard shard : shards) {
+            shard.stop();
+        }
+    }
+
+    public TransactionDto useBalance(Long userId, String accountNumber, Long amount) {
+        Outcome outcome = await(getShard(accountNumber).submit(
+                Command.use(userId, accountNumber, amount, false)));
+        if (outcome.errorCode() != null) {
+            // 사용자 확인을 먼저 하던 순서와 같은 오류를 주기 위해, 실패했을 때만 사용자를 확인한다.
+            if ((outcome.errorCode() == ErrorCode.ACCOUNT_NOT_FOUND
+                    || outcome.errorCode() == ErrorCode.USER_ACCOUNT_UN_MATCH)
+                    && !accountUserRepository.existsById(userId)) {
+                throw new AccountException(ErrorCode.USER_NOT_FOUND);
+            }
+            throw new AccountException(outcome.errorCode());
+        }
+        return outcome.transactionDto();
+    }
+
+    public TransactionDto cancelBalance(String transactionId, String accountNumber, Long amount) {
+        Transaction transaction = transactionRepository.findByTransactionId(transactionId)
+                .orElseThrow(() -> new AccountException(ErrorCode.TRANSACTION_NOT_FOUND));
+        Outcome outcome = await(getShard(accountNumber).submit(
+                Command.cancel(accountNumber, amount, transaction)));
+        if (outcome.errorCode() != null) {
+            throw new AccountException(outcome.errorCode());
+        }
+        return outcome.transactionDto();
+    }
+
+    /**
+     * 한 계좌에 대한 여러 건의 잔액 사용, 같은 shard 에 순서대로 넣으므로 요청 순서대로 처리된다.
+     * 실패한 건도 실패 거래로 남긴다. (계좌가 없거나 ring 이 가득 찬 경우는 제외)
+     */
+    public List<UseBalanceBatch.Result> useBalanceBatch(String accountNumber, List<UseBalance.Request> requests) {
+        Shard shard = getShard(accountNumber);
+        List<Command> commands = new ArrayList<>(requests.size());
+        for (UseBalance.Request request : requests) {
+            commands.add(shard.submit(Command.use(request.getUserId(), accountNumber, request.getAmount(), true)));
+        }
+
+        List<UseBalanceBatch.Result> results = new ArrayList<>(requests.size());
+        Map<Long, Boolean> userExists = new HashMap<>();
+        for (int i = 0; i < requests.size(); i++) {
+            UseBalance.Request request = requests.get(i);
+            Outcome outcome;
+            try {
+                outcome = await(commands.get(i));
+            } catch (AccountException e) {
+                results.add(UseBalanceBatch.Result.failed(request, e.getErrorCode()));
+                continue;
+            }
+            ErrorCode errorCode = outcome.errorCode();
+            if (errorCode == ErrorCode.USER_ACCOUNT_UN_MATCH
+                    && !userExists.computeIfAbsent(request.getUserId(), accountUserRepository::existsById)) {
+                errorCode = ErrorCode.USER_NOT_FOUND;
+            }
+            results.add(outcome.transactionDto() == null
+                    ? UseBalanceBatch.Result.failed(request, errorCode)
+                    : UseBalanceBatch.Result.from(outcome.transactionDto(), errorCode));
+        }
+        return results;
+    }
+
+    /**
+     * 계좌 상태가 DB 에서 바뀌면(해지) 커밋 후에 메모리의 계좌를 버려서 다음 명령 때 다시 읽게 한다.
+     */
+    public void evictAfterCommit(String accountNumber) {
+        if (!enabled) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            getShard(accountNumber).submit(Command.evict(accountNumber));
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                getShard(accountNumber).submit(Command.evict(accountNumber));
+            }
+        });
+    }
+
+    private Shard getShard(String accountNumber) {
+        int h = accountNumber.hashCode();
+        return shards[(h ^ (h >>> 16)) & mask];
+    }
+
+    // DB 나 persister 가 멈춰도 요청 스레드가 끝없이 기다리지 않도록 시간을 제한한다.
+    private Outcome await(Command command) {
+        try {
+            return command.future.get(responseTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            abandon(command);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            abandon(command);
+        } catch (ExecutionException e) {
+            throw unwrap(e.getCause());
+        }
+        // 버리려는 사이에 끝난 명령은 그 결과로 응답한다.
+        try {
+            return command.future.join();
+        } catch (CompletionException e) {
+            throw unwrap(e.getCause());
+        }
+    }
+
+    /**
+     * writer 가 아직 꺼내지 않았으면 버려서 반영되지 않게 하고 lock 실패로 응답한다.
+     * 이미 꺼냈고 아직 끝나지 않았으면 나중에 커밋될 수 있으므로 결과를 모른다고 응답한다. (재시도하지 말고 거래를 조회)
+     */
+    private void abandon(Command command) {
+        if (command.claim()) {
+            command.future.completeExceptionally(new AccountException(ErrorCode.ACCOUNT_TRANSACTION_LOCK));
+            log.error("Ledger engine response timed out before apply. accountNumber : {}", command.accountNumber);
+            throw new AccountException(ErrorCode.ACCOUNT_TRANSACTION_LOCK);
+        }
+        if (!command.future.isDone()) {
+            log.error("Ledger engine response timed out after apply. accountNumber : {}", command.accountNumber);
+            throw new AccountException(ErrorCode.TRANSACTION_RESULT_UNKNOWN);
+        }
+    }
+
+    private static RuntimeException unwrap(Throwable cause) {
+        return cause instanceof AccountException accountException
+                ? accountException
+                : new CompletionException(cause);
+    }
+
+    private enum Kind {
+        USE, CANCEL, EVICT, RESYNC
+    }
+
+    private record Outcome(TransactionDto transactionDto, ErrorCode errorCode) {
+    }
+
+    private static final class Command {
+        private final Kind kind;
+        private final Long userId;
+        private final String accountNumber;
+        private final Long amount;
+        private final boolean recordFailure; // 검증 실패도 실패 거래로 남긴다. (일괄 처리)
+        private final Transaction canceled;
+        private final CompletableFuture<Outcome> future = new CompletableFuture<>();
+        private final AtomicBoolean claimed = new AtomicBoolean(); // writer 가 반영하거나 요청 스레드가 버린다.
+        private ErrorCode errorCode; // writer 가 정하고 persister 가 읽는다. (executor 로 넘기며 보인다)
+
+        private Command(Kind kind, Long userId, String accountNumber, Long amount,
+                        boolean recordFailure, Transaction canceled) {
+            this.kind = kind;
+            this.userId = userId;
+            this.accountNumber = accountNumber;
+            this.amount = amount;
+            this.recordFailure = recordFailure;
+            this.canceled = canceled;
+        }
+
+        private boolean claim() {
+            return claimed.compareAndSet(false, true);
+        }
+
+        private static Command use(Long userId, String accountNumber, Long amount, boolean recordFailure) {
+            return new Command(Kind.USE, userId, accountNumber, amount, recordFailure, null);
+        }
+
+        private static Command cancel(String accountNumber, Long amount, Transaction canceled) {
+            return new Command(Kind.CANCEL, null, accountNumber, amount, false, canceled);
+        }
+
+        private static Command evict(String accountNumber) {
+            return new Command(Kind.EVICT, null, accountNumber, null, false, null);
+        }
+
+        private static Command resync() {
+            return new Command(Kind.RESYNC, null, null, null, false, null);
+        }
+    }
+
+    private static final class AccountState {
+        private final Long accountId;
+        private final Long userId;
+        private final AccountStatus accountStatus;
+        private long balance;
+
+        private AccountState(AccountSnapshot snapshot) {
+            this.accountId = snapshot.accountId();
+            this.userId = snapshot.userId();
+            this.accountStatus = snapshot.accountStatus();
+            this.balance = snapshot.balance();
+        }
+    }
+
+    private final class Shard {
+        private final int index;
+        private final ArrayBlockingQueue<Command> ring = new ArrayBlockingQueue<>(ringSize);
+        private final Map<String, AccountState> accounts = new HashMap<>(); // writer 스레드만 접근
+        private final ExecutorService persister;
+        private Thread writer;
+
+        // persister 스레드만 접근
+        private boolean persistFailed;
+        private final Set<String> failedAccounts = new HashSet<>();
+
+        private Shard(int index) {
+            this.index = index;
+            this.persister = Executors.newSingleThreadExecutor(
+                    Thread.ofPlatform().name("ledger-persister-" + index).factory());
+        }
+
+        private void start() {
+            writer = Thread.ofPlatform().name("ledger-writer-" + index).start(this::run);
+        }
+
+        private void stop() {
+            try {
+                writer.join(TimeUnit.SECONDS.toMillis(STOP_WAIT_SECONDS));
+                rejectRemaining();
+                persister.shutdown();
+                persister.awaitTermination(STOP_WAIT_SECONDS, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        // ring 이 가득 차면 기다리지 않고 바로 실패 (QueuedLockService 의 max-depth 와 같은 의미)
+        private Command submit(Command command) {
+            if (!running || !ring.offer(command)) {
+                command.future.completeExceptionally(new AccountException(ErrorCode.ACCOUNT_TRANSACTION_LOCK));
+            } else if (!running && ring.remove(command)) {
+                // 넣는 사이에 멈췄고 writer 도 꺼내지 않았다.
+                command.future.completeExceptionally(new AccountException(ErrorCode.ACCOUNT_TRANSACTION_LOCK));
+            }
+            return command;
+        }
+
+        // writer 가 끝난 뒤에 들어온 명령
+        private void rejectRemaining() {
+            List<Command> remaining = new ArrayList<>();
+            ring.drainTo(remaining);
+            remaining.forEach(command -> command.future.completeExceptionally(
+                    new AccountException(ErrorCode.ACCOUNT_TRANSACTION_LOCK)));
+        }
+
+        private void run() {
+            List<Command> batch = new ArrayList<>(maxBatch);
+            while (running || !ring.isEmpty()) {
+                Command first;
+                try {
+                    first = ring.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                ring.drainTo(batch, maxBatch - 1);
+                process(batch);
+                batch.clear();
+            }
+        }
+
+        private void process(List<Command> batch) {
+            List<LedgerRecord> records = new ArrayList<>(batch.size());
+            List<Command> pending = new ArrayList<>(batch.size());
+            for (Command command : batch) {
+                switch (command.kind) {
+                    case EVICT -> accounts.remove(command.accountNumber);
+                    case RESYNC -> {
+                        handOff(records, pending);
+                        records = new ArrayList<>();
+                        pending = new ArrayList<>();
+                        resync();
+                    }
+                    default -> {
+                        try {
+                            apply(command, records, pending);
+                        } catch (RuntimeException e) {
+                            log.error("Failed to apply ledger command. accountNumber : {}", command.accountNumber, e);
+                            command.future.completeExceptionally(e);
+                        }
+                    }
+                }
+            }
+            handOff(records, pending);
+        }
+
+        private void apply(Command command, List<LedgerRecord> records, List<Command> pending) {
+            if (!command.claim()) { // 응답 시간이 지나 요청 스레드가 버린 명령
+                return;
+            }
+            AccountState account = getAccount(command.accountNumber);
+            ErrorCode errorCode = account == null ? ErrorCode.ACCOUNT_NOT_FOUND : validate(command, account);
+            if (errorCode == null) {
+                long previousBalance = account.balance;
+                account.balance = command.kind == Kind.USE
+                        ? account.balance - command.amount
+                        : account.balance + command.amount;
+                records.add(buildRecord(command, account, TransactionResultType.S, previousBalance));
+                pending.add(command);
+            } else if (command.recordFailure && account != null) {
+                command.errorCode = errorCode;
+                records.add(buildRecord(command, account, TransactionResultType.F, account.balance));
+                pending.add(command);
+            } else {
+                command.future.complete(new Outcome(null, errorCode));
+            }
+        }
+
+        private AccountState getAccount(String accountNumber) {
+            AccountState account = accounts.get(accountNumber);
+            if (account == null) { // 기동 후에 만든 계좌, 해지 등으로 버린 계좌
+                account = ledgerStore.findAccount(accountNumber).map(AccountState::new).orElse(null);
+                if (account != null) {
+                    accounts.put(accountNumber, account);
+                }
+            }
+            return account;
+        }
+
+        private ErrorCode validate(Command command, AccountState account) {
+            if (command.kind == Kind.USE) {
+                if (!Objects.equals(command.userId, account.userId)) {
+                    return ErrorCode.USER_ACCOUNT_UN_MATCH;
+                }
+                if (account.accountStatus != AccountStatus.IN_USE) {
+                    return ErrorCode.ACCOUNT_ALREADY_UNREGISTERED;
+                }
+                if (account.balance < command.amount) {
+                    return ErrorCode.AMOUNT_EXCEED_BALANCE;
+                }
+                return null;
+            }
+            if (!Objects.equals(command.canceled.getAccount().getId(), account.accountId)) {
+                return ErrorCode.TRANSACTION_ACCOUNT_UN_MATCH;
+            }
+            if (!Objects.equals(command.canceled.getAmount(), command.amount)) {
+                return ErrorCode.CANCEL_MUST_FULLY;
+            }
+            if (command.canceled.getTransactionAt().isBefore(LocalDateTime.now().minusYears(1))) {
+                return ErrorCode.TOO_OLD_ORDER_TO_CANCEL;
+            }
+            if (command.amount < 0) {
+                return ErrorCode.INVALID_REQUEST;
+            }
+            return null;
+        }
+
+        private LedgerRecord buildRecord(Command command, AccountState account,
+                                         TransactionResultType resultType, long previousBalance) {
+            return new LedgerRecord(
+                    account.accountId,
+                    account.userId,
+                    command.accountNumber,
+                    command.kind == Kind.USE ? TransactionType.USE : TransactionType.CANCEL,
+                    resultType,
+                    command.amount,
+                    previousBalance,
+                    account.balance,
+                    transactionIdGenerator.generate(),
+                    LocalDateTime.now());
+        }
+
+        private void handOff(List<LedgerRecord> records, List<Command> pending) {
+            if (!records.isEmpty()) {
+                persister.execute(() -> persist(records, pending));
+            }
+        }
+
+        // persister 스레드
+        private void persist(List<LedgerRecord> records, List<Command> pending) {
+            if (!persistFailed) {
+                try {
+                    ledgerStore.persist(records);
+                    for (int i = 0; i < records.size(); i++) {
+                        Command command = pending.get(i);
+                        command.future.complete(new Outcome(records.get(i).toDto(), command.errorCode));
+                    }
+                    return;
+                } catch (RuntimeException e) {
+                    log.error("Failed to persist ledger batch. shard : {}, size : {}", index, records.size(), e);
+                    persistFailed = true;
+                    requestResync();
+                }
+            }
+            // 실패한 묶음 위에 쌓인 묶음도 저장하지 않고, 다시 읽을 계좌로 모아둔다.
+            records.forEach(record -> failedAccounts.add(record.accountNumber()));
+            pending.forEach(command -> command.future.completeExceptionally(
+                    new AccountException(ErrorCode.ACCOUNT_TRANSACTION_LOCK)));
+        }
+
+        private void requestResync() {
+            try {
+                ring.put(Command.resync());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        // writer 스레드, 앞서 넘긴 묶음이 모두 끝난 뒤 실패한 계좌를 버린다.
+        private void resync() {
+            try {
+                Set<String> stale = persister.submit(() -> {
+                    Set<String> failed = new HashSet<>(failedAccounts);
+                    failedAccounts.clear();
+                    persistFailed = false;
+                    return failed;
+                }).get();
+                stale.forEach(accounts::remove);
+                log.warn("Ledger shard resynchronized. shard : {}, accounts : {}", index, stale.size());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (ExecutionException e) {
+                log.error("Failed to resynchronize ledger shard. shard : {}", index, e);
+            }
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.example.account.service;
+
+import com.example.account.type.ExportFormat;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedOutputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * 원장 내보내기 CLI (gradle exportLedger)
+ * account.export.output 이 있을 때만 켜지고, 파일을 다 쓰면 애플리케이션을 종료한다.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "account.export.output")
+public class LedgerExportRunner implements ApplicationRunner {
+    private final LedgerExportService ledgerExportService;
+    private final ConfigurableApplicationContext context;
+    private final Path output;
+    private final ExportFormat format;
+
+    public LedgerExportRunner(
+            LedgerExportService ledgerExportService,
+            ConfigurableApplicationContext context,
+            @Value("${account.export.output}") Path output,
+            @Value("${account.export.format:ndjson}") ExportFormat format
+    ) {
+        this.ledgerExportService = ledgerExportService;
+        this.context = context;
+        this.output = output;
+        this.format = format;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) throws Exception {
+        Path parent = output.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+
+        long count;
+        try (OutputStream outputStream = new BufferedOutputStream(Files.newOutputStream(output))) {
+            count = ledgerExportService.export(format, outputStream);
+        }
+        log.info("Ledger export finished. file : {}, count : {}", output, count);
+
+        System.exit(SpringApplication.exit(context, () -> 0));
+    }
+}
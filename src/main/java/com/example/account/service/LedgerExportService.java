@@ -0,0 +1,100 @@
+package com.example.account.service;
+
+import com.example.account.dto.LedgerEntry;
+import com.example.account.repository.TransactionRepository;
+import com.example.account.type.ExportFormat;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.transaction.Transactional;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * 전체 원장 내보내기
+ * 거래를 cursor 로 한 줄씩 읽어 바로 OutputStream 에 쓴다. (테이블 크기와 관계없이 메모리 일정)
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class LedgerExportService {
+    private static final String CSV_HEADER = "transaction_id,account_number,transaction_type"
+            + ",transaction_result_type,amount,balance_snapshot,transacted_at";
+
+    private final TransactionRepository transactionRepository;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * stream 을 다 읽을 때까지 connection 을 잡고 있어야 하므로 트랜잭션 안에서 실행한다.
+     * outputStream 은 닫지 않는다. (호출한 쪽이 닫는다.)
+     *
+     * @return 내보낸 거래 수
+     */
+    @Transactional
+    public long export(ExportFormat format, OutputStream outputStream) throws IOException {
+        try (Stream<LedgerEntry> entries = transactionRepository.streamLedger()) {
+            long count = format == ExportFormat.CSV
+                    ? writeCsv(entries.iterator(), outputStream)
+                    : writeNdjson(entries.iterator(), outputStream);
+            log.info("Exported {} transactions as {}", count, format);
+            return count;
+        }
+    }
+
+    private long writeNdjson(Iterator<LedgerEntry> entries, OutputStream outputStream) throws IOException {
+        long count = 0;
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            generator.setRootValueSeparator(null);
+            while (entries.hasNext()) {
+                generator.writeObject(entries.next());
+                generator.writeRaw('\n');
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private long writeCsv(Iterator<LedgerEntry> entries, OutputStream outputStream) throws IOException {
+        long count = 0;
+        Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+        writer.write(CSV_HEADER);
+        writer.write('\n');
+        while (entries.hasNext()) {
+            LedgerEntry entry = entries.next();
+            writer.write(String.join(",",
+                    csv(entry.getTransactionId()),
+                    csv(entry.getAccountNumber()),
+                    csv(entry.getTransactionType()),
+                    csv(entry.getTransactionResultType()),
+                    csv(entry.getAmount()),
+                    csv(entry.getBalanceSnapshot()),
+                    csv(entry.getTransactedAt())));
+            writer.write('\n');
+            count++;
+        }
+        writer.flush(); // outputStream 은 닫지 않고 비우기만 한다.
+        return count;
+    }
+
+    private static String csv(Object value) {
+        if (value == null) {
+            return "";
+        }
+        String text = value.toString();
+        if (text.indexOf(',') < 0 && text.indexOf('"') < 0
+                && text.indexOf('\n') < 0 && text.indexOf('\r') < 0) {
+            return text;
+        }
+        return '"' + text.replace("\"", "\"\"") + '"';
+    }
+}
@@ -0,0 +1,105 @@
+package com.example.account.service;
+
+import com.example.account.domain.Transaction;
+import com.example.account.dto.AccountSnapshot;
+import com.example.account.dto.LedgerRecord;
+import com.example.account.exception.AccountException;
+import com.example.account.repository.AccountRepository;
+import com.example.account.repository.TransactionRepository;
+import com.example.account.type.ErrorCode;
+import com.example.account.type.TransactionResultType;
+import com.example.account.type.TransactionType;
+import jakarta.transaction.Transactional;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * LedgerEngine 의 DB 입출력
+ * 거래 기록과 계좌 잔액을 한 트랜잭션으로 저장하므로, 기동할 때 계좌 잔액만 읽으면 원장 끝의 잔액이 된다.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class LedgerStore {
+    private final AccountRepository accountRepository;
+    private final TransactionRepository transactionRepository;
+    private final AccountCache accountCache;
+    private final TransactionCache transactionCache;
+
+    @Transactional
+    public void replay(Consumer<AccountSnapshot> consumer) {
+        try (Stream<AccountSnapshot> snapshots = accountRepository.streamSnapshots()) {
+            snapshots.forEach(consumer);
+        }
+    }
+
+    // 분할 계좌의 잔액은 bucket 행에 있어서 engine 이 계좌 행 잔액으로 처리할 수 없다.
+    public boolean hasSplitAccounts() {
+        return accountRepository.existsByBucketCountGreaterThan(0);
+    }
+
+    public Optional<AccountSnapshot> findAccount(String accountNumber) {
+        return accountRepository.findSnapshotByAccountNumber(accountNumber);
+    }
+
+    /**
+     * 계좌 잔액은 engine 이 알던 잔액(묶음의 첫 거래 전 잔액)일 때만 마지막 거래의 스냅샷으로 바꾸는 조건부 UPDATE 로 반영하고,
+     * 거래 기록은 saveAll 로 묶어서 넣는다.
+     * engine 이 계좌를 읽은 뒤에 다른 곳(다른 노드, 수동 보정, 해지 등)에서 계좌가 바뀌었으면
+     * 덮어쓰지 않고 실패시켜 engine 이 계좌를 다시 읽게 한다.
+     */
+    @Transactional
+    public void persist(List<LedgerRecord> records) {
+        Map<Long, Long> expectedBalances = new HashMap<>();
+        Map<Long, Long> balances = new HashMap<>();
+        Set<Long> usedAccountIds = new HashSet<>();
+        Map<Long, String> accountNumbers = new HashMap<>();
+        Set<Long> changedUserIds = new HashSet<>();
+        List<Transaction> transactions = new ArrayList<>(records.size());
+        for (LedgerRecord record : records) {
+            if (record.transactionResultType() == TransactionResultType.S) {
+                expectedBalances.putIfAbsent(record.accountId(), record.previousBalance());
+                balances.put(record.accountId(), record.balanceSnapshot());
+                accountNumbers.put(record.accountId(), record.accountNumber());
+                if (record.transactionType() == TransactionType.USE) {
+                    usedAccountIds.add(record.accountId());
+                }
+                changedUserIds.add(record.userId());
+            }
+            transactions.add(Transaction.builder()
+                    .transactionType(record.transactionType())
+                    .transactionResultType(record.transactionResultType())
+                    .account(accountRepository.getReferenceById(record.accountId()))
+                    .amount(record.amount())
+                    .balanceSnapshot(record.balanceSnapshot())
+                    .transactionId(record.transactionId())
+                    .transactionAt(record.transactionAt())
+                    .build());
+        }
+
+        for (Map.Entry<Long, Long> entry : balances.entrySet()) {
+            Long accountId = entry.getKey();
+            if (accountRepository.applyBalance(accountId, expectedBalances.get(accountId),
+                    entry.getValue(), usedAccountIds.contains(accountId)) == 0) {
+                log.warn("Account changed outside the ledger engine. accountNumber : {}",
+                        accountNumbers.get(accountId));
+                throw new AccountException(ErrorCode.ACCOUNT_TRANSACTION_LOCK);
+            }
+        }
+        transactionRepository.saveAll(transactions);
+
+        changedUserIds.forEach(accountCache::invalidateAfterCommit);
+        records.forEach(record -> transactionCache.putAfterCommit(record.toDto()));
+    }
+}
@@ -0,0 +1,63 @@
+package com.example.account.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * 단일 노드용 Idempotency-Key 저장소 (Caffeine)
+ * 처리 중 표시와 응답의 만료 시간을 다르게 준다.
+ */
+@Component
+@ConditionalOnProperty(name = "account.idempotency.store", havingValue = "local")
+public class LocalIdempotencyStore implements IdempotencyStore {
+    private final Cache<String, Object> cache;
+
+    public LocalIdempotencyStore(
+            @Value("${account.idempotency.maximum-size:100000}") long maximumSize,
+            @Value("${account.idempotency.ttl:24h}") Duration ttl,
+            @Value("${account.idempotency.pending-ttl:30s}") Duration pendingTtl) {
+        long ttlNanos = ttl.toNanos();
+        long pendingTtlNanos = pendingTtl.toNanos();
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfter(new Expiry<String, Object>() {
+                    @Override
+                    public long expireAfterCreate(String key, Object value, long currentTime) {
+                        return value == PENDING ? pendingTtlNanos : ttlNanos;
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String key, Object value, long currentTime, long currentDuration) {
+                        return value == PENDING ? pendingTtlNanos : ttlNanos;
+                    }
+
+                    @Override
+                    public long expireAfterRead(String key, Object value, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .build();
+    }
+
+    @Override
+    public Optional<Object> reserve(String key) {
+        return Optional.ofNullable(cache.asMap().putIfAbsent(key, PENDING));
+    }
+
+    @Override
+    public void complete(String key, Object response) {
+        cache.put(key, response);
+    }
+
+    @Override
+    public void release(String key) {
+        cache.asMap().remove(key, PENDING);
+    }
+}
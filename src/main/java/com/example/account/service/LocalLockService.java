@@ -0,0 +1,114 @@
+package com.example.account.service;
+
+import com.example.account.exception.AccountException;
+import com.example.account.type.ErrorCode;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * JVM 내부 striped lock
+ * 계좌번호 hash 로 stripe 를 고르고, 경합이 없으면 CAS 한 번으로 lock 을 잡는다.
+ * 서로 다른 계좌가 같은 stripe 에 걸리면 함께 직렬화된다. (stripe 수로 조절)
+ * lock 을 잡은 스레드가 아니어도 unlock 할 수 있지만 재진입은 지원하지 않는다.
+ * stripe 마다 잡고 있는 계좌번호를 기록해서, 잡지 않은 계좌의 unlock 은 무시한다.
+ * (semaphore 는 소유자를 따지지 않아서 잘못된 unlock 한 번에 permit 이 2개가 되어 배타성이 깨진다)
+ * 비동기 lock 은 바로 잡히지 않으면 virtual thread 에서 기다린다.
+ */
+@Slf4j
+@Service
+@ConditionalOnProperty(name = "account.lock.type", havingValue = "local")
+public class LocalLockService implements LockService {
+    private static final long WAIT_TIME_MILLIS = 1000L; // redis lock 과 같은 1초 대기
+
+    private final Semaphore[] stripes;
+    private final AtomicReferenceArray<String> holders; // stripe 를 잡고 있는 계좌번호
+    private final int mask;
+    private final ExecutorService waitExecutor = Executors.newVirtualThreadPerTaskExecutor();
+
+    public LocalLockService(@Value("${account.lock.stripes:1024}") int stripeCount) {
+        int size = Integer.highestOneBit(Math.max(1, stripeCount - 1) << 1);
+        this.stripes = new Semaphore[size];
+        for (int i = 0; i < size; i++) {
+            stripes[i] = new Semaphore(1);
+        }
+        this.holders = new AtomicReferenceArray<>(size);
+        this.mask = size - 1;
+    }
+
+    @Override
+    public String lock(String accountNumber) {
+        int index = getStripeIndex(accountNumber);
+        Semaphore stripe = stripes[index];
+        if (stripe.tryAcquire()) { // 경합이 없으면 대기 없이 바로 취득
+            holders.set(index, accountNumber);
+            return "get success";
+        }
+        log.debug("Waiting local lock for accountNumber : {}", accountNumber);
+
+        try {
+            if (!stripe.tryAcquire(WAIT_TIME_MILLIS, TimeUnit.MILLISECONDS)) {
+                log.error("====Lock acquisition failed======");
+                throw new AccountException(ErrorCode.ACCOUNT_TRANSACTION_LOCK);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AccountException(ErrorCode.ACCOUNT_TRANSACTION_LOCK);
+        }
+
+        holders.set(index, accountNumber);
+        return "get success";
+    }
+
+    @Override
+    public void unlock(String accountNumber) {
+        log.debug("Unlock for accountNumber: {}", accountNumber);
+        int index = getStripeIndex(accountNumber);
+        // 계좌번호는 값으로 비교하고, 비교한 그 참조로 CAS 해서 두 번 풀리지 않게 한다.
+        String holder = holders.get(index);
+        if (!accountNumber.equals(holder) || !holders.compareAndSet(index, holder, null)) {
+            // 잡혀 있지 않거나 같은 stripe 의 다른 계좌가 잡고 있으면 풀지 않는다.
+            log.warn("Ignored unlock of a lock not held. accountNumber : {}", accountNumber);
+            return;
+        }
+        stripes[index].release();
+    }
+
+    @Override
+    public CompletableFuture<Long> lockAsync(String accountNumber) {
+        int index = getStripeIndex(accountNumber);
+        if (stripes[index].tryAcquire()) {
+            holders.set(index, accountNumber);
+            return CompletableFuture.completedFuture(0L);
+        }
+        return CompletableFuture.supplyAsync(() -> {
+            lock(accountNumber);
+            return 0L; // semaphore 는 소유자를 따지지 않는다.
+        }, waitExecutor);
+    }
+
+    @Override
+    public CompletableFuture<Void> unlockAsync(String accountNumber, long ownerId) {
+        unlock(accountNumber);
+        return CompletableFuture.completedFuture(null);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        waitExecutor.shutdownNow();
+    }
+
+    private int getStripeIndex(String accountNumber) {
+        int h = accountNumber.hashCode();
+        return (h ^ (h >>> 16)) & mask;
+    }
+}
@@ -1,31 +1,176 @@
 package com.example.account.service;
 
 import com.example.account.aop.AccountLockIdInterface;
+import com.example.account.exception.AccountException;
+import com.example.account.type.ErrorCode;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.aspectj.lang.ProceedingJoinPoint;
 import org.aspectj.lang.annotation.Around;
 import org.aspectj.lang.annotation.Aspect;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.stereotype.Component;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+
 @Aspect
 @Component
 @Slf4j
 @RequiredArgsConstructor
 public class LockAopAspect {
     private final LockService lockService;
-    @Around("@annotation(com.example.account.aop.AccountLock) && args(request)")
+    private final AccountMetrics accountMetrics;
+    private final AsyncTaskExecutor taskExecutor;
+    private final BalanceUpdatePolicy balanceUpdatePolicy;
+    private final HotAccountService hotAccountService;
+
+    @Around("@annotation(com.example.account.aop.AccountLock) && args(request)"
+            + " && !execution(java.util.concurrent.CompletionStage+ *(..))")
     public Object aroundMethod(
             ProceedingJoinPoint pjp,
             AccountLockIdInterface request
     ) throws Throwable {
+        if (isLockFree(request)) {
+            return proceedWithRetry(pjp, request);
+        }
         // lock 취득 시도
-        lockService.lock(request.getAccountNumber());
+        long waitStart = System.nanoTime();
+        try {
+            lockService.lock(request.getAccountNumber());
+        } catch (RuntimeException e) {
+            accountMetrics.recordLockWait(System.nanoTime() - waitStart, false);
+            throw e;
+        }
+        long holdStart = System.nanoTime();
+        accountMetrics.recordLockWait(holdStart - waitStart, true);
         try {
             return pjp.proceed();
         } finally {
            // lock 해제
             lockService.unlock(request.getAccountNumber());
+            accountMetrics.recordLockHold(System.nanoTime() - holdStart);
+        }
+    }
+
+    /**
+     * CompletableFuture 를 반환하는 메서드는 lock 을 기다리는 동안 요청 스레드를 붙잡지 않는다.
+     * lock 이 잡히면 taskExecutor 에서 메서드를 실행하고(redis I/O 스레드에서 DB 작업을 하지 않도록),
+     * 결과가 성공이든 실패든 lock 을 해제한 다음에 응답을 완료한다.
+     */
+    @Around("@annotation(com.example.account.aop.AccountLock) && args(request)"
+            + " && execution(java.util.concurrent.CompletionStage+ *(..))")
+    public CompletableFuture<Object> aroundAsyncMethod(
+            ProceedingJoinPoint pjp,
+            AccountLockIdInterface request
+    ) {
+        if (isLockFree(request)) {
+            return proceedAsyncWithRetry(pjp, request);
         }
+        String accountNumber = request.getAccountNumber();
+        CompletableFuture<Object> response = new CompletableFuture<>();
+
+        long waitStart = System.nanoTime();
+        lockService.lockAsync(accountNumber).whenComplete((ownerId, lockError) -> {
+            long holdStart = System.nanoTime();
+            if (lockError != null) {
+                accountMetrics.recordLockWait(holdStart - waitStart, false);
+                response.completeExceptionally(unwrap(lockError));
+                return;
+            }
+            accountMetrics.recordLockWait(holdStart - waitStart, true);
+
+            try {
+                taskExecutor.execute(() -> proceedAndUnlock(pjp, accountNumber, ownerId, holdStart, response));
+            } catch (RuntimeException e) { // executor 가 받지 못해도 lock 은 해제한다.
+                unlockAndComplete(accountNumber, ownerId, holdStart, response, null, e);
+            }
+        });
+        return response;
+    }
+
+    /**
+     * 분할 계좌는 bucket 행 lock 으로 직렬화하므로 계좌 lock 을 잡지 않는다.
+     * 분할이 막 풀린 계좌를 lock 없이 변경해도 version 충돌로 다시 실행된다.
+     */
+    private boolean isLockFree(AccountLockIdInterface request) {
+        return balanceUpdatePolicy.isLockFree() || hotAccountService.isHot(request.getAccountNumber());
+    }
+
+    /**
+     * 낙관적 모드 : lock 없이 실행하고, 커밋 시점에 version 충돌이 나면 처음부터 다시 실행한다.
+     * 재시도를 다 써도 충돌하면 lock 실패와 같은 ACCOUNT_TRANSACTION_LOCK 으로 응답한다.
+     */
+    private Object proceedWithRetry(ProceedingJoinPoint pjp, AccountLockIdInterface request) throws Throwable {
+        for (int attempt = 0; ; attempt++) {
+            try {
+                return pjp.proceed();
+            } catch (OptimisticLockingFailureException e) {
+                if (attempt >= balanceUpdatePolicy.getMaxRetries()) {
+                    accountMetrics.recordConflict(false);
+                    log.error("Optimistic update aborted. accountNumber : {}", request.getAccountNumber());
+                    throw new AccountException(ErrorCode.ACCOUNT_TRANSACTION_LOCK);
+                }
+                accountMetrics.recordConflict(true);
+                log.debug("Optimistic update conflict, retrying. accountNumber : {}", request.getAccountNumber());
+            }
+        }
+    }
+
+    private CompletableFuture<Object> proceedAsyncWithRetry(ProceedingJoinPoint pjp, AccountLockIdInterface request) {
+        CompletableFuture<Object> response = new CompletableFuture<>();
+        try {
+            ((CompletionStage<?>) proceedWithRetry(pjp, request)).whenComplete((value, error) -> {
+                if (error != null) {
+                    response.completeExceptionally(unwrap(error));
+                } else {
+                    response.complete(value);
+                }
+            });
+        } catch (Throwable e) {
+            response.completeExceptionally(e);
+        }
+        return response;
+    }
+
+    private void proceedAndUnlock(ProceedingJoinPoint pjp, String accountNumber, long ownerId,
+                                  long holdStart, CompletableFuture<Object> response) {
+        CompletionStage<?> result;
+        try {
+            result = (CompletionStage<?>) pjp.proceed();
+        } catch (Throwable e) {
+            unlockAndComplete(accountNumber, ownerId, holdStart, response, null, e);
+            return;
+        }
+        result.whenComplete((value, error) ->
+                unlockAndComplete(accountNumber, ownerId, holdStart, response, value, error));
+    }
+
+    private void unlockAndComplete(String accountNumber, long ownerId, long holdStart,
+                                   CompletableFuture<Object> response, Object value, Throwable error) {
+        CompletableFuture<Void> unlock;
+        try {
+            unlock = lockService.unlockAsync(accountNumber, ownerId);
+        } catch (RuntimeException e) {
+            unlock = CompletableFuture.failedFuture(e);
+        }
+        unlock.whenComplete((ignored, unlockError) -> {
+            accountMetrics.recordLockHold(System.nanoTime() - holdStart);
+            if (unlockError != null) { // lease time 이 지나면 풀리므로 응답은 그대로 보낸다.
+                log.error("Async unlock failed. accountNumber : {}", accountNumber, unlockError);
+            }
+            if (error != null) {
+                response.completeExceptionally(unwrap(error));
+            } else {
+                response.complete(value);
+            }
+        });
+    }
+
+    private static Throwable unwrap(Throwable error) {
+        return error instanceof CompletionException && error.getCause() != null
+                ? error.getCause() : error;
     }
 }
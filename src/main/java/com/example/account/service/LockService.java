@@ -1,46 +1,25 @@
 package com.example.account.service;
 
-import com.example.account.exception.AccountException;
-import com.example.account.type.ErrorCode;
-import lombok.RequiredArgsConstructor;
-import lombok.extern.slf4j.Slf4j;
-import org.redisson.api.RLock;
-import org.redisson.api.RedissonClient;
-import org.springframework.stereotype.Service;
-
-import java.util.concurrent.TimeUnit;
-
-@Slf4j
-@Service
-@RequiredArgsConstructor
-public class LockService {
-    private final RedissonClient redissonClient;
-
-    public String lock(String accountNumber){
-        RLock lock = redissonClient.getLock(getLockKey(accountNumber)); // redisson에서 제공하는 기본적인 rock기능
-        log.debug("Trying lock for accountNumber : {}",accountNumber);
-
-        try {
-            boolean isLock = lock.tryLock(1,15, TimeUnit.SECONDS); // 1초동안 기다리고 5초동안 가지고 있다가 풀어준다.
-            if(!isLock){// rock붙들기 실패
-                log.error("====Lock acquisition failed======");
-                throw new AccountException(ErrorCode.ACCOUNT_TRANSACTION_LOCK);
-            }
-        }catch (AccountException e){ // globalExceptionHandler 가 받을수있도록
-            throw e;
-        }catch (Exception e){
-            log.error("Redis lock failed", e);
-        }
-
-        return "get success";
-    }
-
-    public void unlock(String accountNumber){
-        log.debug("Unlock for accountNumber: {}", accountNumber);
-        redissonClient.getLock(getLockKey(accountNumber)).unlock();
-    }
-
-    private static String getLockKey(String accountNumber) {
-        return "ACLK:" + accountNumber;
-    }
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 계좌 단위 lock
+ * account.lock.type 설정으로 구현체를 고른다.
+ * 1. redis : Redisson 분산 lock (기본값, 다중 노드)
+ * 2. local : JVM 내부 striped lock (단일 노드, 테스트)
+ * account.lock.queue.enabled 이면 QueuedLockService 가 앞에서 계좌별 대기열을 관리한다.
+ */
+public interface LockService {
+    String lock(String accountNumber);
+
+    void unlock(String accountNumber);
+
+    /**
+     * 스레드를 붙잡지 않고 lock 을 기다린다.
+     * 완료 값은 lock 소유자 id 이고, 스레드가 바뀌어도 unlockAsync 에 넘겨서 해제한다.
+     * 획득에 실패하면 ACCOUNT_TRANSACTION_LOCK 으로 실패한다.
+     */
+    CompletableFuture<Long> lockAsync(String accountNumber);
+
+    CompletableFuture<Void> unlockAsync(String accountNumber, long ownerId);
 }
@@ -0,0 +1,190 @@
+package com.example.account.service;
+
+import com.example.account.exception.AccountException;
+import com.example.account.type.ErrorCode;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 계좌별 대기열 (LockService 앞단의 admission control)
+ * 같은 노드에서는 계좌당 한 요청만 실제 lock(redis)을 시도하고, 나머지는 FIFO 로 줄을 선다.
+ * 줄이 max-depth 만큼 차 있으면 기다리지 않고 바로 ACCOUNT_TRANSACTION_LOCK 으로 실패하며,
+ * lock 이 해제되면 맨 앞 요청에게 바로 넘겨준다.
+ * 다른 노드와의 배타성은 그대로 delegate 가 맡는다.
+ */
+@Slf4j
+@Service
+@Primary
+@ConditionalOnProperty(name = "account.lock.queue.enabled", havingValue = "true")
+public class QueuedLockService implements LockService {
+    private final LockService delegate;
+    private final int maxDepth;
+    private final long maxWaitMillis;
+
+    // key 가 있으면 누군가 소유 중이고, value 는 기다리는 요청들
+    private final ConcurrentHashMap<String, ArrayDeque<CompletableFuture<Void>>> queues =
+            new ConcurrentHashMap<>();
+
+    public QueuedLockService(
+            LockService delegate,
+            @Value("${account.lock.queue.max-depth:32}") int maxDepth,
+            @Value("${account.lock.queue.max-wait:1s}") Duration maxWait) {
+        this.delegate = delegate;
+        this.maxDepth = maxDepth;
+        this.maxWaitMillis = maxWait.toMillis();
+    }
+
+    @Override
+    public String lock(String accountNumber) {
+        CompletableFuture<Void> ticket = admit(accountNumber);
+        if (ticket != null) {
+            awaitTurn(accountNumber, ticket);
+        }
+        try {
+            return delegate.lock(accountNumber);
+        } catch (RuntimeException e) {
+            handOff(accountNumber);
+            throw e;
+        }
+    }
+
+    @Override
+    public void unlock(String accountNumber) {
+        try {
+            delegate.unlock(accountNumber);
+        } finally {
+            handOff(accountNumber);
+        }
+    }
+
+    @Override
+    public CompletableFuture<Long> lockAsync(String accountNumber) {
+        CompletableFuture<Void> ticket;
+        try {
+            ticket = admit(accountNumber);
+        } catch (AccountException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        CompletableFuture<Void> turn = ticket == null
+                ? CompletableFuture.completedFuture(null)
+                : ticket.orTimeout(maxWaitMillis, TimeUnit.MILLISECONDS)
+                        .exceptionally(e -> {
+                            withdraw(accountNumber, ticket); // 시간이 지나 스스로 빠진 경우
+                            throw new AccountException(ErrorCode.ACCOUNT_TRANSACTION_LOCK);
+                        });
+
+        return turn.thenCompose(ignored -> delegate.lockAsync(accountNumber)
+                .whenComplete((ownerId, e) -> {
+                    if (e != null) {
+                        handOff(accountNumber);
+                    }
+                }));
+    }
+
+    @Override
+    public CompletableFuture<Void> unlockAsync(String accountNumber, long ownerId) {
+        CompletableFuture<Void> unlock;
+        try {
+            unlock = delegate.unlockAsync(accountNumber, ownerId);
+        } catch (RuntimeException e) {
+            unlock = CompletableFuture.failedFuture(e);
+        }
+        return unlock.whenComplete((ignored, e) -> handOff(accountNumber));
+    }
+
+    /**
+     * @return 바로 소유하게 되면 null, 줄을 섰으면 차례가 오면 완료되는 future
+     */
+    private CompletableFuture<Void> admit(String accountNumber) {
+        AtomicBoolean rejected = new AtomicBoolean();
+        CompletableFuture<Void> ticket = new CompletableFuture<>();
+        ArrayDeque<CompletableFuture<Void>> created = new ArrayDeque<>();
+        ArrayDeque<CompletableFuture<Void>> queue = queues.compute(accountNumber, (key, waiters) -> {
+            if (waiters == null) {
+                return created;
+            }
+            if (waiters.size() >= maxDepth) {
+                rejected.set(true);
+            } else {
+                waiters.addLast(ticket);
+            }
+            return waiters;
+        });
+
+        if (rejected.get()) {
+            log.debug("Lock queue is full. accountNumber : {}", accountNumber);
+            throw new AccountException(ErrorCode.ACCOUNT_TRANSACTION_LOCK);
+        }
+        return queue == created ? null : ticket;
+    }
+
+    private void awaitTurn(String accountNumber, CompletableFuture<Void> ticket) {
+        try {
+            ticket.get(maxWaitMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            giveUp(accountNumber, ticket, false);
+        } catch (InterruptedException e) {
+            giveUp(accountNumber, ticket, true);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // 포기하는 사이에 차례를 넘겨받았으면 그대로 진행한다. (인터럽트면 넘겨받은 차례를 다시 넘긴다)
+    private void giveUp(String accountNumber, CompletableFuture<Void> ticket, boolean interrupted) {
+        boolean withdrawn = ticket.completeExceptionally(
+                new AccountException(ErrorCode.ACCOUNT_TRANSACTION_LOCK));
+        if (withdrawn) {
+            withdraw(accountNumber, ticket);
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+            if (!withdrawn) {
+                handOff(accountNumber);
+            }
+        }
+        if (withdrawn || interrupted) {
+            throw new AccountException(ErrorCode.ACCOUNT_TRANSACTION_LOCK);
+        }
+    }
+
+    private void withdraw(String accountNumber, CompletableFuture<Void> ticket) {
+        queues.computeIfPresent(accountNumber, (key, waiters) -> {
+            waiters.remove(ticket);
+            return waiters;
+        });
+    }
+
+    /**
+     * 다음 대기자에게 소유권을 넘긴다. 대기자가 없으면 비운다.
+     * future 완료는 compute 밖에서 해야 이어지는 작업이 map 을 잠근 채로 실행되지 않는다.
+     */
+    private void handOff(String accountNumber) {
+        AtomicReference<CompletableFuture<Void>> next = new AtomicReference<>();
+        while (true) {
+            next.set(null);
+            queues.computeIfPresent(accountNumber, (key, waiters) -> {
+                next.set(waiters.pollFirst());
+                return next.get() == null ? null : waiters;
+            });
+            CompletableFuture<Void> ticket = next.get();
+            if (ticket == null || ticket.complete(null)) {
+                return;
+            }
+            // 이미 포기한 대기자면 그 다음으로 넘긴다.
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package com.example.account.service;
+
+import com.example.account.domain.ReconciliationCheckpoint;
+import com.example.account.dto.Reconciliation;
+import com.example.account.dto.ReconciliationRow;
+import com.example.account.repository.ReconciliationCheckpointRepository;
+import com.example.account.repository.TransactionRepository;
+import com.example.account.type.TransactionType;
+import jakarta.transaction.Transactional;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.stream.Stream;
+
+/**
+ * 계좌 id 구간 하나의 잔액 대조
+ * 계좌별로 거래를 순서대로 읽으며 잔액을 다시 계산하고, 끝나면 대조 위치를 저장한다.
+ * 대조 위치가 없는 계좌는 첫 거래의 스냅샷을 시작 잔액으로 삼는다. (개설 잔액은 거래로 남지 않는다.)
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ReconciliationChunkService {
+    private final TransactionRepository transactionRepository;
+    private final ReconciliationCheckpointRepository reconciliationCheckpointRepository;
+
+    @Transactional
+    public Reconciliation.Result reconcile(long fromAccountId, long toAccountId, int maxMismatches) {
+        Map<Long, ReconciliationCheckpoint> checkpoints = new HashMap<>();
+        for (ReconciliationCheckpoint checkpoint
+                : reconciliationCheckpointRepository.findByAccountIdBetween(fromAccountId, toAccountId)) {
+            checkpoints.put(checkpoint.getAccountId(), checkpoint);
+        }
+
+        ChunkResult result = new ChunkResult(maxMismatches);
+        List<ReconciliationCheckpoint> created = new ArrayList<>();
+        try (Stream<ReconciliationRow> rows =
+                     transactionRepository.streamForReconciliation(fromAccountId, toAccountId)) {
+            Iterator<ReconciliationRow> iterator = rows.iterator();
+            AccountLedger ledger = null;
+            while (iterator.hasNext()) {
+                ReconciliationRow row = iterator.next();
+                if (ledger == null || !ledger.accountId.equals(row.accountId())) {
+                    finish(ledger, checkpoints, created, result);
+                    ledger = new AccountLedger(row, checkpoints.get(row.accountId()));
+                }
+                ledger.apply(row, result);
+            }
+            finish(ledger, checkpoints, created, result);
+        }
+
+        // 기존 대조 위치는 변경 감지로, 새 위치는 insert batch 로 저장된다.
+        reconciliationCheckpointRepository.saveAll(created);
+        return result.toResult();
+    }
+
+    private void finish(AccountLedger ledger,
+                        Map<Long, ReconciliationCheckpoint> checkpoints,
+                        List<ReconciliationCheckpoint> created,
+                        ChunkResult result) {
+        if (ledger == null) {
+            return;
+        }
+        result.accountCount++;
+        if (!Objects.equals(ledger.expectedBalance, ledger.accountBalance)) {
+            result.add(new Reconciliation.Mismatch(ledger.accountNumber, null,
+                    ledger.expectedBalance, ledger.accountBalance));
+        }
+
+        ReconciliationCheckpoint checkpoint = checkpoints.get(ledger.accountId);
+        if (checkpoint == null) {
+            checkpoint = ReconciliationCheckpoint.builder()
+                    .accountId(ledger.accountId)
+                    .build();
+            created.add(checkpoint);
+        }
+        checkpoint.setLastTransactionAt(ledger.lastTransactionAt);
+        checkpoint.setLastTransactionId(ledger.lastTransactionId);
+        checkpoint.setLedgerBalance(ledger.expectedBalance);
+    }
+
+    /**
+     * 계좌 하나를 읽는 동안의 계산 상태
+     */
+    private static class AccountLedger {
+        private final Long accountId;
+        private final String accountNumber;
+        private final Long accountBalance;
+        private Long expectedBalance;
+        private LocalDateTime lastTransactionAt;
+        private Long lastTransactionId;
+
+        private AccountLedger(ReconciliationRow row, ReconciliationCheckpoint checkpoint) {
+            this.accountId = row.accountId();
+            this.accountNumber = row.accountNumber();
+            this.accountBalance = row.accountBalance();
+            this.expectedBalance = checkpoint == null ? null : checkpoint.getLedgerBalance();
+        }
+
+        private void apply(ReconciliationRow row, ChunkResult result) {
+            result.transactionCount++;
+            if (expectedBalance != null) {
+                long expected = row.transactionType() == TransactionType.USE
+                        ? expectedBalance - row.amount()
+                        : expectedBalance + row.amount();
+                if (expected != row.balanceSnapshot()) {
+                    result.add(new Reconciliation.Mismatch(accountNumber, row.transactionId(),
+                            expected, row.balanceSnapshot()));
+                }
+            }
+            // 어긋난 거래가 있어도 그 스냅샷부터 다시 이어서 계산한다. (어긋난 곳마다 한 번씩만 보고)
+            expectedBalance = row.balanceSnapshot();
+            lastTransactionAt = row.transactionAt();
+            lastTransactionId = row.id();
+        }
+    }
+
+    private static class ChunkResult {
+        private final int maxMismatches;
+        private final List<Reconciliation.Mismatch> mismatches = new ArrayList<>();
+        private long accountCount;
+        private long transactionCount;
+        private long mismatchCount;
+
+        private ChunkResult(int maxMismatches) {
+            this.maxMismatches = maxMismatches;
+        }
+
+        private void add(Reconciliation.Mismatch mismatch) {
+            log.warn("Balance mismatch. accountNumber : {}, transactionId : {}, expected : {}, actual : {}",
+                    mismatch.getAccountNumber(), mismatch.getTransactionId(),
+                    mismatch.getExpectedBalance(), mismatch.getActualBalance());
+            mismatchCount++;
+            if (mismatches.size() < maxMismatches) {
+                mismatches.add(mismatch);
+            }
+        }
+
+        private Reconciliation.Result toResult() {
+            return new Reconciliation.Result(accountCount, transactionCount, mismatchCount, mismatches);
+        }
+    }
+}
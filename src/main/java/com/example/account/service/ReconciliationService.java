@@ -0,0 +1,102 @@
+package com.example.account.service;
+
+import com.example.account.dto.Reconciliation;
+import com.example.account.exception.AccountException;
+import com.example.account.repository.AccountRepository;
+import com.example.account.type.ErrorCode;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 원장과 계좌 잔액 대조
+ * 계좌 id 범위를 chunk-size 단위까지 나눠 fork/join pool 에서 나눠 처리하고 결과를 합친다.
+ * chunk 마다 트랜잭션 하나로 읽고 대조 위치를 저장하므로, 중간에 실패해도 다시 돌리면 남은 거래만 읽는다.
+ * 노드 안에서는 한 번에 하나만 실행한다.
+ */
+@Slf4j
+@Service
+public class ReconciliationService {
+    private final AccountRepository accountRepository;
+    private final ReconciliationChunkService reconciliationChunkService;
+    private final ForkJoinPool pool;
+    private final int chunkSize;
+    private final int maxMismatches;
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    public ReconciliationService(
+            AccountRepository accountRepository,
+            ReconciliationChunkService reconciliationChunkService,
+            @Value("${account.reconciliation.parallelism:4}") int parallelism,
+            @Value("${account.reconciliation.chunk-size:1000}") int chunkSize,
+            @Value("${account.reconciliation.max-mismatches:1000}") int maxMismatches
+    ) {
+        this.accountRepository = accountRepository;
+        this.reconciliationChunkService = reconciliationChunkService;
+        this.pool = new ForkJoinPool(parallelism);
+        this.chunkSize = chunkSize;
+        this.maxMismatches = maxMismatches;
+    }
+
+    @Scheduled(cron = "${account.reconciliation.cron:-}")
+    public void reconcileNightly() {
+        reconcile();
+    }
+
+    public Reconciliation.Result reconcile() {
+        if (!running.compareAndSet(false, true)) {
+            throw new AccountException(ErrorCode.RECONCILIATION_IN_PROGRESS);
+        }
+        try {
+            long startedAt = System.nanoTime();
+            long maxAccountId = accountRepository.findMaxId().orElse(0L);
+            Reconciliation.Result result = pool.invoke(new ChunkTask(1L, maxAccountId));
+            log.info("Reconciliation finished. accounts : {}, transactions : {}, mismatches : {}, elapsed : {}ms",
+                    result.getAccountCount(), result.getTransactionCount(), result.getMismatchCount(),
+                    (System.nanoTime() - startedAt) / 1_000_000);
+            return result;
+        } finally {
+            running.set(false);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+
+    /**
+     * [fromAccountId, toAccountId] 구간, chunk-size 보다 크면 반으로 나눈다.
+     */
+    private class ChunkTask extends RecursiveTask<Reconciliation.Result> {
+        private final long fromAccountId;
+        private final long toAccountId;
+
+        private ChunkTask(long fromAccountId, long toAccountId) {
+            this.fromAccountId = fromAccountId;
+            this.toAccountId = toAccountId;
+        }
+
+        @Override
+        protected Reconciliation.Result compute() {
+            if (toAccountId < fromAccountId) {
+                return Reconciliation.Result.EMPTY;
+            }
+            if (toAccountId - fromAccountId < chunkSize) {
+                return reconciliationChunkService.reconcile(fromAccountId, toAccountId, maxMismatches);
+            }
+            long middle = fromAccountId + (toAccountId - fromAccountId) / 2;
+            ChunkTask left = new ChunkTask(fromAccountId, middle);
+            ChunkTask right = new ChunkTask(middle + 1, toAccountId);
+            left.fork();
+            Reconciliation.Result rightResult = right.compute();
+            return left.join().merge(rightResult, maxMismatches);
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.example.account.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RBucket;
+import org.redisson.api.RedissonClient;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * 여러 노드가 공유하는 Idempotency-Key 저장소 (redis key 의 TTL 로 만료)
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "account.idempotency.store", havingValue = "redis", matchIfMissing = true)
+public class RedisIdempotencyStore implements IdempotencyStore {
+    private final RedissonClient redissonClient;
+    private final Duration ttl;
+    private final Duration pendingTtl;
+
+    public RedisIdempotencyStore(
+            RedissonClient redissonClient,
+            @Value("${account.idempotency.ttl:24h}") Duration ttl,
+            @Value("${account.idempotency.pending-ttl:30s}") Duration pendingTtl) {
+        this.redissonClient = redissonClient;
+        this.ttl = ttl;
+        this.pendingTtl = pendingTtl;
+    }
+
+    @Override
+    public Optional<Object> reserve(String key) {
+        RBucket<Object> bucket = getBucket(key);
+        // 확인하는 사이에 만료되면 한 번 더 잡아본다.
+        for (int attempt = 0; attempt < 2; attempt++) {
+            if (bucket.setIfAbsent(PENDING, pendingTtl)) {
+                return Optional.empty();
+            }
+            Object stored = bucket.get();
+            if (stored != null) {
+                return Optional.of(stored);
+            }
+        }
+        return Optional.of(PENDING);
+    }
+
+    @Override
+    public void complete(String key, Object response) {
+        try {
+            getBucket(key).set(response, ttl);
+        } catch (RuntimeException e) { // 저장하지 못해도 처리 결과는 그대로 응답한다.
+            log.error("Failed to store idempotent response. key : {}", key, e);
+        }
+    }
+
+    @Override
+    public void release(String key) {
+        try {
+            getBucket(key).compareAndSet(PENDING, null);
+        } catch (RuntimeException e) { // pending-ttl 이 지나면 풀리므로 응답은 그대로 보낸다.
+            log.error("Failed to release idempotency key : {}", key, e);
+        }
+    }
+
+    private RBucket<Object> getBucket(String key) {
+        return redissonClient.getBucket("IDEM:" + key);
+    }
+}
@@ -0,0 +1,79 @@
+package com.example.account.service;
+
+import com.example.account.exception.AccountException;
+import com.example.account.type.ErrorCode;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RLock;
+import org.redisson.api.RedissonClient;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "account.lock.type", havingValue = "redis", matchIfMissing = true)
+public class RedisLockService implements LockService {
+    private final RedissonClient redissonClient;
+    // 비동기 lock 소유자 id. 실제 thread id(양수)와 겹치지 않도록 음수를 쓴다.
+    private final AtomicLong asyncOwnerIds = new AtomicLong(Long.MIN_VALUE);
+
+    @Override
+    public String lock(String accountNumber){
+        RLock lock = redissonClient.getLock(getLockKey(accountNumber)); // redisson에서 제공하는 기본적인 rock기능
+        log.debug("Trying lock for accountNumber : {}",accountNumber);
+
+        try {
+            boolean isLock = lock.tryLock(1,15, TimeUnit.SECONDS); // 1초동안 기다리고 5초동안 가지고 있다가 풀어준다.
+            if(!isLock){// rock붙들기 실패
+                log.error("====Lock acquisition failed======");
+                throw new AccountException(ErrorCode.ACCOUNT_TRANSACTION_LOCK);
+            }
+        }catch (AccountException e){ // globalExceptionHandler 가 받을수있도록
+            throw e;
+        }catch (Exception e){
+            log.error("Redis lock failed", e);
+        }
+
+        return "get success";
+    }
+
+    @Override
+    public void unlock(String accountNumber){
+        log.debug("Unlock for accountNumber: {}", accountNumber);
+        redissonClient.getLock(getLockKey(accountNumber)).unlock();
+    }
+
+    @Override
+    public CompletableFuture<Long> lockAsync(String accountNumber) {
+        long ownerId = asyncOwnerIds.getAndIncrement();
+        log.debug("Trying async lock for accountNumber : {}", accountNumber);
+
+        return redissonClient.getLock(getLockKey(accountNumber))
+                .tryLockAsync(1, 15, TimeUnit.SECONDS, ownerId)
+                .toCompletableFuture()
+                .thenApply(isLock -> {
+                    if (!isLock) {
+                        log.error("====Lock acquisition failed======");
+                        throw new AccountException(ErrorCode.ACCOUNT_TRANSACTION_LOCK);
+                    }
+                    return ownerId;
+                });
+    }
+
+    @Override
+    public CompletableFuture<Void> unlockAsync(String accountNumber, long ownerId) {
+        log.debug("Async unlock for accountNumber: {}", accountNumber);
+        return redissonClient.getLock(getLockKey(accountNumber))
+                .unlockAsync(ownerId)
+                .toCompletableFuture();
+    }
+
+    private static String getLockKey(String accountNumber) {
+        return "ACLK:" + accountNumber;
+    }
+}
@@ -0,0 +1,76 @@
+package com.example.account.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.function.Supplier;
+
+/**
+ * 읽기 전용 트랜잭션을 replica 로 보내도 되는지 정한다. (account.datasource.replica.enabled=true 일 때)
+ * replica 는 primary 보다 늦을 수 있으므로, 계좌가 바뀐 사용자는 max-staleness 동안 primary 에서 읽는다.
+ * 계좌 목록 near cache 무효화(다른 노드의 변경 포함)와 같은 시점에 기록해서 오래된 목록이 cache 에 들어가지 않게 한다.
+ * max-staleness 가 0 이면 replica 지연을 그대로 받아들인다.
+ */
+@Component
+public class ReplicaReadPolicy {
+    private static final ThreadLocal<Boolean> PRIMARY_ONLY = new ThreadLocal<>();
+
+    private final boolean enabled;
+    private final Cache<Long, Boolean> changedUsers;
+
+    public ReplicaReadPolicy(
+            @Value("${account.datasource.replica.enabled:false}") boolean enabled,
+            @Value("${account.datasource.replica.max-staleness:2s}") Duration maxStaleness,
+            @Value("${account.datasource.replica.maximum-size:100000}") long maximumSize) {
+        this.enabled = enabled;
+        this.changedUsers = enabled && !maxStaleness.isZero()
+                ? Caffeine.newBuilder()
+                        .maximumSize(maximumSize)
+                        .expireAfterWrite(maxStaleness)
+                        .build()
+                : null;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 라우팅 DataSource 가 connection 을 잡을 때 확인한다.
+     * 쓰기 트랜잭션, 트랜잭션 밖, readFromPrimary 안에서는 primary 를 쓴다.
+     */
+    public boolean isReplicaRead() {
+        return TransactionSynchronizationManager.isCurrentTransactionReadOnly()
+                && PRIMARY_ONLY.get() == null;
+    }
+
+    public void recordChange(Long userId) {
+        if (changedUsers != null) {
+            changedUsers.put(userId, Boolean.TRUE);
+        }
+    }
+
+    public boolean isRecentlyChanged(Long userId) {
+        return changedUsers != null && changedUsers.getIfPresent(userId) != null;
+    }
+
+    /**
+     * 읽기 전용 트랜잭션이어도 primary 에서 읽는다.
+     * connection 은 첫 query 때 잡으므로 트랜잭션 안이라도 아직 query 를 보내기 전에 불러야 한다.
+     */
+    public <T> T readFromPrimary(Supplier<T> reader) {
+        if (PRIMARY_ONLY.get() != null) {
+            return reader.get();
+        }
+        PRIMARY_ONLY.set(Boolean.TRUE);
+        try {
+            return reader.get();
+        } finally {
+            PRIMARY_ONLY.remove();
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.account.service;
+
+import com.example.account.exception.AccountException;
+import lombok.RequiredArgsConstructor;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+/**
+ * 계좌/거래 서비스의 public 메서드 처리 시간과 결과를 기록한다.
+ * 트랜잭션 advice 바깥에서 재야 커밋 시간까지 포함되므로 우선순위를 높게 둔다.
+ */
+@Aspect
+@Component
+@Order(0)
+@RequiredArgsConstructor
+public class ServiceMetricsAspect {
+    private final AccountMetrics accountMetrics;
+
+    @Around("execution(public * com.example.account.service.TransactionService.*(..))"
+            + " || execution(public * com.example.account.service.AccountService.*(..))")
+    public Object aroundServiceMethod(ProceedingJoinPoint pjp) throws Throwable {
+        long start = System.nanoTime();
+        try {
+            Object result = pjp.proceed();
+            record(pjp, start, null, false);
+            return result;
+        } catch (AccountException e) {
+            record(pjp, start, e, true);
+            throw e;
+        } catch (Throwable e) {
+            record(pjp, start, null, true);
+            throw e;
+        }
+    }
+
+    private void record(ProceedingJoinPoint pjp, long start, AccountException e, boolean failed) {
+        accountMetrics.recordServiceCall(
+                ((MethodSignature) pjp.getSignature()).getMethod(),
+                System.nanoTime() - start,
+                e == null ? null : e.getErrorCode(),
+                failed);
+    }
+}
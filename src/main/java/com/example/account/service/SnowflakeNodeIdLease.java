@@ -0,0 +1,122 @@
+package com.example.account.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RBucket;
+import org.redisson.api.RedissonClient;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.UUID;
+import java.util.function.LongSupplier;
+
+/**
+ * 거래 id 노드 번호(0~1023)를 redis 에서 빌린다.
+ * INCR 로 시작 번호를 정하고 비어 있는 번호를 SETNX + TTL 로 잡는다.
+ * 살아 있는 동안 주기적으로 TTL 을 늘리고, 종료할 때 반납한다.
+ * 노드가 죽으면 TTL 뒤에 다른 노드가 같은 번호를 쓸 수 있다.
+ * 갱신이 늦어져 번호를 다른 노드에 뺏기면 비어 있는 번호를 다시 빌려서 바꾸고,
+ * 마지막 갱신에서 TTL 이 지난 동안(다른 노드가 가져갔을 수 있는 동안)은 번호를 주지 않는다. (id 발급 실패)
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "account.transaction-id.type", havingValue = "snowflake", matchIfMissing = true)
+public class SnowflakeNodeIdLease {
+    private static final int NODE_COUNT = 1024;
+    private static final String SEQUENCE_KEY = "TXID:NODE:SEQ";
+
+    private final RedissonClient redissonClient;
+    private final Duration ttl;
+    private final LongSupplier clock;
+    private final String owner = UUID.randomUUID().toString();
+    private volatile Lease leased;
+
+    @Autowired
+    public SnowflakeNodeIdLease(
+            RedissonClient redissonClient,
+            @Value("${account.transaction-id.lease-ttl:30s}") Duration ttl) {
+        this(redissonClient, ttl, System::currentTimeMillis);
+    }
+
+    SnowflakeNodeIdLease(RedissonClient redissonClient, Duration ttl, LongSupplier clock) {
+        this.redissonClient = redissonClient;
+        this.ttl = ttl;
+        this.clock = clock;
+    }
+
+    /**
+     * @return 빌린 노드 번호, 1024개가 모두 사용 중이면 IllegalStateException
+     */
+    public synchronized long acquire() {
+        long start = redissonClient.getAtomicLong(SEQUENCE_KEY).getAndIncrement();
+        for (int i = 0; i < NODE_COUNT; i++) {
+            long nodeId = Math.floorMod(start + i, NODE_COUNT);
+            RBucket<String> bucket = getBucket(nodeId);
+            long now = clock.getAsLong();
+            if (bucket.setIfAbsent(owner, ttl)) {
+                leased = new Lease(nodeId, bucket, now + ttl.toMillis());
+                log.info("Leased transaction id node-id : {}", nodeId);
+                return nodeId;
+            }
+        }
+        throw new IllegalStateException("No free transaction id node-id in redis");
+    }
+
+    /**
+     * id 를 만들 때마다 부른다. 빌린 번호가 만료됐을 수 있으면 IllegalStateException
+     */
+    public long currentNodeId() {
+        Lease lease = leased;
+        if (lease == null || clock.getAsLong() >= lease.validUntilMillis()) {
+            throw new IllegalStateException("Transaction id node-id lease is not held");
+        }
+        return lease.nodeId();
+    }
+
+    @Scheduled(fixedDelayString = "${account.transaction-id.lease-renew-interval:10s}")
+    public synchronized void renew() {
+        Lease lease = leased;
+        if (lease == null) {
+            return;
+        }
+        try {
+            long now = clock.getAsLong();
+            RBucket<String> bucket = lease.bucket();
+            if ((owner.equals(bucket.get()) && bucket.expire(ttl)) || bucket.setIfAbsent(owner, ttl)) {
+                leased = new Lease(lease.nodeId(), bucket, now + ttl.toMillis());
+                return;
+            }
+            // 갱신이 TTL 보다 늦어져서 다른 노드가 가져갔다. 같은 번호로 발급하면 id 가 겹치므로 다른 번호로 바꾼다.
+            log.error("Lost transaction id node-id lease. key : {}", bucket.getName());
+            leased = null;
+            acquire();
+        } catch (RuntimeException e) {
+            log.error("Failed to renew transaction id node-id lease", e);
+        }
+    }
+
+    @PreDestroy
+    public void release() {
+        Lease lease = leased;
+        if (lease == null) {
+            return;
+        }
+        try {
+            lease.bucket().compareAndSet(owner, null);
+        } catch (RuntimeException e) { // TTL 이 지나면 풀린다.
+            log.warn("Failed to release transaction id node-id lease", e);
+        }
+    }
+
+    private RBucket<String> getBucket(long nodeId) {
+        return redissonClient.getBucket("TXID:NODE:" + nodeId);
+    }
+
+    // 노드 번호와 만료 시각을 함께 바꿔서 id 를 만드는 스레드가 섞어 읽지 않게 한다.
+    private record Lease(long nodeId, RBucket<String> bucket, long validUntilMillis) {
+    }
+}
@@ -0,0 +1,96 @@
+package com.example.account.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * 시간순 거래 id
+ * 41bit 밀리초(2024-01-01 기준) + 10bit 노드 + 12bit 순번을 Crockford base32 13자로 표현한다.
+ * 자리수가 고정이고 문자표가 오름차순이라 문자열 순서가 생성 순서와 같아서
+ * transaction_id index 에는 항상 오른쪽 끝에 insert 된다.
+ * 같은 밀리초에 순번을 다 쓰거나 시계가 뒤로 가면 다음 밀리초를 미리 당겨 쓰므로 노드 안에서는 항상 증가한다.
+ * 노드 id(0~1023)는 노드마다 달라야 한다. 설정하지 않으면(-1) 시작할 때 SnowflakeNodeIdLease 로 redis 에서 빌리고,
+ * 빌린 번호가 바뀌면 다음 id 부터 새 번호를 쓴다. (빌린 번호가 없는 동안은 id 를 만들지 않는다)
+ */
+@Component
+@ConditionalOnProperty(name = "account.transaction-id.type", havingValue = "snowflake", matchIfMissing = true)
+public class SnowflakeTransactionIdGenerator implements TransactionIdGenerator {
+    static final long EPOCH_MILLIS = 1704067200000L; // 2024-01-01T00:00:00Z
+    private static final int NODE_BITS = 10;
+    private static final int SEQUENCE_BITS = 12;
+    private static final long MAX_NODE_ID = (1L << NODE_BITS) - 1;
+    private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+    private static final int ENCODED_LENGTH = 13; // 63bit / 5bit
+    private static final char[] ALPHABET = "0123456789ABCDEFGHJKMNPQRSTVWXYZ".toCharArray();
+
+    private final LongSupplier nodeId;
+    private final LongSupplier clock;
+    // 마지막으로 발급한 (밀리초 << SEQUENCE_BITS | 순번)
+    private final AtomicLong lastState = new AtomicLong();
+
+    @Autowired
+    public SnowflakeTransactionIdGenerator(
+            @Value("${account.transaction-id.node-id:-1}") long nodeId,
+            SnowflakeNodeIdLease nodeIdLease) {
+        this(nodeId < 0 ? leased(nodeIdLease) : fixed(nodeId), System::currentTimeMillis);
+    }
+
+    public SnowflakeTransactionIdGenerator(long nodeId) {
+        this(nodeId, System::currentTimeMillis);
+    }
+
+    SnowflakeTransactionIdGenerator(long nodeId, LongSupplier clock) {
+        this(fixed(nodeId), clock);
+    }
+
+    SnowflakeTransactionIdGenerator(LongSupplier nodeId, LongSupplier clock) {
+        this.nodeId = nodeId;
+        this.clock = clock;
+    }
+
+    private static LongSupplier fixed(long nodeId) {
+        if (nodeId < 0 || nodeId > MAX_NODE_ID) {
+            throw new IllegalArgumentException("account.transaction-id.node-id must be 0~" + MAX_NODE_ID);
+        }
+        return () -> nodeId;
+    }
+
+    private static LongSupplier leased(SnowflakeNodeIdLease nodeIdLease) {
+        nodeIdLease.acquire();
+        return nodeIdLease::currentNodeId;
+    }
+
+    @Override
+    public String generate() {
+        return encode(nextId());
+    }
+
+    long nextId() {
+        long nodeBits = nodeId.getAsLong() << SEQUENCE_BITS;
+        long now = (clock.getAsLong() - EPOCH_MILLIS) << SEQUENCE_BITS;
+        long last;
+        long next;
+        do {
+            last = lastState.get();
+            // 순번이 넘치면 밀리초 자리로 올라간다.
+            next = now > last ? now : last + 1;
+        } while (!lastState.compareAndSet(last, next));
+
+        long millis = next >>> SEQUENCE_BITS;
+        return (millis << (NODE_BITS + SEQUENCE_BITS)) | nodeBits | (next & SEQUENCE_MASK);
+    }
+
+    static String encode(long id) {
+        char[] chars = new char[ENCODED_LENGTH];
+        for (int i = ENCODED_LENGTH - 1; i >= 0; i--) {
+            chars[i] = ALPHABET[(int) (id & 31)];
+            id >>>= 5;
+        }
+        return new String(chars);
+    }
+}
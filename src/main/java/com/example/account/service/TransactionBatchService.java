@@ -0,0 +1,88 @@
+package com.example.account.service;
+
+import com.example.account.dto.UseBalance;
+import com.example.account.dto.UseBalanceBatch;
+import com.example.account.exception.AccountException;
+import com.example.account.type.ErrorCode;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 잔액 사용 일괄 처리
+ * 요청을 계좌번호별로 묶어서 계좌마다 lock 을 한 번만 잡고 처리한다.
+ * 결과는 요청과 같은 순서로 돌려준다.
+ * 낙관적 모드에서는 lock 없이 처리하고, version 충돌이 나면 그 계좌 묶음만 다시 실행한다.
+ * engine 모드에서는 계좌 묶음을 LedgerEngine 의 shard 에 순서대로 넣는다.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class TransactionBatchService {
+    private final LockService lockService;
+    private final TransactionService transactionService;
+    private final BalanceUpdatePolicy balanceUpdatePolicy;
+    private final LedgerEngine ledgerEngine;
+
+    public List<UseBalanceBatch.Result> useBalance(List<UseBalance.Request> requests) {
+        Map<String, List<Integer>> indexesByAccount = new LinkedHashMap<>();
+        for (int i = 0; i < requests.size(); i++) {
+            indexesByAccount.computeIfAbsent(requests.get(i).getAccountNumber(), k -> new ArrayList<>())
+                    .add(i);
+        }
+
+        UseBalanceBatch.Result[] results = new UseBalanceBatch.Result[requests.size()];
+        indexesByAccount.forEach((accountNumber, indexes) -> {
+            List<UseBalance.Request> group = indexes.stream().map(requests::get).toList();
+            List<UseBalanceBatch.Result> groupResults = useBalance(accountNumber, group);
+            for (int i = 0; i < indexes.size(); i++) {
+                results[indexes.get(i)] = groupResults.get(i);
+            }
+        });
+        return Arrays.asList(results);
+    }
+
+    private List<UseBalanceBatch.Result> useBalance(String accountNumber, List<UseBalance.Request> group) {
+        if (ledgerEngine.isEnabled()) {
+            return ledgerEngine.useBalanceBatch(accountNumber, group);
+        }
+        if (balanceUpdatePolicy.isLockFree()) {
+            return useBalanceWithRetry(accountNumber, group);
+        }
+        try {
+            lockService.lock(accountNumber);
+        } catch (AccountException e) {
+            log.error("Failed to lock account for batch. accountNumber : {}", accountNumber);
+            return group.stream()
+                    .map(request -> UseBalanceBatch.Result.failed(request, e.getErrorCode()))
+                    .toList();
+        }
+        try {
+            return transactionService.useBalanceBatch(accountNumber, group);
+        } finally {
+            lockService.unlock(accountNumber);
+        }
+    }
+
+    private List<UseBalanceBatch.Result> useBalanceWithRetry(String accountNumber, List<UseBalance.Request> group) {
+        for (int attempt = 0; ; attempt++) {
+            try {
+                return transactionService.useBalanceBatch(accountNumber, group);
+            } catch (OptimisticLockingFailureException e) {
+                if (attempt >= balanceUpdatePolicy.getMaxRetries()) {
+                    log.error("Optimistic batch update aborted. accountNumber : {}", accountNumber);
+                    return group.stream()
+                            .map(request -> UseBalanceBatch.Result.failed(request, ErrorCode.ACCOUNT_TRANSACTION_LOCK))
+                            .toList();
+                }
+            }
+        }
+    }
+}
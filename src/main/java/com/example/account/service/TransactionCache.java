@@ -0,0 +1,58 @@
+package com.example.account.service;
+
+import com.example.account.dto.CacheStatsResponse;
+import com.example.account.dto.TransactionDto;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * 거래 조회 cache
+ * 거래 기록은 저장 이후 바뀌지 않으므로 무효화 없이 크기와 TTL 로만 내보낸다.
+ */
+@Component
+public class TransactionCache {
+    private final Cache<String, TransactionDto> cache;
+
+    public TransactionCache(
+            @Value("${account.cache.transaction.maximum-size:100000}") long maximumSize,
+            @Value("${account.cache.transaction.expire-after-write:10m}") Duration expireAfterWrite) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expireAfterWrite)
+                .recordStats()
+                .build();
+    }
+
+    public Optional<TransactionDto> get(String transactionId) {
+        return Optional.ofNullable(cache.getIfPresent(transactionId));
+    }
+
+    public void put(TransactionDto transactionDto) {
+        cache.put(transactionDto.getTransactionId(), transactionDto);
+    }
+
+    // 롤백된 거래가 조회되지 않도록 커밋 이후에 넣는다.
+    public void putAfterCommit(TransactionDto transactionDto) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            put(transactionDto);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                put(transactionDto);
+            }
+        });
+    }
+
+    public CacheStatsResponse stats() {
+        return CacheStatsResponse.from(cache.estimatedSize(), cache.stats());
+    }
+}
@@ -0,0 +1,9 @@
+package com.example.account.service;
+
+/**
+ * 거래 id(transactionId) 생성기
+ * account.transaction-id.type 으로 구현을 고른다. (snowflake : 시간순 13자, uuid : 무작위 32자)
+ */
+public interface TransactionIdGenerator {
+    String generate();
+}
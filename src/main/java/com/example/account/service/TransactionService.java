@@ -1,9 +1,17 @@
 package com.example.account.service;
 
+import com.example.account.aop.ReplicaRead;
 import com.example.account.domain.Account;
 import com.example.account.domain.AccountUser;
 import com.example.account.domain.Transaction;
+import com.example.account.dto.AccountBalance;
+import com.example.account.dto.AccountSnapshot;
+import com.example.account.dto.CacheStatsResponse;
+import com.example.account.dto.FailedTransaction;
 import com.example.account.dto.TransactionDto;
+import com.example.account.dto.TransactionHistory;
+import com.example.account.dto.UseBalance;
+import com.example.account.dto.UseBalanceBatch;
 import com.example.account.exception.AccountException;
 import com.example.account.repository.AccountRepository;
 import com.example.account.repository.AccountUserRepository;
@@ -15,31 +23,102 @@ import com.example.account.type.TransactionType;
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
-import java.util.UUID;
+import java.util.Optional;
+import java.util.stream.Collectors;
 
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class TransactionService {
+    private static final int MAX_HISTORY_PAGE_SIZE = 100;
+
     private final TransactionRepository transactionRepository;
     private final AccountUserRepository accountUserRepository;
     private final AccountRepository accountRepository;
+    private final TransactionCache transactionCache;
+    private final AccountCache accountCache;
+    private final BalanceUpdatePolicy balanceUpdatePolicy;
+    private final TransactionIdGenerator transactionIdGenerator;
+    private final HotAccountService hotAccountService;
+    private final ReplicaReadPolicy replicaReadPolicy;
+
     @Transactional
     public TransactionDto useBalance(Long userId, String accountNumber, Long amount){
+        if (balanceUpdatePolicy.isConditionalDebit() && !hotAccountService.isHot(accountNumber)) {
+            return debitBalance(userId, accountNumber, amount);
+        }
         AccountUser accountUser = accountUserRepository.findById(userId)
                 .orElseThrow(() -> new AccountException(ErrorCode.USER_NOT_FOUND));
         Account account = getAccount(accountNumber);
         validateUseBalance(accountUser, account, amount);
+        if (account.isSplit()) {
+            return useSplitBalance(account, amount);
+        }
 
         account.useBalance(amount);
+        accountCache.invalidateAfterCommit(account.getAccountUser().getId());
 
         return TransactionDto.fromEntity(saveAndGetTransaction(TransactionType.USE,TransactionResultType.S, amount, account));
     }
 
+    /**
+     * 조건부 UPDATE 한 번으로 검증과 차감을 같이 한다. (lock 없이도 잔액이 음수가 되지 않는다.)
+     * 반영된 행이 없을 때만 계좌를 읽어서 실패 이유를 가린다.
+     */
+    private TransactionDto debitBalance(Long userId, String accountNumber, Long amount) {
+        if (accountRepository.debit(accountNumber, userId, amount) == 0) {
+            throw new AccountException(getDebitFailure(userId, accountNumber, amount));
+        }
+        // 방금 차감한 행은 이 트랜잭션이 잡고 있으므로 다른 차감이 끼어들지 않은 잔액이다.
+        AccountBalance accountBalance = accountRepository.findBalanceByAccountNumber(accountNumber)
+                .orElseThrow(() -> new AccountException(ErrorCode.ACCOUNT_NOT_FOUND));
+        accountCache.invalidateAfterCommit(userId);
+
+        Transaction transaction = transactionRepository.save(buildTransaction(
+                TransactionType.USE, TransactionResultType.S, amount,
+                accountRepository.getReferenceById(accountBalance.accountId()), accountBalance.balance()));
+        TransactionDto transactionDto = TransactionDto.fromEntity(transaction, accountNumber);
+        transactionCache.putAfterCommit(transactionDto);
+        return transactionDto;
+    }
+
+    /**
+     * 분할 계좌는 bucket 하나에서 차감하고, 스냅샷은 차감 후의 bucket 합계로 남긴다.
+     */
+    private TransactionDto useSplitBalance(Account account, Long amount) {
+        long balance = hotAccountService.debit(account, amount);
+        accountCache.invalidateAfterCommit(account.getAccountUser().getId());
+
+        return TransactionDto.fromEntity(
+                saveAndGetTransaction(TransactionType.USE, TransactionResultType.S, amount, account, balance));
+    }
+
+    private ErrorCode getDebitFailure(Long userId, String accountNumber, Long amount) {
+        try {
+            AccountUser accountUser = accountUserRepository.findById(userId)
+                    .orElseThrow(() -> new AccountException(ErrorCode.USER_NOT_FOUND));
+            Account account = getAccount(accountNumber);
+            validateUseBalance(accountUser, account, amount);
+            if (account.isSplit()) { // 이 노드가 분할을 아직 모르던 경우, 다시 요청하면 bucket 에서 차감한다.
+                hotAccountService.evict(accountNumber);
+                return ErrorCode.ACCOUNT_TRANSACTION_LOCK;
+            }
+        } catch (AccountException e) {
+            return e.getErrorCode();
+        }
+        // 그 사이에 잔액이 채워진 경우, UPDATE 시점에는 잔액이 부족했다.
+        return ErrorCode.AMOUNT_EXCEED_BALANCE;
+    }
+
     private void validateUseBalance(AccountUser accountUser, Account account, Long amount) {
         if(!Objects.equals(accountUser.getId(), account.getAccountUser().getId())){
             throw new AccountException(ErrorCode.USER_ACCOUNT_UN_MATCH);
@@ -47,15 +126,114 @@ public class TransactionService {
         if(account.getAccountStatus() != AccountStatus.IN_USE){
             throw new AccountException(ErrorCode.ACCOUNT_ALREADY_UNREGISTERED);
         }
-        if(account.getBalance() < amount){
+        if(!account.isSplit() && account.getBalance() < amount){ // 분할 계좌는 bucket 에서 차감할 때 확인
             throw new AccountException(ErrorCode.AMOUNT_EXCEED_BALANCE);
         }
     }
 
+    /**
+     * 한 계좌에 대한 여러 건의 잔액 사용
+     * 계좌는 한 번만 읽고 요청 순서대로 차감한다.
+     * 실패한 건은 실패 거래로 남기고 다음 건을 계속 처리하며,
+     * 거래 기록은 마지막에 saveAll 로 한 번에 저장한다. (jdbc batch)
+     * 호출하는 쪽에서 해당 계좌의 lock 을 잡고 있어야 한다.
+     */
     @Transactional
-    public void saveFailedUseTransaction(String accountNumber, Long amount) {
-        Account account = getAccount(accountNumber);
-        saveAndGetTransaction(TransactionType.USE, TransactionResultType.F, amount, account);
+    public List<UseBalanceBatch.Result> useBalanceBatch(String accountNumber, List<UseBalance.Request> requests) {
+        Optional<Account> optionalAccount = accountRepository.findByAccountNumber(accountNumber);
+        if (optionalAccount.isEmpty()) {
+            return requests.stream()
+                    .map(request -> UseBalanceBatch.Result.failed(request, ErrorCode.ACCOUNT_NOT_FOUND))
+                    .toList();
+        }
+        Account account = optionalAccount.get();
+
+        List<Transaction> transactions = new ArrayList<>(requests.size());
+        List<ErrorCode> errorCodes = new ArrayList<>(requests.size());
+        Map<Long, Boolean> userExists = new HashMap<>();
+        for (UseBalance.Request request : requests) {
+            try {
+                validateUseBalance(request.getUserId(), userExists, account, request.getAmount());
+                if (account.isSplit()) {
+                    long balance = hotAccountService.debit(account, request.getAmount());
+                    transactions.add(buildTransaction(TransactionType.USE, TransactionResultType.S, request.getAmount(), account, balance));
+                } else {
+                    account.useBalance(request.getAmount());
+                    transactions.add(buildTransaction(TransactionType.USE, TransactionResultType.S, request.getAmount(), account));
+                }
+                errorCodes.add(null);
+            } catch (AccountException e) {
+                transactions.add(buildTransaction(TransactionType.USE, TransactionResultType.F, request.getAmount(), account));
+                errorCodes.add(e.getErrorCode());
+            }
+        }
+        transactionRepository.saveAll(transactions);
+        if (errorCodes.contains(null)) { // 한 건이라도 차감됐으면 잔액이 바뀐 것
+            accountCache.invalidateAfterCommit(account.getAccountUser().getId());
+        }
+
+        List<UseBalanceBatch.Result> results = new ArrayList<>(transactions.size());
+        for (int i = 0; i < transactions.size(); i++) {
+            TransactionDto transactionDto = TransactionDto.fromEntity(transactions.get(i));
+            transactionCache.putAfterCommit(transactionDto);
+            results.add(UseBalanceBatch.Result.from(transactionDto, errorCodes.get(i)));
+        }
+        return results;
+    }
+
+    // 소유주 본인이면 사용자가 있는 것이므로 다른 사용자일 때만 조회한다.
+    private void validateUseBalance(Long userId, Map<Long, Boolean> userExists, Account account, Long amount) {
+        if (!Objects.equals(userId, account.getAccountUser().getId())) {
+            if (!userExists.computeIfAbsent(userId, accountUserRepository::existsById)) {
+                throw new AccountException(ErrorCode.USER_NOT_FOUND);
+            }
+            throw new AccountException(ErrorCode.USER_ACCOUNT_UN_MATCH);
+        }
+        if (account.getAccountStatus() != AccountStatus.IN_USE) {
+            throw new AccountException(ErrorCode.ACCOUNT_ALREADY_UNREGISTERED);
+        }
+        if (!account.isSplit() && account.getBalance() < amount) {
+            throw new AccountException(ErrorCode.AMOUNT_EXCEED_BALANCE);
+        }
+    }
+
+    /**
+     * FailedTransactionWriter 가 모은 실패 거래를 한 번에 저장한다. (계좌는 query 한 번, 거래는 jdbc batch)
+     * 잔액 스냅샷은 저장할 때의 잔액이고, 그 사이 계좌가 없어졌으면 그 기록은 버린다.
+     * @return 저장한 건수
+     */
+    @Transactional
+    public int saveFailedTransactions(List<FailedTransaction> failedTransactions) {
+        Map<String, AccountSnapshot> accounts = new HashMap<>();
+        accountRepository.findSnapshotsByAccountNumbers(failedTransactions.stream()
+                        .map(FailedTransaction::accountNumber)
+                        .collect(Collectors.toSet()))
+                .forEach(account -> accounts.put(account.accountNumber(), account));
+
+        List<Transaction> transactions = new ArrayList<>(failedTransactions.size());
+        List<TransactionDto> transactionDtos = new ArrayList<>(failedTransactions.size());
+        for (FailedTransaction failedTransaction : failedTransactions) {
+            AccountSnapshot account = accounts.get(failedTransaction.accountNumber());
+            if (account == null) {
+                log.warn("Discarded failed transaction of missing account. accountNumber : {}",
+                        failedTransaction.accountNumber());
+                continue;
+            }
+            Transaction transaction = Transaction.builder()
+                    .transactionType(failedTransaction.transactionType())
+                    .transactionResultType(TransactionResultType.F)
+                    .account(accountRepository.getReferenceById(account.accountId()))
+                    .amount(failedTransaction.amount())
+                    .balanceSnapshot(account.balance())
+                    .transactionId(failedTransaction.transactionId())
+                    .transactionAt(failedTransaction.transactionAt())
+                    .build();
+            transactions.add(transaction);
+            transactionDtos.add(TransactionDto.fromEntity(transaction, account.accountNumber()));
+        }
+        transactionRepository.saveAll(transactions);
+        transactionDtos.forEach(transactionCache::putAfterCommit);
+        return transactions.size();
     }
 
     private Account getAccount(String accountNumber) {
@@ -68,26 +246,67 @@ public class TransactionService {
             , TransactionResultType transactionResultType
             , Long amount
             , Account account) {
-        return transactionRepository.save(
-                Transaction.builder()
-                        .transactionType(transactionType)
-                        .transactionResultType(transactionResultType)
-                        .account(account)
-                        .amount(amount)
-                        .balanceSnapshot(account.getBalance())
-                        .transactionId(UUID.randomUUID().toString().replace("-",""))
-                        .transactionAt(LocalDateTime.now())
-                        .build()
+        return saveAndGetTransaction(transactionType, transactionResultType, amount, account, getBalance(account));
+    }
+
+    private Transaction saveAndGetTransaction(
+            TransactionType transactionType
+            , TransactionResultType transactionResultType
+            , Long amount
+            , Account account
+            , Long balanceSnapshot) {
+        Transaction transaction = transactionRepository.save(
+                buildTransaction(transactionType, transactionResultType, amount, account, balanceSnapshot)
         );
+        transactionCache.putAfterCommit(TransactionDto.fromEntity(transaction));
+        return transaction;
+    }
+
+    private Transaction buildTransaction(
+            TransactionType transactionType
+            , TransactionResultType transactionResultType
+            , Long amount
+            , Account account) {
+        return buildTransaction(transactionType, transactionResultType, amount, account, getBalance(account));
+    }
+
+    // 분할 계좌의 잔액은 bucket 합계
+    private Long getBalance(Account account) {
+        return account.isSplit() ? hotAccountService.getBalance(account) : account.getBalance();
+    }
+
+    private Transaction buildTransaction(
+            TransactionType transactionType
+            , TransactionResultType transactionResultType
+            , Long amount
+            , Account account
+            , Long balanceSnapshot) {
+        return Transaction.builder()
+                .transactionType(transactionType)
+                .transactionResultType(transactionResultType)
+                .account(account)
+                .amount(amount)
+                .balanceSnapshot(balanceSnapshot)
+                .transactionId(transactionIdGenerator.generate())
+                .transactionAt(LocalDateTime.now())
+                .build();
     }
 
+    @Transactional
     public TransactionDto cancelBalance(String transactionId, String accountNumber, Long amount) {
         Transaction transaction = getTransactionByTransactionId(transactionId);
         Account account = getAccount(accountNumber);
 
         validateCancelBalance(transaction, account, amount);
 
+        if (account.isSplit()) {
+            long balance = hotAccountService.credit(account, amount);
+            accountCache.invalidateAfterCommit(account.getAccountUser().getId());
+            return TransactionDto.fromEntity(
+                    saveAndGetTransaction(TransactionType.CANCEL, TransactionResultType.S, amount, account, balance));
+        }
         account.cancelBalance(amount);
+        accountCache.invalidateAfterCommit(account.getAccountUser().getId());
 
         return TransactionDto.fromEntity(
                 saveAndGetTransaction(TransactionType.CANCEL, TransactionResultType.S, amount, account)
@@ -112,12 +331,53 @@ public class TransactionService {
         }
     }
 
-    public void saveFailedCancelTransaction(String accountNumber, Long amount) {
-        Account account = getAccount(accountNumber);
-        saveAndGetTransaction(TransactionType.CANCEL, TransactionResultType.F, amount, account);
+    public TransactionDto queryTransaction(String transactionId) {
+        return transactionCache.get(transactionId)
+                .orElseGet(() -> {
+                    TransactionDto transactionDto = findTransactionForQuery(transactionId);
+                    transactionCache.put(transactionDto);
+                    return transactionDto;
+                });
     }
 
-    public TransactionDto queryTransaction(String transactionId) {
-        return TransactionDto.fromEntity(getTransactionByTransactionId(transactionId));
+    // replica 에 아직 반영되지 않은 거래일 수 있으므로 없으면 primary 에서 한 번 더 찾는다.
+    private TransactionDto findTransactionForQuery(String transactionId) {
+        Optional<TransactionDto> transactionDto = transactionRepository.findDtoByTransactionId(transactionId);
+        if (transactionDto.isEmpty() && replicaReadPolicy.isEnabled()) {
+            transactionDto = replicaReadPolicy.readFromPrimary(
+                    () -> transactionRepository.findDtoByTransactionId(transactionId));
+        }
+        return transactionDto.orElseThrow(() -> new AccountException(ErrorCode.TRANSACTION_NOT_FOUND));
+    }
+
+    /**
+     * 계좌의 거래 내역을 최신순으로 size 건씩 조회한다.
+     * 한 건 더 읽어서 다음 페이지가 있을 때만 커서를 준다.
+     * 빈 페이지일 때만 계좌가 있는지 따로 확인한다.
+     */
+    @ReplicaRead
+    public TransactionHistory.Response getTransactionHistory(
+            String accountNumber, TransactionType transactionType, TransactionResultType resultType,
+            String cursor, int size) {
+        if (size < 1 || size > MAX_HISTORY_PAGE_SIZE) {
+            throw new AccountException(ErrorCode.INVALID_REQUEST);
+        }
+        TransactionHistory.Cursor from = TransactionHistory.Cursor.decode(cursor);
+
+        List<TransactionHistory.Item> items = transactionRepository.findHistory(accountNumber,
+                from.transactionAt(), from.id(), transactionType, resultType, Limit.of(size + 1));
+        if (items.isEmpty() && accountRepository.findIdByAccountNumber(accountNumber).isEmpty()) {
+            throw new AccountException(ErrorCode.ACCOUNT_NOT_FOUND);
+        }
+        String nextCursor = null;
+        if (items.size() > size) {
+            items = items.subList(0, size);
+            nextCursor = TransactionHistory.Cursor.after(items.get(size - 1)).encode();
+        }
+        return new TransactionHistory.Response(accountNumber, items, nextCursor);
+    }
+
+    public CacheStatsResponse getTransactionCacheStats() {
+        return transactionCache.stats();
     }
 }
@@ -0,0 +1,11 @@
+package com.example.account.type;
+
+/**
+ * 잔액 변경 시 동시성 제어 방식 (account.balance.update-mode)
+ */
+public enum BalanceUpdateMode {
+    LOCK,       // 계좌 lock 을 잡고 변경
+    OPTIMISTIC, // lock 없이 Account @Version 으로 충돌을 감지하고 재시도
+    CONDITIONAL, // 사용은 조건부 UPDATE 한 번으로 차감, 나머지는 OPTIMISTIC 과 같다.
+    ENGINE      // 잔액을 메모리 shard 에 두고 shard 마다 한 스레드가 사용/취소를 처리 (LedgerEngine)
+}
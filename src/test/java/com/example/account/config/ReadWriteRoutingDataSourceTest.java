@@ -0,0 +1,82 @@
+package com.example.account.config;
+
+import com.example.account.service.ReplicaReadPolicy;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * H2 in-memory DB 두 개를 primary, replica 로 두고 어느 쪽에서 읽는지 확인한다.
+ */
+class ReadWriteRoutingDataSourceTest {
+    private ReplicaReadPolicy replicaReadPolicy;
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate writeTransaction;
+    private TransactionTemplate readOnlyTransaction;
+
+    @BeforeEach
+    void setUp() {
+        DataSource primary = h2("routing_primary");
+        DataSource replica = h2("routing_replica");
+        replicaReadPolicy = new ReplicaReadPolicy(true, Duration.ofMinutes(1), 100);
+        DataSource dataSource = ReadWriteRoutingDataSource.create(primary, replica, replicaReadPolicy);
+
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+        writeTransaction = new TransactionTemplate(transactionManager);
+        readOnlyTransaction = new TransactionTemplate(transactionManager);
+        readOnlyTransaction.setReadOnly(true);
+    }
+
+    private static DataSource h2(String name) {
+        DriverManagerDataSource dataSource =
+                new DriverManagerDataSource("jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1", "sa", "");
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("create table if not exists node (name varchar(16))");
+        jdbcTemplate.execute("delete from node");
+        jdbcTemplate.update("insert into node values (?)", name);
+        return dataSource;
+    }
+
+    private String readNode() {
+        return jdbcTemplate.queryForObject("select name from node", String.class);
+    }
+
+    @Test
+    @DisplayName("읽기 전용 트랜잭션은 replica 에서 읽음")
+    void readOnlyTransaction() {
+        assertEquals("routing_replica", readOnlyTransaction.execute(status -> readNode()));
+    }
+
+    @Test
+    @DisplayName("쓰기 트랜잭션과 트랜잭션 밖의 조회는 primary")
+    void writeTransactionAndNoTransaction() {
+        assertEquals("routing_primary", writeTransaction.execute(status -> readNode()));
+        assertEquals("routing_primary", readNode());
+    }
+
+    @Test
+    @DisplayName("쓰기 트랜잭션 안에서 부른 읽기 전용 메서드는 primary 트랜잭션에 참여")
+    void readOnlyInsideWriteTransaction() {
+        assertEquals("routing_primary", writeTransaction.execute(
+                status -> readOnlyTransaction.execute(inner -> readNode())));
+    }
+
+    @Test
+    @DisplayName("readFromPrimary 안에서는 읽기 전용 트랜잭션도 primary")
+    void readFromPrimary() {
+        assertEquals("routing_primary", readOnlyTransaction.execute(
+                status -> replicaReadPolicy.readFromPrimary(this::readNode)));
+        // 벗어나면 다시 replica
+        assertEquals("routing_replica", readOnlyTransaction.execute(status -> readNode()));
+    }
+}
@@ -0,0 +1,110 @@
+package com.example.account.config;
+
+import com.example.account.domain.AccountUser;
+import com.example.account.service.ReplicaReadPolicy;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.boot.model.naming.CamelCaseToUnderscoresNamingStrategy;
+import org.hibernate.dialect.H2Dialect;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.orm.jpa.SharedEntityManagerCreator;
+import org.springframework.orm.jpa.persistenceunit.PersistenceManagedTypes;
+import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * 운영과 같은 JpaTransactionManager + Hibernate(H2 dialect) 로 라우팅을 확인한다.
+ * Hibernate 는 트랜잭션을 시작할 때 connection 을 준비하므로, LazyConnectionDataSourceProxy 가
+ * 첫 query 까지 고르는 것을 미루는지가 JDBC 만 쓸 때와 다르다.
+ */
+class ReadWriteRoutingJpaTest {
+    private ReplicaReadPolicy replicaReadPolicy;
+    private LocalContainerEntityManagerFactoryBean entityManagerFactoryBean;
+    private EntityManager entityManager;
+    private TransactionTemplate writeTransaction;
+    private TransactionTemplate readOnlyTransaction;
+
+    @BeforeEach
+    void setUp() {
+        DataSource primary = h2("jpa_primary");
+        DataSource replica = h2("jpa_replica");
+        replicaReadPolicy = new ReplicaReadPolicy(true, Duration.ofMinutes(1), 100);
+
+        HibernateJpaVendorAdapter vendorAdapter = new HibernateJpaVendorAdapter();
+        vendorAdapter.setDatabasePlatform(H2Dialect.class.getName());
+        entityManagerFactoryBean = new LocalContainerEntityManagerFactoryBean();
+        entityManagerFactoryBean.setDataSource(ReadWriteRoutingDataSource.create(primary, replica, replicaReadPolicy));
+        entityManagerFactoryBean.setJpaVendorAdapter(vendorAdapter);
+        entityManagerFactoryBean.setManagedTypes(PersistenceManagedTypes.of(AccountUser.class.getName()));
+        entityManagerFactoryBean.setJpaPropertyMap(Map.of(
+                "hibernate.physical_naming_strategy", CamelCaseToUnderscoresNamingStrategy.class.getName()));
+        entityManagerFactoryBean.afterPropertiesSet();
+
+        EntityManagerFactory entityManagerFactory = entityManagerFactoryBean.getObject();
+        entityManager = SharedEntityManagerCreator.createSharedEntityManager(entityManagerFactory);
+        JpaTransactionManager transactionManager = new JpaTransactionManager(entityManagerFactory);
+        writeTransaction = new TransactionTemplate(transactionManager);
+        readOnlyTransaction = new TransactionTemplate(transactionManager);
+        readOnlyTransaction.setReadOnly(true);
+    }
+
+    @AfterEach
+    void tearDown() {
+        entityManagerFactoryBean.destroy();
+    }
+
+    // 두 DB 에 같은 id 의 사용자를 이름만 다르게 넣는다.
+    private static DataSource h2(String name) {
+        DataSource dataSource = h2DataSource(name);
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("create table if not exists account_user (id bigint primary key"
+                + ", name varchar(32), account_count int not null, created_at timestamp, updated_at timestamp)");
+        jdbcTemplate.execute("delete from account_user");
+        jdbcTemplate.update("insert into account_user (id, name, account_count) values (1, ?, 0)", name);
+        return dataSource;
+    }
+
+    private String readName() {
+        return entityManager.find(AccountUser.class, 1L).getName();
+    }
+
+    @Test
+    @DisplayName("읽기 전용 JPA 트랜잭션은 replica 에서 읽음")
+    void readOnlyTransaction() {
+        assertEquals("jpa_replica", readOnlyTransaction.execute(status -> readName()));
+    }
+
+    @Test
+    @DisplayName("쓰기 JPA 트랜잭션은 primary 에서 읽고 쓴다")
+    void writeTransaction() {
+        assertEquals("jpa_primary", writeTransaction.execute(status -> readName()));
+        writeTransaction.executeWithoutResult(status ->
+                entityManager.find(AccountUser.class, 1L).setAccountCount(1));
+        assertEquals(1, new JdbcTemplate(h2DataSource("jpa_primary"))
+                .queryForObject("select account_count from account_user where id = 1", Integer.class));
+    }
+
+    @Test
+    @DisplayName("readFromPrimary 안에서는 읽기 전용 JPA 트랜잭션도 primary")
+    void readFromPrimary() {
+        assertEquals("jpa_primary", readOnlyTransaction.execute(
+                status -> replicaReadPolicy.readFromPrimary(this::readName)));
+    }
+
+    private static DataSource h2DataSource(String name) {
+        return new DriverManagerDataSource("jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1", "sa", "");
+    }
+}
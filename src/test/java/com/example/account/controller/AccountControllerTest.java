@@ -1,13 +1,21 @@
 package com.example.account.controller;
 
-import com.example.account.domain.Account;
+import com.example.account.dto.AccountBuckets;
+import com.example.account.dto.AccountDetail;
 import com.example.account.dto.AccountDto;
 import com.example.account.dto.CreateAccount;
 import com.example.account.dto.DeleteAccount;
+import com.example.account.dto.Reconciliation;
+import com.example.account.dto.TransactionHistory;
 import com.example.account.exception.AccountException;
 import com.example.account.service.AccountService;
+import com.example.account.service.HotAccountService;
+import com.example.account.service.ReconciliationService;
+import com.example.account.service.TransactionService;
 import com.example.account.type.AccountStatus;
 import com.example.account.type.ErrorCode;
+import com.example.account.type.TransactionResultType;
+import com.example.account.type.TransactionType;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -22,6 +30,8 @@ import java.util.List;
 
 import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.BDDMockito.given;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
@@ -34,6 +44,15 @@ class AccountControllerTest {
     @MockBean
     private AccountService accountService;
 
+    @MockBean
+    private TransactionService transactionService;
+
+    @MockBean
+    private ReconciliationService reconciliationService;
+
+    @MockBean
+    private HotAccountService hotAccountService;
+
     @Autowired
     private MockMvc mockMvc;
 
@@ -122,16 +141,16 @@ class AccountControllerTest {
     void successGetAccount() throws Exception {
         //given
         given(accountService.getAccount(anyLong()))
-                .willReturn(Account.builder()
-                        .accountNumber("3456")
-                        .accountStatus(AccountStatus.IN_USE)
-                        .build());
+                .willReturn(new AccountDetail(876L, 1L, "3456",
+                        AccountStatus.IN_USE, 1000L, LocalDateTime.now(), null));
         //when
         //then
         mockMvc.perform(get("/account/876"))
                 .andDo(print())
                 .andExpect(jsonPath("$.accountNumber").value("3456"))
                 .andExpect(jsonPath("$.accountStatus").value("IN_USE"))
+                .andExpect(jsonPath("$.userId").value(1))
+                .andExpect(jsonPath("$.accountUser").doesNotExist())
                 .andExpect(status().isOk());
     }
 
@@ -148,4 +167,68 @@ class AccountControllerTest {
                 .andExpect(jsonPath("$.errorMessage").value("계좌가 없습니다."))
                 .andExpect(status().isOk());
     }
-}
\ No newline at end of file
+
+    @Test
+    void successGetTransactionHistory() throws Exception {
+        //given
+        given(transactionService.getTransactionHistory(eq("1000000000"), eq(TransactionType.CANCEL),
+                isNull(), eq("abc"), eq(10)))
+                .willReturn(new TransactionHistory.Response("1000000000",
+                        List.of(new TransactionHistory.Item(1L, "T1", TransactionType.CANCEL,
+                                TransactionResultType.S, 100L, 1000L, LocalDateTime.now())),
+                        "next"));
+        //when
+        //then
+        mockMvc.perform(get("/account/1000000000/transactions")
+                        .param("transaction_type", "CANCEL")
+                        .param("cursor", "abc")
+                        .param("size", "10"))
+                .andDo(print())
+                .andExpect(jsonPath("$.accountNumber").value("1000000000"))
+                .andExpect(jsonPath("$.transactions[0].transactionId").value("T1"))
+                .andExpect(jsonPath("$.transactions[0].id").doesNotExist())
+                .andExpect(jsonPath("$.nextCursor").value("next"))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void successReconcile() throws Exception {
+        //given
+        given(reconciliationService.reconcile())
+                .willReturn(new Reconciliation.Result(2L, 30L, 1L,
+                        List.of(new Reconciliation.Mismatch("1000000000", null, 900L, 1000L))));
+        //when
+        //then
+        mockMvc.perform(post("/account/reconciliation"))
+                .andDo(print())
+                .andExpect(jsonPath("$.accountCount").value(2))
+                .andExpect(jsonPath("$.transactionCount").value(30))
+                .andExpect(jsonPath("$.mismatchCount").value(1))
+                .andExpect(jsonPath("$.mismatches[0].accountNumber").value("1000000000"))
+                .andExpect(jsonPath("$.mismatches[0].expectedBalance").value(900))
+                .andExpect(jsonPath("$.mismatches[0].actualBalance").value(1000))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void successChangeBuckets() throws Exception {
+        //given
+        given(hotAccountService.changeBuckets("1000000000", 8))
+                .willReturn(AccountDto.builder()
+                        .accountNumber("1000000000")
+                        .balance(30000L)
+                        .build());
+        //when
+        //then
+        mockMvc.perform(post("/account/buckets")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(
+                                new AccountBuckets.Request("1000000000", 8)
+                        )))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.accountNumber").value("1000000000"))
+                .andExpect(jsonPath("$.bucketCount").value(8))
+                .andExpect(jsonPath("$.balance").value(30000));
+    }
+}
@@ -0,0 +1,60 @@
+package com.example.account.controller;
+
+import com.example.account.service.LedgerExportService;
+import com.example.account.type.ExportFormat;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.boot.test.web.server.LocalServerPort;
+
+import java.io.OutputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.BDDMockito.willAnswer;
+
+/**
+ * 실제 Tomcat 에서 servlet async 기본 timeout 보다 오래 걸리는 내보내기가 끝까지 내려오는지 확인한다.
+ * 다른 SpringBootTest 와 context 가 달라서 내장 redis 와 H2 는 따로 띄운다.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.mvc.async.request-timeout=200ms",
+        "account.export.timeout=10s",
+        "spring.redis.port=16380",
+        "spring.datasource.url=jdbc:h2:mem:export-timeout"
+})
+class LedgerExportTimeoutTest {
+    private static final int LINES = 5;
+
+    @LocalServerPort
+    private int port;
+
+    @MockBean
+    private LedgerExportService ledgerExportService;
+
+    @Test
+    void streamPastAsyncRequestTimeout() throws Exception {
+        // given
+        willAnswer(invocation -> {
+            OutputStream outputStream = invocation.getArgument(1);
+            for (int i = 0; i < LINES; i++) { // 모두 합쳐 request-timeout(200ms) 보다 오래 걸린다.
+                outputStream.write(("line" + i + "\n").getBytes(StandardCharsets.UTF_8));
+                outputStream.flush();
+                Thread.sleep(150);
+            }
+            return (long) LINES;
+        }).given(ledgerExportService).export(any(ExportFormat.class), any(OutputStream.class));
+        // when
+        HttpResponse<String> response = HttpClient.newHttpClient().send(
+                HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/transaction/export")).build(),
+                HttpResponse.BodyHandlers.ofString());
+        // then
+        assertEquals(200, response.statusCode());
+        assertEquals("line0\nline1\nline2\nline3\nline4\n", response.body());
+    }
+}
@@ -0,0 +1,152 @@
+package com.example.account.controller;
+
+import com.example.account.domain.Account;
+import com.example.account.domain.AccountBucket;
+import com.example.account.domain.AccountUser;
+import com.example.account.domain.Transaction;
+import com.example.account.repository.AccountBucketRepository;
+import com.example.account.repository.AccountRepository;
+import com.example.account.repository.AccountUserRepository;
+import com.example.account.repository.TransactionRepository;
+import com.example.account.type.AccountStatus;
+import com.example.account.type.TransactionResultType;
+import com.example.account.type.TransactionType;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * 조회 API 가 DB 에 statement 를 한 번만 보내는지 Hibernate statistics 로 확인한다.
+ * 데이터는 repository 로 바로 넣어서 거래/계좌 목록 cache 를 거치지 않게 한다.
+ */
+@SpringBootTest
+class ReadQueryCountTest {
+    @Autowired
+    private WebApplicationContext context;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private AccountUserRepository accountUserRepository;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private AccountBucketRepository accountBucketRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    private MockMvc mockMvc;
+    private Statistics statistics;
+    private Long userId;
+    private Account account;
+    private Account splitAccount;
+    private Transaction transaction;
+
+    @BeforeEach
+    void setUp() {
+        mockMvc = MockMvcBuilders.webAppContextSetup(context).build();
+
+        AccountUser user = accountUserRepository.save(AccountUser.builder().name("query-count").build());
+        userId = user.getId();
+        account = accountRepository.save(account(user, "8" + (100_000_000L + userId), 1000L, 0));
+        splitAccount = accountRepository.save(account(user, "9" + (100_000_000L + userId), 0L, 2));
+        accountBucketRepository.saveAll(List.of(
+                bucket(splitAccount, 0, 300L),
+                bucket(splitAccount, 1, 200L)));
+        transaction = transactionRepository.save(Transaction.builder()
+                .account(account)
+                .transactionType(TransactionType.USE)
+                .transactionResultType(TransactionResultType.S)
+                .amount(100L)
+                .balanceSnapshot(1000L)
+                .transactionId("QC" + userId)
+                .transactionAt(LocalDateTime.now())
+                .build());
+
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+        statistics.clear();
+    }
+
+    @AfterEach
+    void disableStatistics() {
+        statistics.setStatisticsEnabled(false);
+    }
+
+    private static Account account(AccountUser user, String accountNumber, Long balance, int bucketCount) {
+        return Account.builder()
+                .accountUser(user)
+                .accountNumber(accountNumber)
+                .accountStatus(AccountStatus.IN_USE)
+                .balance(balance)
+                .bucketCount(bucketCount)
+                .registeredAt(LocalDateTime.now())
+                .build();
+    }
+
+    private static AccountBucket bucket(Account account, int bucketIndex, Long balance) {
+        return AccountBucket.builder()
+                .accountId(account.getId())
+                .bucketIndex(bucketIndex)
+                .balance(balance)
+                .build();
+    }
+
+    @Test
+    void getAccountsByUserId() throws Exception {
+        mockMvc.perform(get("/account").param("user_id", userId.toString()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].accountNumber").value(account.getAccountNumber()))
+                .andExpect(jsonPath("$[0].balance").value(1000))
+                .andExpect(jsonPath("$[1].accountNumber").value(splitAccount.getAccountNumber()))
+                .andExpect(jsonPath("$[1].balance").value(500)); // bucket 합계
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void getAccount() throws Exception {
+        mockMvc.perform(get("/account/" + splitAccount.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.accountNumber").value(splitAccount.getAccountNumber()))
+                .andExpect(jsonPath("$.userId").value(userId))
+                .andExpect(jsonPath("$.balance").value(500));
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void queryTransaction() throws Exception {
+        mockMvc.perform(get("/transaction/" + transaction.getTransactionId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.accountNumber").value(account.getAccountNumber()))
+                .andExpect(jsonPath("$.amount").value(100));
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void getTransactionHistory() throws Exception {
+        mockMvc.perform(get("/account/" + account.getAccountNumber() + "/transactions"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.transactions[0].transactionId").value(transaction.getTransactionId()));
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+}
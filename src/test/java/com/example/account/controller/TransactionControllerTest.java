@@ -1,9 +1,18 @@
 package com.example.account.controller;
 
+import com.example.account.dto.CacheStatsResponse;
 import com.example.account.dto.CancelBalance;
 import com.example.account.dto.TransactionDto;
 import com.example.account.dto.UseBalance;
+import com.example.account.dto.UseBalanceBatch;
+import com.example.account.exception.AccountException;
+import com.example.account.service.FailedTransactionWriter;
+import com.example.account.service.LedgerEngine;
+import com.example.account.service.LedgerExportService;
+import com.example.account.service.TransactionBatchService;
 import com.example.account.service.TransactionService;
+import com.example.account.type.ErrorCode;
+import com.example.account.type.ExportFormat;
 import com.example.account.type.TransactionResultType;
 import com.example.account.type.TransactionType;
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -13,16 +22,29 @@ import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
+import java.util.Arrays;
 
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.willAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @WebMvcTest (TransactionController.class)
@@ -30,6 +52,18 @@ class TransactionControllerTest {
     @MockBean
     private TransactionService transactionService;
 
+    @MockBean
+    private TransactionBatchService transactionBatchService;
+
+    @MockBean
+    private LedgerExportService ledgerExportService;
+
+    @MockBean
+    private LedgerEngine ledgerEngine;
+
+    @MockBean
+    private FailedTransactionWriter failedTransactionWriter;
+
     @Autowired
     private MockMvc mockMvc;
 
@@ -61,6 +95,126 @@ class TransactionControllerTest {
                 .andExpect(jsonPath("$.transactionId").value("transactionId"))
                 .andExpect(jsonPath("$.amount").value(12345));
     }
+
+    @Test
+    void failUseBalance() throws Exception {
+        // given
+        given(transactionService.useBalance(anyLong(), anyString(), anyLong()))
+                .willThrow(new AccountException(ErrorCode.AMOUNT_EXCEED_BALANCE));
+        // when
+        // then
+        mockMvc.perform(post("/transaction/use")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(
+                        new UseBalance.Request(1L, "2000000000",20000L)
+                ))
+        ).andDo(print())
+                .andExpect(jsonPath("$.errorCode").value("AMOUNT_EXCEED_BALANCE"));
+        // 실패 기록은 저장하지 않고 writer 에 넘긴다.
+        verify(failedTransactionWriter).record(TransactionType.USE, "2000000000", 20000L);
+    }
+
+    @Test
+    void failUseBalance_resultUnknown() throws Exception {
+        // given
+        given(ledgerEngine.isEnabled()).willReturn(true);
+        given(ledgerEngine.useBalance(anyLong(), anyString(), anyLong()))
+                .willThrow(new AccountException(ErrorCode.TRANSACTION_RESULT_UNKNOWN));
+        // when
+        // then
+        mockMvc.perform(post("/transaction/use")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(
+                        new UseBalance.Request(1L, "2000000000",20000L)
+                ))
+        ).andDo(print())
+                .andExpect(jsonPath("$.errorCode").value("TRANSACTION_RESULT_UNKNOWN"));
+        // 나중에 성공으로 커밋될 수 있으므로 실패 거래를 남기지 않는다.
+        verify(failedTransactionWriter, never()).record(any(), anyString(), anyLong());
+    }
+
+    @Test
+    void successUseBalanceAsync() throws Exception {
+        // given
+        given(transactionService.useBalance(anyLong(), anyString(), anyLong()))
+                .willReturn(TransactionDto.builder()
+                        .accountNumber("1000000000")
+                        .transactionAt(LocalDateTime.now())
+                        .amount(12345L)
+                        .transactionId("transactionId")
+                        .transactionResultType(TransactionResultType.S)
+                        .build());
+        // when
+        MvcResult mvcResult = mockMvc.perform(post("/transaction/use/async")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(
+                        new UseBalance.Request(1L, "2000000000",20000L)
+                ))
+        ).andExpect(request().asyncStarted())
+                .andReturn();
+        // then
+        mockMvc.perform(asyncDispatch(mvcResult))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.accountNumber").value("1000000000"))
+                .andExpect(jsonPath("$.transactionResultType").value("S"))
+                .andExpect(jsonPath("$.transactionId").value("transactionId"))
+                .andExpect(jsonPath("$.amount").value(12345));
+    }
+
+    @Test
+    void successUseBalanceBatch() throws Exception {
+        // given
+        given(transactionBatchService.useBalance(anyList()))
+                .willReturn(Arrays.asList(
+                        UseBalanceBatch.Result.builder()
+                                .accountNumber("1000000000")
+                                .transactionResultType(TransactionResultType.S)
+                                .transactionId("transactionId")
+                                .amount(1000L)
+                                .transactedAt(LocalDateTime.now())
+                                .build(),
+                        UseBalanceBatch.Result.builder()
+                                .accountNumber("1000000001")
+                                .transactionResultType(TransactionResultType.F)
+                                .amount(2000L)
+                                .errorCode(ErrorCode.ACCOUNT_TRANSACTION_LOCK)
+                                .build()));
+        // when
+        // then
+        mockMvc.perform(post("/transaction/use/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(
+                                new UseBalanceBatch.Request(Arrays.asList(
+                                        new UseBalance.Request(1L, "1000000000", 1000L),
+                                        new UseBalance.Request(1L, "1000000001", 2000L)))
+                        ))
+                ).andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.results[0].accountNumber").value("1000000000"))
+                .andExpect(jsonPath("$.results[0].transactionResultType").value("S"))
+                .andExpect(jsonPath("$.results[0].transactionId").value("transactionId"))
+                .andExpect(jsonPath("$.results[1].accountNumber").value("1000000001"))
+                .andExpect(jsonPath("$.results[1].transactionResultType").value("F"))
+                .andExpect(jsonPath("$.results[1].errorCode").value("ACCOUNT_TRANSACTION_LOCK"));
+    }
+
+    @Test
+    void failUseBalanceBatch_invalidItem() throws Exception {
+        // given
+        // when
+        // then
+        mockMvc.perform(post("/transaction/use/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(
+                                new UseBalanceBatch.Request(Arrays.asList(
+                                        new UseBalance.Request(1L, "1000000000", 1L)))
+                        ))
+                ).andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.errorCode").value("INVALID_REQUEST"));
+    }
+
     @Test
     void successCancelBalance() throws Exception {
         // given
@@ -112,4 +266,46 @@ class TransactionControllerTest {
                 .andExpect(jsonPath("$.transactionId").value("transactionId"))
                 .andExpect(jsonPath("$.amount").value(12345));
     }
-}
\ No newline at end of file
+
+    @Test
+    void successGetTransactionCacheStats() throws Exception {
+        // given
+        given(transactionService.getTransactionCacheStats())
+                .willReturn(CacheStatsResponse.builder()
+                        .size(10L)
+                        .hitCount(30L)
+                        .missCount(10L)
+                        .hitRate(0.75)
+                        .build());
+        //when
+        //then
+        mockMvc.perform(get("/transaction/cache/stats"))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.size").value(10))
+                .andExpect(jsonPath("$.hitCount").value(30))
+                .andExpect(jsonPath("$.missCount").value(10))
+                .andExpect(jsonPath("$.hitRate").value(0.75));
+    }
+
+    @Test
+    void successExportLedger() throws Exception {
+        // given
+        willAnswer(invocation -> {
+            OutputStream outputStream = invocation.getArgument(1);
+            outputStream.write("transaction_id\nid1\n".getBytes(StandardCharsets.UTF_8));
+            return 1L;
+        }).given(ledgerExportService).export(any(ExportFormat.class), any(OutputStream.class));
+        // when
+        MvcResult mvcResult = mockMvc.perform(get("/transaction/export?format=CSV"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        // then
+        mockMvc.perform(asyncDispatch(mvcResult))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Disposition", "attachment; filename=\"ledger.csv\""))
+                .andExpect(content().contentType("text/csv"))
+                .andExpect(content().string("transaction_id\nid1\n"));
+    }
+}
@@ -0,0 +1,137 @@
+package com.example.account.service;
+
+import com.example.account.dto.AccountDto;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.redisson.api.RFuture;
+import org.redisson.api.RTopic;
+import org.redisson.api.RedissonClient;
+import org.redisson.api.listener.MessageListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class AccountCacheTest {
+    @Mock
+    private RedissonClient redissonClient;
+
+    @Mock
+    private RTopic topic;
+
+    private ReplicaReadPolicy replicaReadPolicy;
+
+    private AccountCache accountCache;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        given(redissonClient.getTopic(anyString())).willReturn(topic);
+        lenient().when(topic.publishAsync(any())).thenReturn(mock(RFuture.class));
+        replicaReadPolicy = new ReplicaReadPolicy(true, Duration.ofMinutes(1), 100);
+        accountCache = new AccountCache(redissonClient, replicaReadPolicy, 100, Duration.ofMinutes(1));
+    }
+
+    @AfterEach
+    void clearSynchronization() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void putAndGet() {
+        // given
+        long epoch = accountCache.currentEpoch(1L);
+        // when
+        accountCache.putIfUnchanged(1L, epoch, accounts(1000L));
+        // then
+        assertEquals(1000L, accountCache.get(1L).orElseThrow().get(0).getBalance());
+        assertTrue(accountCache.get(2L).isEmpty());
+    }
+
+    @Test
+    @DisplayName("조회 도중 무효화가 있었으면 저장하지 않음")
+    void putIfUnchanged_invalidatedWhileReading() {
+        // given
+        long epoch = accountCache.currentEpoch(1L);
+        accountCache.invalidateAfterCommit(1L);
+        // when
+        accountCache.putIfUnchanged(1L, epoch, accounts(1000L));
+        // then
+        assertTrue(accountCache.get(1L).isEmpty());
+    }
+
+    @Test
+    @DisplayName("다른 사용자의 무효화는 조회 중인 목록을 버리지 않음")
+    void putIfUnchanged_otherUserInvalidated() {
+        // given
+        long epoch = accountCache.currentEpoch(1L);
+        accountCache.invalidateAfterCommit(2L);
+        // when
+        accountCache.putIfUnchanged(1L, epoch, accounts(1000L));
+        // then
+        assertTrue(accountCache.get(1L).isPresent());
+    }
+
+    @Test
+    @DisplayName("커밋 이후에 무효화하고 다른 노드에 알림")
+    void invalidateAfterCommit() {
+        // given
+        accountCache.putIfUnchanged(1L, accountCache.currentEpoch(1L), accounts(1000L));
+        TransactionSynchronizationManager.initSynchronization();
+        // when
+        accountCache.invalidateAfterCommit(1L);
+        // then
+        assertTrue(accountCache.get(1L).isPresent());
+        verify(topic, times(0)).publishAsync(any());
+
+        TransactionSynchronizationManager.getSynchronizations()
+                .forEach(TransactionSynchronization::afterCommit);
+        assertTrue(accountCache.get(1L).isEmpty());
+        verify(topic, times(1)).publishAsync(1L);
+    }
+
+    @Test
+    @DisplayName("다른 노드의 무효화 메시지 수신")
+    @SuppressWarnings("unchecked")
+    void invalidateByMessage() {
+        // given
+        ArgumentCaptor<MessageListener<Long>> captor = ArgumentCaptor.forClass(MessageListener.class);
+        accountCache.subscribe();
+        verify(topic).addListener(eq(Long.class), captor.capture());
+        accountCache.putIfUnchanged(1L, accountCache.currentEpoch(1L), accounts(1000L));
+        // when
+        captor.getValue().onMessage("ACCACHE:invalidate", 1L);
+        // then
+        assertTrue(accountCache.get(1L).isEmpty());
+        assertTrue(replicaReadPolicy.isRecentlyChanged(1L)); // replica 가 따라올 때까지 primary 에서 읽는다.
+        assertFalse(replicaReadPolicy.isRecentlyChanged(2L));
+    }
+
+    private static List<AccountDto> accounts(Long balance) {
+        return List.of(AccountDto.builder()
+                .userId(1L)
+                .accountNumber("1000000000")
+                .balance(balance)
+                .build());
+    }
+}
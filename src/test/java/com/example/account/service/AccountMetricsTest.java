@@ -0,0 +1,80 @@
+package com.example.account.service;
+
+import com.example.account.type.ErrorCode;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class AccountMetricsTest {
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final AccountMetrics accountMetrics = new AccountMetrics(meterRegistry);
+
+    @Test
+    void recordLockWaitAndHold() {
+        // given
+        // when
+        accountMetrics.recordLockWait(TimeUnit.MILLISECONDS.toNanos(3), true);
+        accountMetrics.recordLockWait(TimeUnit.MILLISECONDS.toNanos(1000), false);
+        accountMetrics.recordLockHold(TimeUnit.MILLISECONDS.toNanos(20));
+        // then
+        assertEquals(1, meterRegistry.get("account.lock.wait").tag("result", "acquired").timer().count());
+        assertEquals(1, meterRegistry.get("account.lock.wait").tag("result", "failed").timer().count());
+        assertEquals(20, meterRegistry.get("account.lock.hold").timer().totalTime(TimeUnit.MILLISECONDS), 0.001);
+    }
+
+    @Test
+    @DisplayName("메서드별 처리 시간과 ErrorCode 별 결과 집계")
+    void recordServiceCall() throws NoSuchMethodException {
+        // given
+        Method method = TransactionService.class.getMethod("useBalance", Long.class, String.class, Long.class);
+        // when
+        accountMetrics.recordServiceCall(method, 1_000_000L, null, false);
+        accountMetrics.recordServiceCall(method, 1_000_000L, ErrorCode.AMOUNT_EXCEED_BALANCE, true);
+        accountMetrics.recordServiceCall(method, 1_000_000L, ErrorCode.AMOUNT_EXCEED_BALANCE, true);
+        accountMetrics.recordServiceCall(method, 1_000_000L, null, true);
+        // then
+        String name = "TransactionService.useBalance";
+        assertEquals(4, meterRegistry.get("account.service.duration").tag("method", name).timer().count());
+        assertEquals(1, outcome(name, "SUCCESS"));
+        assertEquals(2, outcome(name, "AMOUNT_EXCEED_BALANCE"));
+        assertEquals(1, outcome(name, "UNKNOWN_ERROR"));
+        assertEquals(0, outcome(name, "USER_NOT_FOUND"));
+    }
+
+    @Test
+    @DisplayName("실패 거래 기록 queue 깊이와 처리 건수")
+    void recordFailures() {
+        // given
+        List<String> queue = new ArrayList<>(List.of("a", "b"));
+        accountMetrics.registerFailureQueue(queue);
+        // when
+        accountMetrics.recordFailureEnqueued(true);
+        accountMetrics.recordFailureEnqueued(true);
+        accountMetrics.recordFailureEnqueued(false);
+        accountMetrics.recordFailureWritten(2, 1);
+        // then
+        assertEquals(2, meterRegistry.get("account.failure.queue.depth").gauge().value());
+        assertEquals(2, failure("queued"));
+        assertEquals(1, failure("direct"));
+        assertEquals(2, failure("written"));
+        assertEquals(1, failure("discarded"));
+    }
+
+    private double failure(String result) {
+        return meterRegistry.get("account.failure.records").tag("result", result).counter().count();
+    }
+
+    private double outcome(String method, String outcome) {
+        return meterRegistry.get("account.service.outcome")
+                .tag("method", method)
+                .tag("outcome", outcome)
+                .counter().count();
+    }
+}
@@ -0,0 +1,116 @@
+package com.example.account.service;
+
+import com.example.account.domain.Account;
+import com.example.account.domain.AccountNumberSequence;
+import com.example.account.repository.AccountNumberSequenceRepository;
+import com.example.account.repository.AccountRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class AccountNumberAllocatorTest {
+    @Mock
+    private AccountNumberBlockService accountNumberBlockService;
+
+    @Mock
+    private AccountNumberSequenceRepository accountNumberSequenceRepository;
+
+    @Mock
+    private AccountRepository accountRepository;
+
+    @Test
+    void allocateInsideBlock() {
+        // given
+        given(accountNumberBlockService.reserveBlock(anyInt()))
+                .willReturn(1000000000L);
+        AccountNumberAllocator allocator =
+                new AccountNumberAllocator(accountNumberBlockService, 3);
+        // when
+        // then
+        assertEquals("1000000000", allocator.nextAccountNumber());
+        assertEquals("1000000001", allocator.nextAccountNumber());
+        assertEquals("1000000002", allocator.nextAccountNumber());
+        verify(accountNumberBlockService, times(1)).reserveBlock(3);
+    }
+
+    @Test
+    void reserveNextBlockWhenExhausted() {
+        // given
+        given(accountNumberBlockService.reserveBlock(anyInt()))
+                .willReturn(1000000000L, 1000000200L);
+        AccountNumberAllocator allocator =
+                new AccountNumberAllocator(accountNumberBlockService, 2);
+        // when
+        allocator.nextAccountNumber();
+        allocator.nextAccountNumber();
+        // then
+        assertEquals("1000000200", allocator.nextAccountNumber());
+        verify(accountNumberBlockService, times(2)).reserveBlock(2);
+    }
+
+    @Test
+    void reserveFirstBlock() {
+        // given
+        given(accountNumberSequenceRepository.findForUpdate(anyString()))
+                .willReturn(Optional.empty());
+        given(accountRepository.findFirstByOrderByIdDesc())
+                .willReturn(Optional.empty());
+        ArgumentCaptor<AccountNumberSequence> captor =
+                ArgumentCaptor.forClass(AccountNumberSequence.class);
+        AccountNumberBlockService blockService = new AccountNumberBlockService(
+                accountNumberSequenceRepository, accountRepository);
+        // when
+        long first = blockService.reserveBlock(100);
+        // then
+        verify(accountNumberSequenceRepository, times(1)).save(captor.capture());
+        assertEquals(1000000000L, first);
+        assertEquals(1000000100L, captor.getValue().getNextValue());
+    }
+
+    @Test
+    void reserveBlockAfterExistingAccounts() {
+        // given
+        given(accountNumberSequenceRepository.findForUpdate(anyString()))
+                .willReturn(Optional.empty());
+        given(accountRepository.findFirstByOrderByIdDesc())
+                .willReturn(Optional.of(Account.builder()
+                        .accountNumber("9438241200").build()));
+        AccountNumberBlockService blockService = new AccountNumberBlockService(
+                accountNumberSequenceRepository, accountRepository);
+        // when
+        // then
+        assertEquals(9438241201L, blockService.reserveBlock(100));
+    }
+
+    @Test
+    void reserveBlockFromCounter() {
+        // given
+        given(accountNumberSequenceRepository.findForUpdate(anyString()))
+                .willReturn(Optional.of(AccountNumberSequence.builder()
+                        .name("ACCOUNT_NUMBER")
+                        .nextValue(1000000500L).build()));
+        ArgumentCaptor<AccountNumberSequence> captor =
+                ArgumentCaptor.forClass(AccountNumberSequence.class);
+        AccountNumberBlockService blockService = new AccountNumberBlockService(
+                accountNumberSequenceRepository, accountRepository);
+        // when
+        long first = blockService.reserveBlock(100);
+        // then
+        verify(accountNumberSequenceRepository, times(1)).save(captor.capture());
+        assertEquals(1000000500L, first);
+        assertEquals(1000000600L, captor.getValue().getNextValue());
+        verify(accountRepository, times(0)).findFirstByOrderByIdDesc();
+    }
+}
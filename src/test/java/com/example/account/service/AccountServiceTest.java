@@ -2,6 +2,7 @@ package com.example.account.service;
 
 import com.example.account.domain.Account;
 import com.example.account.domain.AccountUser;
+import com.example.account.dto.AccountDetail;
 import com.example.account.dto.AccountDto;
 import com.example.account.exception.AccountException;
 import com.example.account.repository.AccountRepository;
@@ -34,6 +35,21 @@ class AccountServiceTest {
     @Mock
     private AccountUserRepository accountUserRepository;
 
+    @Mock
+    private AccountNumberAllocator accountNumberAllocator;
+
+    @Mock
+    private AccountCache accountCache;
+
+    @Mock
+    private LedgerEngine ledgerEngine;
+
+    @Mock
+    private HotAccountService hotAccountService;
+
+    @Mock
+    private ReplicaReadPolicy replicaReadPolicy;
+
     @InjectMocks
     private AccountService accountService;
 
@@ -45,9 +61,10 @@ class AccountServiceTest {
                 .name("Pobi").build();
         given(accountUserRepository.findById(anyLong()))
                 .willReturn(Optional.of(user));
-        given(accountRepository.findFirstByOrderByIdDesc())
-                .willReturn(Optional.of(Account.builder()
-                        .accountNumber("438241200").build())); // 여기서 리턴된값
+        given(accountUserRepository.increaseAccountCount(anyLong(), anyInt()))
+                .willReturn(1);
+        given(accountNumberAllocator.nextAccountNumber())
+                .willReturn("438241201"); // 여기서 리턴된값
         given(accountRepository.save(any()))
                 .willReturn(Account.builder()
                         .accountUser(user)
@@ -78,8 +95,10 @@ class AccountServiceTest {
                 .name("Pobi").build();
         given(accountUserRepository.findById(anyLong()))
                 .willReturn(Optional.of(user));
-        given(accountRepository.findFirstByOrderByIdDesc())
-                .willReturn(Optional.empty()); // 없는 경우
+        given(accountUserRepository.increaseAccountCount(anyLong(), anyInt()))
+                .willReturn(1);
+        given(accountNumberAllocator.nextAccountNumber())
+                .willReturn("1000000000"); // 첫 블록의 첫 번호
         given(accountRepository.save(any()))
                 .willReturn(Account.builder()
                         .accountUser(user)
@@ -120,8 +139,8 @@ class AccountServiceTest {
                 .name("Pobi").build();
         given(accountUserRepository.findById(anyLong()))
                 .willReturn(Optional.of(user));
-        given(accountRepository.countByAccountUser(any()))
-                .willReturn(10);
+        given(accountUserRepository.increaseAccountCount(anyLong(), anyInt()))
+                .willReturn(0); // 이미 10개
 
         // when
         AccountException accountException = assertThrows(AccountException.class,
@@ -129,6 +148,8 @@ class AccountServiceTest {
 
         // then
         assertEquals(ErrorCode.MAX_ACCOUNT_PER_USER_10, accountException.getErrorCode());
+        verify(accountNumberAllocator, times(0)).nextAccountNumber();
+        verify(accountRepository, times(0)).save(any());
     }
 
     @Test
@@ -148,6 +169,7 @@ class AccountServiceTest {
         // when
         AccountDto accountDto = accountService.deleteAccount(1L, "0987654321");
         // then
+        verify(accountCache, times(1)).invalidateAfterCommit(1L);
         verify(accountRepository,times(1)).save(captor.capture());
 
         assertEquals(12L, accountDto.getUserId());
@@ -261,30 +283,11 @@ class AccountServiceTest {
     @Test
     void successGetAccountsByUserId(){
         // given
-        AccountUser user = AccountUser.builder()
-                .id(12L)
-                .name("Pobi").build();
-        List<Account> accounts =
-                Arrays.asList(Account.builder()
-                                .accountNumber("1234567890")
-                                .balance(1000L)
-                                .accountUser(user)
-                                .build(),
-                        Account.builder()
-                                .accountNumber("1234567891")
-                                .balance(2000L)
-                                .accountUser(user)
-                                .build(),
-                        Account.builder()
-                                .accountNumber("1234567892")
-                                .balance(3000L)
-                                .accountUser(user)
-                                .build()
-                );
-        given(accountUserRepository.findById(anyLong()))
-                .willReturn(Optional.of(user));
-        given(accountRepository.findByAccountUser(any()))
-                .willReturn(accounts);
+        given(accountRepository.findDtosByUserId(anyLong()))
+                .willReturn(Arrays.asList(
+                        accountDto("1234567890", 1000L),
+                        accountDto("1234567891", 2000L),
+                        accountDto("1234567892", 3000L)));
         // when
         List<AccountDto> accountDtos = accountService.getAccountByUserId(1L);
 
@@ -298,13 +301,53 @@ class AccountServiceTest {
         assertEquals("1234567892", accountDtos.get(2).getAccountNumber());
         assertEquals(3000, accountDtos.get(2).getBalance());
         // then
+        verify(accountUserRepository, times(0)).findById(anyLong()); // 사용자 확인도 같은 query
+        verify(accountCache, times(1)).putIfUnchanged(eq(1L), anyLong(), eq(accountDtos));
+    }
+
+    @Test
+    @DisplayName("계좌가 없는 사용자는 빈 목록")
+    void getAccountsByUserId_noAccount(){
+        // given
+        given(accountRepository.findDtosByUserId(anyLong()))
+                .willReturn(List.of(accountDto(null, null)));
+        // when
+        List<AccountDto> accountDtos = accountService.getAccountByUserId(1L);
+        // then
+        assertTrue(accountDtos.isEmpty());
+    }
+
+    private static AccountDto accountDto(String accountNumber, Long balance) {
+        return AccountDto.builder()
+                .userId(1L)
+                .accountNumber(accountNumber)
+                .balance(balance)
+                .build();
+    }
+
+    @Test
+    @DisplayName("near cache 에 있으면 DB 조회 없이 반환")
+    void getAccountsByUserId_cacheHit(){
+        // given
+        given(accountCache.get(anyLong()))
+                .willReturn(Optional.of(List.of(AccountDto.builder()
+                        .userId(1L)
+                        .accountNumber("1234567890")
+                        .balance(1000L)
+                        .build())));
+        // when
+        List<AccountDto> accountDtos = accountService.getAccountByUserId(1L);
+        // then
+        verify(accountRepository, times(0)).findDtosByUserId(anyLong());
+        assertEquals(1, accountDtos.size());
+        assertEquals(1000, accountDtos.get(0).getBalance());
     }
 
     @Test
     void failedToGetAccounts(){
         // given
-        given(accountUserRepository.findById(anyLong()))
-                .willReturn(Optional.empty());
+        given(accountRepository.findDtosByUserId(anyLong()))
+                .willReturn(List.of());
         // when
         // then
         AccountException accountException = assertThrows(AccountException.class,
@@ -317,30 +360,43 @@ class AccountServiceTest {
     @DisplayName("계좌 조회 성공")
     void testXXX(){
         // given
-        given(accountRepository.findById(anyLong()))
-                .willReturn(Optional.of(Account.builder()
-                        .accountStatus(AccountStatus.UNREGISTERED)
-                        .accountNumber("65789").build()));
+        given(accountRepository.findDetailById(anyLong()))
+                .willReturn(Optional.of(new AccountDetail(4555L, 12L, "65789",
+                        AccountStatus.UNREGISTERED, 0L, null, null)));
         // when
-        Account account = accountService.getAccount(4555L);
+        AccountDetail account = accountService.getAccount(4555L);
 
         // then
         // verify
-        verify(accountRepository, times(1)).findById(anyLong());
-        verify(accountRepository, times(0)).save(any());
+        verify(accountRepository, times(1)).findDetailById(anyLong());
+        verify(accountRepository, times(0)).findById(anyLong());
 
-        assertEquals("65789", account.getAccountNumber());
-        assertEquals(AccountStatus.UNREGISTERED, account.getAccountStatus());
+        assertEquals("65789", account.accountNumber());
+        assertEquals(AccountStatus.UNREGISTERED, account.accountStatus());
+        assertEquals(12L, account.userId());
 
         // ArgumentCaptor 사용
         ArgumentCaptor<Long> captor = ArgumentCaptor.forClass(Long.class);
 
-        verify(accountRepository, times(1)).findById(captor.capture());
+        verify(accountRepository, times(1)).findDetailById(captor.capture());
         assertEquals(4555L, captor.getValue());
         assertNotEquals(45551L, captor.getValue());
         assertTrue(4555L == captor.getValue());
     }
 
+    @Test
+    @DisplayName("계좌 조회 실패 - 없는 계좌")
+    void getAccount_accountNotFound(){
+        // given
+        given(accountRepository.findDetailById(anyLong()))
+                .willReturn(Optional.empty());
+        // when
+        AccountException accountException = assertThrows(AccountException.class,
+                () -> accountService.getAccount(1L));
+        // then
+        assertEquals(ErrorCode.ACCOUNT_NOT_FOUND, accountException.getErrorCode());
+    }
+
     @Test
     @DisplayName("계좌 조회 실패 - 음수 조회")
     void testFailedToSearchAccount(){
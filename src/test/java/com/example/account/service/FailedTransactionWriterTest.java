@@ -0,0 +1,172 @@
+package com.example.account.service;
+
+import com.example.account.dto.FailedTransaction;
+import com.example.account.type.TransactionType;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.willAnswer;
+
+@ExtendWith(MockitoExtension.class)
+class FailedTransactionWriterTest {
+    private static final String ACCOUNT_NUMBER = "1000000000";
+
+    @Mock
+    private TransactionService transactionService;
+
+    @Mock
+    private TransactionIdGenerator transactionIdGenerator;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    // 저장을 부른 스레드 이름
+    private final List<String> writerThreads = new CopyOnWriteArrayList<>();
+    private final List<FailedTransaction> saved = new CopyOnWriteArrayList<>();
+    private FailedTransactionWriter writer;
+
+    @BeforeEach
+    void setUp() {
+        given(transactionIdGenerator.generate()).willReturn("T1", "T2", "T3", "T4", "T5");
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (writer != null) {
+            writer.stop();
+        }
+    }
+
+    private FailedTransactionWriter writer(int queueSize) {
+        writer = new FailedTransactionWriter(transactionService, transactionIdGenerator,
+                new AccountMetrics(meterRegistry), queueSize, 100, Duration.ofMillis(10));
+        return writer;
+    }
+
+    private void recordSaves(CountDownLatch entered, CountDownLatch release) {
+        willAnswer(invocation -> {
+            List<FailedTransaction> batch = invocation.getArgument(0);
+            writerThreads.add(Thread.currentThread().getName());
+            if (Thread.currentThread().getName().equals("failure-writer")) {
+                entered.countDown();
+                release.await(5, TimeUnit.SECONDS);
+            }
+            saved.addAll(batch);
+            return batch.size();
+        }).given(transactionService).saveFailedTransactions(anyList());
+    }
+
+    private double failure(String result) {
+        return meterRegistry.get("account.failure.records").tag("result", result).counter().count();
+    }
+
+    @Test
+    @DisplayName("queue 에 넣고 writer 스레드가 저장, 종료할 때 남은 기록도 저장")
+    void recordAndDrainOnStop() {
+        // given
+        CountDownLatch entered = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        recordSaves(entered, release);
+        FailedTransactionWriter writer = writer(10);
+        writer.start();
+        // when
+        writer.record(TransactionType.USE, ACCOUNT_NUMBER, 100L);
+        writer.record(TransactionType.CANCEL, ACCOUNT_NUMBER, 200L);
+        writer.record(TransactionType.USE, ACCOUNT_NUMBER, 300L);
+        release.countDown();
+        writer.stop();
+        // then
+        assertEquals(3, saved.size());
+        assertTrue(writerThreads.stream().allMatch("failure-writer"::equals)); // 요청 스레드에서는 저장하지 않음
+        assertEquals(List.of(100L, 200L, 300L), saved.stream().map(FailedTransaction::amount).toList());
+        assertEquals(3, failure("queued"));
+        assertEquals(3, failure("written"));
+        assertEquals(0, meterRegistry.get("account.failure.queue.depth").gauge().value());
+    }
+
+    @Test
+    @DisplayName("queue 가 가득 차면 요청 스레드에서 바로 저장 (backpressure)")
+    void recordDirectlyWhenQueueIsFull() throws InterruptedException {
+        // given
+        CountDownLatch entered = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        recordSaves(entered, release);
+        FailedTransactionWriter writer = writer(1);
+        writer.start();
+        writer.record(TransactionType.USE, ACCOUNT_NUMBER, 100L); // writer 가 꺼내서 저장하는 중
+        assertTrue(entered.await(5, TimeUnit.SECONDS));
+        writer.record(TransactionType.USE, ACCOUNT_NUMBER, 200L); // queue 의 한 자리
+        // when
+        writer.record(TransactionType.USE, ACCOUNT_NUMBER, 300L);
+        // then
+        assertEquals(1, meterRegistry.get("account.failure.queue.depth").gauge().value());
+        assertEquals(List.of(300L), saved.stream().map(FailedTransaction::amount).toList());
+        assertEquals(1, failure("direct"));
+
+        release.countDown();
+        writer.stop();
+        assertEquals(3, saved.size());
+    }
+
+    @Test
+    @DisplayName("멈춘 뒤의 기록은 요청 스레드에서 저장")
+    void recordAfterStop() {
+        // given
+        recordSaves(new CountDownLatch(1), new CountDownLatch(0));
+        FailedTransactionWriter writer = writer(10);
+        writer.start();
+        writer.stop();
+        // when
+        writer.record(TransactionType.CANCEL, ACCOUNT_NUMBER, 100L);
+        // then
+        assertEquals(1, saved.size());
+        assertEquals(List.of(Thread.currentThread().getName()), writerThreads);
+    }
+
+    @Test
+    @DisplayName("묶음 저장이 실패하면 한 건씩 다시 저장하고, 저장하지 못한 건만 버림")
+    void retryOneByOne() throws InterruptedException {
+        // given
+        CountDownLatch entered = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        willAnswer(invocation -> {
+            List<FailedTransaction> batch = invocation.getArgument(0);
+            if (batch.get(0).amount() == 100L) { // 뒤의 기록이 한 묶음으로 모이도록 잡아둔다.
+                entered.countDown();
+                release.await(5, TimeUnit.SECONDS);
+            }
+            if (batch.size() > 1 || batch.get(0).amount() == 300L) {
+                throw new IllegalStateException("write failed");
+            }
+            saved.addAll(batch);
+            return 1;
+        }).given(transactionService).saveFailedTransactions(anyList());
+        FailedTransactionWriter writer = writer(10);
+        writer.start();
+        writer.record(TransactionType.USE, ACCOUNT_NUMBER, 100L);
+        assertTrue(entered.await(5, TimeUnit.SECONDS));
+        writer.record(TransactionType.USE, ACCOUNT_NUMBER, 200L);
+        writer.record(TransactionType.USE, ACCOUNT_NUMBER, 300L);
+        // when
+        release.countDown();
+        writer.stop();
+        // then
+        assertEquals(List.of(100L, 200L), saved.stream().map(FailedTransaction::amount).toList());
+        assertEquals(2, failure("written"));
+        assertEquals(1, failure("discarded"));
+    }
+}
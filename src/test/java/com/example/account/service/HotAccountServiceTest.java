@@ -0,0 +1,219 @@
+package com.example.account.service;
+
+import com.example.account.domain.Account;
+import com.example.account.domain.AccountBucket;
+import com.example.account.domain.AccountUser;
+import com.example.account.domain.ReconciliationCheckpoint;
+import com.example.account.domain.Transaction;
+import com.example.account.dto.AccountDto;
+import com.example.account.exception.AccountException;
+import com.example.account.repository.AccountBucketRepository;
+import com.example.account.repository.AccountRepository;
+import com.example.account.repository.ReconciliationCheckpointRepository;
+import com.example.account.repository.TransactionRepository;
+import com.example.account.type.AccountStatus;
+import com.example.account.type.ErrorCode;
+import com.example.account.type.TransactionResultType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class HotAccountServiceTest {
+    @Mock
+    private AccountRepository accountRepository;
+
+    @Mock
+    private AccountBucketRepository accountBucketRepository;
+
+    @Mock
+    private TransactionRepository transactionRepository;
+
+    @Mock
+    private ReconciliationCheckpointRepository reconciliationCheckpointRepository;
+
+    @Mock
+    private AccountCache accountCache;
+
+    @Mock
+    private BalanceUpdatePolicy balanceUpdatePolicy;
+
+    private HotAccountService hotAccountService;
+
+    @BeforeEach
+    void setUp() {
+        hotAccountService = new HotAccountService(accountRepository, accountBucketRepository,
+                transactionRepository, reconciliationCheckpointRepository,
+                accountCache, balanceUpdatePolicy, 64, Duration.ofSeconds(5));
+    }
+
+    @Test
+    @DisplayName("분할 - 잔액을 bucket 에 고르게 나누고 계좌 잔액은 0")
+    @SuppressWarnings("unchecked")
+    void changeBuckets_split() {
+        // given
+        Account account = account(1003L, 0);
+        given(accountRepository.findForUpdateByAccountNumber("1000000000"))
+                .willReturn(Optional.of(account));
+        ArgumentCaptor<List<AccountBucket>> captor = ArgumentCaptor.forClass(List.class);
+        // when
+        AccountDto accountDto = hotAccountService.changeBuckets("1000000000", 4);
+        // then
+        verify(accountBucketRepository, times(1)).saveAll(captor.capture());
+        List<AccountBucket> buckets = captor.getValue();
+        assertEquals(4, buckets.size());
+        assertEquals(251L, buckets.get(0).getBalance());
+        assertEquals(250L, buckets.get(3).getBalance());
+        assertEquals(0L, account.getBalance());
+        assertEquals(4, account.getBucketCount());
+        assertEquals(1003L, accountDto.getBalance());
+    }
+
+    @Test
+    @DisplayName("분할 해제 - bucket 합계를 계좌 잔액으로 되돌린다")
+    void changeBuckets_merge() {
+        // given
+        Account account = account(0L, 4);
+        given(accountRepository.findForUpdateByAccountNumber("1000000000"))
+                .willReturn(Optional.of(account));
+        given(accountBucketRepository.sumBalance(7L)).willReturn(900L);
+        // when
+        hotAccountService.changeBuckets("1000000000", 0);
+        // then
+        verify(accountBucketRepository, times(1)).lockAll(7L);
+        verify(accountBucketRepository, times(1)).deleteByAccountId(7L);
+        assertEquals(900L, account.getBalance());
+        assertEquals(0, account.getBucketCount());
+    }
+
+    @Test
+    @DisplayName("분할 해제 - 대조 위치를 마지막 거래와 합친 잔액으로 옮긴다")
+    void changeBuckets_moveCheckpoint() {
+        // given
+        Account account = account(0L, 4);
+        LocalDateTime transactedAt = LocalDateTime.now();
+        given(accountRepository.findForUpdateByAccountNumber("1000000000"))
+                .willReturn(Optional.of(account));
+        given(accountBucketRepository.sumBalance(7L)).willReturn(900L);
+        given(transactionRepository.findFirstByAccount_IdAndTransactionResultTypeOrderByTransactionAtDescIdDesc(
+                7L, TransactionResultType.S))
+                .willReturn(Optional.of(Transaction.builder().id(30L).transactionAt(transactedAt).build()));
+        ReconciliationCheckpoint checkpoint = ReconciliationCheckpoint.builder()
+                .accountId(7L)
+                .lastTransactionId(10L)
+                .ledgerBalance(1000L)
+                .build();
+        given(reconciliationCheckpointRepository.findByAccountId(7L)).willReturn(Optional.of(checkpoint));
+        // when
+        hotAccountService.changeBuckets("1000000000", 0);
+        // then
+        verify(reconciliationCheckpointRepository, times(1)).save(checkpoint);
+        assertEquals(30L, checkpoint.getLastTransactionId());
+        assertEquals(transactedAt, checkpoint.getLastTransactionAt());
+        assertEquals(900L, checkpoint.getLedgerBalance());
+    }
+
+    @Test
+    @DisplayName("engine 모드에서는 분할 불가")
+    void changeBuckets_engine() {
+        // given
+        given(balanceUpdatePolicy.isEngine()).willReturn(true);
+        // when
+        AccountException exception = assertThrows(AccountException.class,
+                () -> hotAccountService.changeBuckets("1000000000", 4));
+        // then
+        assertEquals(ErrorCode.INVALID_REQUEST, exception.getErrorCode());
+    }
+
+    @Test
+    @DisplayName("차감 - 잔액이 충분한 bucket 하나에서 차감")
+    void debit() {
+        // given
+        Account account = account(0L, 4);
+        given(accountBucketRepository.debit(eq(7L), anyInt(), eq(100L)))
+                .willReturn(0, 1);
+        given(accountBucketRepository.sumBalance(7L)).willReturn(900L);
+        // when
+        long balance = hotAccountService.debit(account, 100L);
+        // then
+        assertEquals(900L, balance);
+        verify(accountBucketRepository, times(2)).debit(eq(7L), anyInt(), eq(100L));
+        verify(accountBucketRepository, times(0)).lockAll(anyLong());
+    }
+
+    @Test
+    @DisplayName("차감 - 한 bucket 으로 모자라면 합계에서 차감하고 다시 나눈다")
+    void debit_rebalance() {
+        // given
+        Account account = account(0L, 4);
+        given(accountBucketRepository.debit(eq(7L), anyInt(), eq(300L))).willReturn(0);
+        given(accountBucketRepository.lockAll(7L)).willReturn(4);
+        given(accountBucketRepository.sumBalance(7L)).willReturn(400L);
+        // when
+        long balance = hotAccountService.debit(account, 300L);
+        // then
+        assertEquals(100L, balance);
+        verify(accountBucketRepository, times(4)).debit(eq(7L), anyInt(), eq(300L));
+        verify(accountBucketRepository, times(1)).spread(7L, 25L, 0L);
+    }
+
+    @Test
+    @DisplayName("차감 - 합계도 모자라면 잔액 부족")
+    void debit_exceedBalance() {
+        // given
+        Account account = account(0L, 2);
+        given(accountBucketRepository.debit(eq(7L), anyInt(), eq(300L))).willReturn(0);
+        given(accountBucketRepository.lockAll(7L)).willReturn(2);
+        given(accountBucketRepository.sumBalance(7L)).willReturn(200L);
+        // when
+        AccountException exception = assertThrows(AccountException.class,
+                () -> hotAccountService.debit(account, 300L));
+        // then
+        assertEquals(ErrorCode.AMOUNT_EXCEED_BALANCE, exception.getErrorCode());
+        verify(accountBucketRepository, times(0)).spread(anyLong(), anyLong(), anyLong());
+    }
+
+    @Test
+    @DisplayName("분할 여부는 cache 에서 읽는다")
+    void isHot() {
+        // given
+        given(accountRepository.findBucketCountByAccountNumber("1000000000"))
+                .willReturn(Optional.of(8));
+        // when
+        hotAccountService.isHot("1000000000");
+        boolean hot = hotAccountService.isHot("1000000000");
+        // then
+        assertTrue(hot);
+        verify(accountRepository, times(1)).findBucketCountByAccountNumber("1000000000");
+    }
+
+    private static Account account(Long balance, int bucketCount) {
+        return Account.builder()
+                .id(7L)
+                .accountUser(AccountUser.builder().id(12L).build())
+                .accountNumber("1000000000")
+                .accountStatus(AccountStatus.IN_USE)
+                .balance(balance)
+                .bucketCount(bucketCount)
+                .build();
+    }
+}
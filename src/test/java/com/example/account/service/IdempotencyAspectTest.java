@@ -0,0 +1,251 @@
+package com.example.account.service;
+
+import com.example.account.dto.IdempotentResponse;
+import com.example.account.dto.UseBalance;
+import com.example.account.exception.AccountException;
+import com.example.account.type.ErrorCode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class IdempotencyAspectTest {
+    private static final String KEY = "1000000000:key-1";
+
+    @Mock
+    private IdempotencyStore idempotencyStore;
+
+    @Mock
+    private ProceedingJoinPoint proceedingJoinPoint;
+
+    @Mock
+    private MethodSignature methodSignature;
+
+    private IdempotencyAspect idempotencyAspect;
+
+    private final MockHttpServletRequest request = new MockHttpServletRequest();
+    private final UseBalance.Request useRequest = new UseBalance.Request(1L, "1000000000", 1000L);
+
+    @BeforeEach
+    void setRequest() {
+        idempotencyAspect = new IdempotencyAspect(idempotencyStore, new ObjectMapper());
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+    }
+
+    @AfterEach
+    void resetRequest() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Test
+    @DisplayName("헤더가 없으면 저장소를 거치지 않는다")
+    void noHeader() throws Throwable {
+        // given
+        given(proceedingJoinPoint.proceed()).willReturn("response");
+        // when
+        Object result = idempotencyAspect.aroundMethod(proceedingJoinPoint, useRequest);
+        // then
+        assertEquals("response", result);
+        verify(idempotencyStore, times(0)).reserve(anyString());
+    }
+
+    @Test
+    @DisplayName("처음 요청은 실행하고 응답을 요청 hash 와 함께 저장")
+    void firstRequest() throws Throwable {
+        // given
+        request.addHeader(IdempotencyAspect.HEADER, "key-1");
+        given(idempotencyStore.reserve(KEY)).willReturn(Optional.empty());
+        given(proceedingJoinPoint.proceed()).willReturn("response");
+        ArgumentCaptor<IdempotentResponse> captor = ArgumentCaptor.forClass(IdempotentResponse.class);
+        // when
+        Object result = idempotencyAspect.aroundMethod(proceedingJoinPoint, useRequest);
+        // then
+        assertEquals("response", result);
+        verify(idempotencyStore, times(1)).complete(eq(KEY), captor.capture());
+        assertEquals("response", captor.getValue().response());
+        assertEquals(idempotencyAspect.hash(useRequest), captor.getValue().requestHash());
+    }
+
+    @Test
+    @DisplayName("재요청은 실행하지 않고 저장된 응답")
+    void replay() throws Throwable {
+        // given
+        request.addHeader(IdempotencyAspect.HEADER, "key-1");
+        given(proceedingJoinPoint.getSignature()).willReturn(methodSignature);
+        given(methodSignature.getReturnType()).willReturn(Object.class);
+        given(idempotencyStore.reserve(KEY)).willReturn(Optional.of(
+                new IdempotentResponse(idempotencyAspect.hash(useRequest), "stored")));
+        // when
+        Object result = idempotencyAspect.aroundMethod(proceedingJoinPoint, useRequest);
+        // then
+        assertEquals("stored", result);
+        verify(proceedingJoinPoint, times(0)).proceed();
+    }
+
+    @Test
+    @DisplayName("동기 엔드포인트의 응답을 비동기 엔드포인트 재요청에 완료된 future 로 응답")
+    void replayAsync() throws Throwable {
+        // given
+        request.addHeader(IdempotencyAspect.HEADER, "key-1");
+        given(proceedingJoinPoint.getSignature()).willReturn(methodSignature);
+        given(methodSignature.getReturnType()).willReturn(CompletableFuture.class);
+        given(idempotencyStore.reserve(KEY)).willReturn(Optional.of(
+                new IdempotentResponse(idempotencyAspect.hash(useRequest), "stored")));
+        // when
+        Object result = idempotencyAspect.aroundMethod(proceedingJoinPoint, useRequest);
+        // then
+        assertEquals("stored", ((CompletableFuture<?>) result).join());
+        verify(proceedingJoinPoint, times(0)).proceed();
+    }
+
+    @Test
+    @DisplayName("같은 key 로 본문이 다른 요청은 IDEMPOTENCY_KEY_REUSED")
+    void keyReusedWithDifferentRequest() throws Throwable {
+        // given
+        request.addHeader(IdempotencyAspect.HEADER, "key-1");
+        UseBalance.Request otherRequest = new UseBalance.Request(2L, "1000000000", 1000L);
+        given(idempotencyStore.reserve(KEY)).willReturn(Optional.of(
+                new IdempotentResponse(idempotencyAspect.hash(useRequest), "stored")));
+        // when
+        AccountException exception = assertThrows(AccountException.class,
+                () -> idempotencyAspect.aroundMethod(proceedingJoinPoint, otherRequest));
+        // then
+        assertEquals(ErrorCode.IDEMPOTENCY_KEY_REUSED, exception.getErrorCode());
+        assertNotEquals(idempotencyAspect.hash(useRequest), idempotencyAspect.hash(otherRequest));
+        verify(proceedingJoinPoint, times(0)).proceed();
+    }
+
+    @Test
+    @DisplayName("key 는 계좌번호와 묶여서 다른 계좌의 같은 key 와 겹치지 않는다")
+    void keyScopedByAccount() throws Throwable {
+        // given
+        request.addHeader(IdempotencyAspect.HEADER, "key-1");
+        UseBalance.Request otherAccount = new UseBalance.Request(2L, "2000000000", 1000L);
+        given(idempotencyStore.reserve("2000000000:key-1")).willReturn(Optional.empty());
+        given(proceedingJoinPoint.proceed()).willReturn("response");
+        // when
+        Object result = idempotencyAspect.aroundMethod(proceedingJoinPoint, otherAccount);
+        // then
+        assertEquals("response", result);
+        verify(idempotencyStore, times(0)).reserve(KEY);
+    }
+
+    @Test
+    @DisplayName("같은 key 가 처리 중이면 IDEMPOTENT_REQUEST_IN_PROGRESS")
+    void inProgress() throws Throwable {
+        // given
+        request.addHeader(IdempotencyAspect.HEADER, "key-1");
+        given(idempotencyStore.reserve(KEY)).willReturn(Optional.of(IdempotencyStore.PENDING));
+        // when
+        AccountException exception = assertThrows(AccountException.class,
+                () -> idempotencyAspect.aroundMethod(proceedingJoinPoint, useRequest));
+        // then
+        assertEquals(ErrorCode.IDEMPOTENT_REQUEST_IN_PROGRESS, exception.getErrorCode());
+        verify(proceedingJoinPoint, times(0)).proceed();
+    }
+
+    @Test
+    @DisplayName("실패하면 key 를 풀고 응답은 저장하지 않는다")
+    void failedRequest() throws Throwable {
+        // given
+        request.addHeader(IdempotencyAspect.HEADER, "key-1");
+        given(idempotencyStore.reserve(KEY)).willReturn(Optional.empty());
+        given(proceedingJoinPoint.proceed())
+                .willThrow(new AccountException(ErrorCode.AMOUNT_EXCEED_BALANCE));
+        // when
+        assertThrows(AccountException.class,
+                () -> idempotencyAspect.aroundMethod(proceedingJoinPoint, useRequest));
+        // then
+        verify(idempotencyStore, times(1)).release(KEY);
+        verify(idempotencyStore, times(0)).complete(anyString(), any());
+    }
+
+    @Test
+    @DisplayName("결과를 모르는 실패는 key 를 풀지 않고 오류를 저장")
+    void resultUnknown() throws Throwable {
+        // given
+        request.addHeader(IdempotencyAspect.HEADER, "key-1");
+        given(idempotencyStore.reserve(KEY)).willReturn(Optional.empty());
+        given(proceedingJoinPoint.proceed())
+                .willThrow(new AccountException(ErrorCode.TRANSACTION_RESULT_UNKNOWN));
+        // when
+        assertThrows(AccountException.class,
+                () -> idempotencyAspect.aroundMethod(proceedingJoinPoint, useRequest));
+        // then
+        verify(idempotencyStore, times(0)).release(anyString());
+        verify(idempotencyStore, times(1)).complete(KEY, IdempotentResponse.failed(
+                idempotencyAspect.hash(useRequest), ErrorCode.TRANSACTION_RESULT_UNKNOWN));
+    }
+
+    @Test
+    @DisplayName("결과를 모르는 실패의 재요청은 실행하지 않고 같은 오류")
+    void replayResultUnknown() throws Throwable {
+        // given
+        request.addHeader(IdempotencyAspect.HEADER, "key-1");
+        given(idempotencyStore.reserve(KEY)).willReturn(Optional.of(IdempotentResponse.failed(
+                idempotencyAspect.hash(useRequest), ErrorCode.TRANSACTION_RESULT_UNKNOWN)));
+        // when
+        AccountException exception = assertThrows(AccountException.class,
+                () -> idempotencyAspect.aroundMethod(proceedingJoinPoint, useRequest));
+        // then
+        assertEquals(ErrorCode.TRANSACTION_RESULT_UNKNOWN, exception.getErrorCode());
+        verify(proceedingJoinPoint, times(0)).proceed();
+    }
+
+    @Test
+    @DisplayName("예상하지 못한 예외는 처리 중 표시를 pending-ttl 까지 둔다")
+    void unexpectedFailure() throws Throwable {
+        // given
+        request.addHeader(IdempotencyAspect.HEADER, "key-1");
+        given(idempotencyStore.reserve(KEY)).willReturn(Optional.empty());
+        given(proceedingJoinPoint.proceed()).willThrow(new IllegalStateException("commit"));
+        // when
+        assertThrows(IllegalStateException.class,
+                () -> idempotencyAspect.aroundMethod(proceedingJoinPoint, useRequest));
+        // then
+        verify(idempotencyStore, times(0)).release(anyString());
+        verify(idempotencyStore, times(0)).complete(anyString(), any());
+    }
+
+    @Test
+    @DisplayName("비동기 메서드는 future 가 끝난 뒤에 응답을 저장")
+    void asyncRequest() throws Throwable {
+        // given
+        request.addHeader(IdempotencyAspect.HEADER, "key-1");
+        CompletableFuture<Object> future = new CompletableFuture<>();
+        given(idempotencyStore.reserve(KEY)).willReturn(Optional.empty());
+        given(proceedingJoinPoint.proceed()).willReturn(future);
+        // when
+        Object result = idempotencyAspect.aroundMethod(proceedingJoinPoint, useRequest);
+        verify(idempotencyStore, times(0)).complete(anyString(), any());
+        future.complete("response");
+        // then
+        assertEquals("response", ((CompletableFuture<?>) result).join());
+        verify(idempotencyStore, times(1)).complete(KEY,
+                new IdempotentResponse(idempotencyAspect.hash(useRequest), "response"));
+    }
+}
@@ -0,0 +1,294 @@
+package com.example.account.service;
+
+import com.example.account.domain.Account;
+import com.example.account.domain.Transaction;
+import com.example.account.dto.AccountSnapshot;
+import com.example.account.dto.LedgerRecord;
+import com.example.account.dto.TransactionDto;
+import com.example.account.dto.UseBalance;
+import com.example.account.dto.UseBalanceBatch;
+import com.example.account.exception.AccountException;
+import com.example.account.repository.AccountUserRepository;
+import com.example.account.repository.TransactionRepository;
+import com.example.account.type.AccountStatus;
+import com.example.account.type.ErrorCode;
+import com.example.account.type.TransactionResultType;
+import com.example.account.type.TransactionType;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.willAnswer;
+import static org.mockito.BDDMockito.willThrow;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class LedgerEngineTest {
+    private static final String ACCOUNT_NUMBER = "1000000000";
+
+    @Mock
+    private LedgerStore ledgerStore;
+
+    @Mock
+    private TransactionRepository transactionRepository;
+
+    @Mock
+    private AccountUserRepository accountUserRepository;
+
+    @Mock
+    private TransactionIdGenerator transactionIdGenerator;
+
+    @Mock
+    private BalanceUpdatePolicy balanceUpdatePolicy;
+
+    private LedgerEngine ledgerEngine;
+
+    @BeforeEach
+    void setUp() {
+        AtomicLong sequence = new AtomicLong();
+        lenient().when(transactionIdGenerator.generate())
+                .thenAnswer(invocation -> "tx" + sequence.incrementAndGet());
+        given(balanceUpdatePolicy.isEngine()).willReturn(true);
+        willAnswer(invocation -> {
+            Consumer<AccountSnapshot> consumer = invocation.getArgument(0);
+            consumer.accept(snapshot(1000L));
+            return null;
+        }).given(ledgerStore).replay(any());
+
+        ledgerEngine = new LedgerEngine(ledgerStore, transactionRepository, accountUserRepository,
+                transactionIdGenerator, balanceUpdatePolicy, 2, 4, 16, Duration.ofMillis(500));
+        ledgerEngine.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        ledgerEngine.stop();
+    }
+
+    @Test
+    @DisplayName("메모리 잔액에서 차감하고 저장한 뒤 응답")
+    void useBalance() {
+        // given
+        // when
+        TransactionDto first = ledgerEngine.useBalance(1L, ACCOUNT_NUMBER, 300L);
+        TransactionDto second = ledgerEngine.useBalance(1L, ACCOUNT_NUMBER, 200L);
+        // then
+        assertEquals(700L, first.getBalanceSnapshot());
+        assertEquals(500L, second.getBalanceSnapshot());
+        assertEquals(TransactionResultType.S, second.getTransactionResultType());
+        verify(ledgerStore, times(0)).findAccount(ACCOUNT_NUMBER);
+    }
+
+    @Test
+    @DisplayName("잔액 부족 - 저장하지 않고 실패")
+    void useBalance_exceedBalance() {
+        // given
+        // when
+        AccountException exception = assertThrows(AccountException.class,
+                () -> ledgerEngine.useBalance(1L, ACCOUNT_NUMBER, 1001L));
+        // then
+        assertEquals(ErrorCode.AMOUNT_EXCEED_BALANCE, exception.getErrorCode());
+        verify(ledgerStore, times(0)).persist(anyList());
+    }
+
+    @Test
+    @DisplayName("소유주가 다르고 사용자도 없으면 사용자 없음")
+    void useBalance_userNotFound() {
+        // given
+        given(accountUserRepository.existsById(2L)).willReturn(false);
+        // when
+        AccountException exception = assertThrows(AccountException.class,
+                () -> ledgerEngine.useBalance(2L, ACCOUNT_NUMBER, 100L));
+        // then
+        assertEquals(ErrorCode.USER_NOT_FOUND, exception.getErrorCode());
+    }
+
+    @Test
+    @DisplayName("기동 후에 만든 계좌는 처음 쓸 때 읽는다")
+    void useBalance_loadAccount() {
+        // given
+        given(ledgerStore.findAccount("2000000000")).willReturn(Optional.of(
+                new AccountSnapshot(2L, "2000000000", 1L, AccountStatus.IN_USE, 500L)));
+        // when
+        TransactionDto transactionDto = ledgerEngine.useBalance(1L, "2000000000", 100L);
+        ledgerEngine.useBalance(1L, "2000000000", 100L);
+        // then
+        assertEquals(400L, transactionDto.getBalanceSnapshot());
+        verify(ledgerStore, times(1)).findAccount("2000000000");
+    }
+
+    @Test
+    @DisplayName("취소 - 부분 취소는 실패")
+    void cancelBalance_mustFully() {
+        // given
+        given(transactionRepository.findByTransactionId("tx0"))
+                .willReturn(Optional.of(usedTransaction(300L)));
+        // when
+        AccountException exception = assertThrows(AccountException.class,
+                () -> ledgerEngine.cancelBalance("tx0", ACCOUNT_NUMBER, 100L));
+        // then
+        assertEquals(ErrorCode.CANCEL_MUST_FULLY, exception.getErrorCode());
+    }
+
+    @Test
+    @DisplayName("취소 - 메모리 잔액에 더한다")
+    void cancelBalance() {
+        // given
+        given(transactionRepository.findByTransactionId("tx0"))
+                .willReturn(Optional.of(usedTransaction(300L)));
+        // when
+        TransactionDto transactionDto = ledgerEngine.cancelBalance("tx0", ACCOUNT_NUMBER, 300L);
+        // then
+        assertEquals(TransactionType.CANCEL, transactionDto.getTransactionType());
+        assertEquals(1300L, transactionDto.getBalanceSnapshot());
+    }
+
+    @Test
+    @DisplayName("저장 실패 - lock 실패로 응답하고 계좌를 DB 에서 다시 읽는다")
+    void useBalance_persistFailed() {
+        // given
+        willThrow(new RuntimeException("db")).willDoNothing()
+                .given(ledgerStore).persist(anyList());
+        given(ledgerStore.findAccount(ACCOUNT_NUMBER)).willReturn(Optional.of(snapshot(1000L)));
+        // when
+        AccountException exception = assertThrows(AccountException.class,
+                () -> ledgerEngine.useBalance(1L, ACCOUNT_NUMBER, 300L));
+        TransactionDto transactionDto = ledgerEngine.useBalance(1L, ACCOUNT_NUMBER, 100L);
+        // then
+        assertEquals(ErrorCode.ACCOUNT_TRANSACTION_LOCK, exception.getErrorCode());
+        assertEquals(900L, transactionDto.getBalanceSnapshot());
+        verify(ledgerStore, times(1)).findAccount(ACCOUNT_NUMBER);
+    }
+
+    @Test
+    @DisplayName("일괄 처리 - 요청 순서대로 처리하고 실패 건도 남긴다")
+    @SuppressWarnings("unchecked")
+    void useBalanceBatch() {
+        // given
+        ArgumentCaptor<List<LedgerRecord>> captor = ArgumentCaptor.forClass(List.class);
+        // when
+        List<UseBalanceBatch.Result> results = ledgerEngine.useBalanceBatch(ACCOUNT_NUMBER, Arrays.asList(
+                new UseBalance.Request(1L, ACCOUNT_NUMBER, 600L),
+                new UseBalance.Request(1L, ACCOUNT_NUMBER, 600L),
+                new UseBalance.Request(1L, ACCOUNT_NUMBER, 400L)));
+        // then
+        assertEquals(TransactionResultType.S, results.get(0).getTransactionResultType());
+        assertEquals(TransactionResultType.F, results.get(1).getTransactionResultType());
+        assertEquals(ErrorCode.AMOUNT_EXCEED_BALANCE, results.get(1).getErrorCode());
+        assertEquals(TransactionResultType.S, results.get(2).getTransactionResultType());
+        verify(ledgerStore, atLeastOnce()).persist(captor.capture());
+        List<LedgerRecord> records = captor.getAllValues().stream().flatMap(List::stream).toList();
+        assertEquals(3, records.size());
+        assertEquals(400L, records.get(2).previousBalance());
+        assertEquals(0L, records.get(2).balanceSnapshot());
+    }
+
+    @Test
+    @DisplayName("저장 중에 response-timeout 이 지나면 결과 모름으로 응답하고, 저장은 나중에 커밋된다")
+    void useBalance_persistStalled() throws InterruptedException {
+        // given
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch persisted = new CountDownLatch(1);
+        willAnswer(invocation -> {
+            release.await(5, TimeUnit.SECONDS);
+            persisted.countDown();
+            return null;
+        }).given(ledgerStore).persist(anyList());
+        // when
+        AccountException exception = assertThrows(AccountException.class,
+                () -> ledgerEngine.useBalance(1L, ACCOUNT_NUMBER, 300L));
+        release.countDown();
+        // then
+        assertEquals(ErrorCode.TRANSACTION_RESULT_UNKNOWN, exception.getErrorCode());
+        assertTrue(persisted.await(5, TimeUnit.SECONDS));
+        // 차감은 커밋됐으므로 다음 사용은 그 잔액에서 이어진다.
+        assertEquals(600L, ledgerEngine.useBalance(1L, ACCOUNT_NUMBER, 100L).getBalanceSnapshot());
+    }
+
+    @Test
+    @DisplayName("writer 가 꺼내기 전에 response-timeout 이 지나면 버리고 lock 실패로 응답")
+    void useBalance_abandonedBeforeApply() throws InterruptedException {
+        // given
+        // 같은 shard 의 writer 를 새 계좌 읽기에서 멈춘다. (1000000002 는 1000000000 과 같은 shard)
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        given(ledgerStore.findAccount("1000000002")).willAnswer(invocation -> {
+            loading.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return Optional.empty();
+        });
+        Thread blocker = Thread.ofPlatform().start(() -> assertThrows(AccountException.class,
+                () -> ledgerEngine.useBalance(1L, "1000000002", 100L)));
+        assertTrue(loading.await(5, TimeUnit.SECONDS));
+        // when
+        AccountException exception = assertThrows(AccountException.class,
+                () -> ledgerEngine.useBalance(1L, ACCOUNT_NUMBER, 300L));
+        release.countDown();
+        blocker.join();
+        // then
+        assertEquals(ErrorCode.ACCOUNT_TRANSACTION_LOCK, exception.getErrorCode());
+        // 버린 명령은 반영되지 않는다.
+        assertEquals(900L, ledgerEngine.useBalance(1L, ACCOUNT_NUMBER, 100L).getBalanceSnapshot());
+    }
+
+    @Test
+    @DisplayName("분할 계좌가 남아 있으면 시작하지 않는다")
+    void start_splitAccounts() {
+        // given
+        given(ledgerStore.hasSplitAccounts()).willReturn(true);
+        LedgerEngine engine = new LedgerEngine(ledgerStore, transactionRepository, accountUserRepository,
+                transactionIdGenerator, balanceUpdatePolicy, 2, 4, 16, Duration.ofMillis(500));
+        // when
+        // then
+        assertThrows(IllegalStateException.class, engine::start);
+    }
+
+    @Test
+    @DisplayName("멈춘 뒤에 받은 명령은 바로 lock 실패")
+    void useBalance_afterStop() {
+        // given
+        ledgerEngine.stop();
+        // when
+        AccountException exception = assertThrows(AccountException.class,
+                () -> ledgerEngine.useBalance(1L, ACCOUNT_NUMBER, 300L));
+        // then
+        assertEquals(ErrorCode.ACCOUNT_TRANSACTION_LOCK, exception.getErrorCode());
+    }
+
+    private static AccountSnapshot snapshot(Long balance) {
+        return new AccountSnapshot(1L, ACCOUNT_NUMBER, 1L, AccountStatus.IN_USE, balance);
+    }
+
+    private static Transaction usedTransaction(Long amount) {
+        return Transaction.builder()
+                .account(Account.builder().id(1L).build())
+                .transactionType(TransactionType.USE)
+                .amount(amount)
+                .transactionAt(LocalDateTime.now())
+                .build();
+    }
+}
@@ -0,0 +1,84 @@
+package com.example.account.service;
+
+import com.example.account.dto.LedgerEntry;
+import com.example.account.repository.TransactionRepository;
+import com.example.account.type.ExportFormat;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+import static com.example.account.type.TransactionResultType.S;
+import static com.example.account.type.TransactionType.CANCEL;
+import static com.example.account.type.TransactionType.USE;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.BDDMockito.given;
+
+@ExtendWith(MockitoExtension.class)
+class LedgerExportServiceTest {
+    private static final LocalDateTime AT = LocalDateTime.of(2024, 1, 1, 12, 0, 0);
+
+    @Mock
+    private TransactionRepository transactionRepository;
+
+    private LedgerExportService ledgerExportService;
+
+    private final AtomicBoolean closed = new AtomicBoolean();
+
+    @BeforeEach
+    void setUp() {
+        ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules()
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        ledgerExportService = new LedgerExportService(transactionRepository, objectMapper);
+        given(transactionRepository.streamLedger()).willReturn(Stream.of(
+                new LedgerEntry("id1", "1000000000", USE, S, 1000L, 9000L, AT),
+                new LedgerEntry("id,2", "1000000000", CANCEL, S, 1000L, 10000L, AT)
+        ).onClose(() -> closed.set(true)));
+    }
+
+    @Test
+    @DisplayName("NDJSON 은 거래마다 한 줄")
+    void exportNdjson() throws Exception {
+        // given
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        // when
+        long count = ledgerExportService.export(ExportFormat.NDJSON, outputStream);
+        // then
+        String[] lines = outputStream.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(2, count);
+        assertEquals(2, lines.length);
+        assertEquals("{\"transactionId\":\"id1\",\"accountNumber\":\"1000000000\",\"transactionType\":\"USE\""
+                + ",\"transactionResultType\":\"S\",\"amount\":1000,\"balanceSnapshot\":9000"
+                + ",\"transactedAt\":\"2024-01-01T12:00:00\"}", lines[0]);
+        assertTrue(lines[1].startsWith("{\"transactionId\":\"id,2\""));
+        assertTrue(closed.get());
+    }
+
+    @Test
+    @DisplayName("CSV 는 header 를 쓰고 쉼표가 든 값은 따옴표로 감싼다")
+    void exportCsv() throws Exception {
+        // given
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        // when
+        long count = ledgerExportService.export(ExportFormat.CSV, outputStream);
+        // then
+        String[] lines = outputStream.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(2, count);
+        assertEquals(3, lines.length);
+        assertEquals("transaction_id,account_number,transaction_type"
+                + ",transaction_result_type,amount,balance_snapshot,transacted_at", lines[0]);
+        assertEquals("id1,1000000000,USE,S,1000,9000,2024-01-01T12:00", lines[1]);
+        assertEquals("\"id,2\",1000000000,CANCEL,S,1000,10000,2024-01-01T12:00", lines[2]);
+        assertTrue(closed.get());
+    }
+}
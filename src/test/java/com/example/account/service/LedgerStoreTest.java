@@ -0,0 +1,82 @@
+package com.example.account.service;
+
+import com.example.account.domain.Account;
+import com.example.account.dto.LedgerRecord;
+import com.example.account.exception.AccountException;
+import com.example.account.repository.AccountRepository;
+import com.example.account.repository.TransactionRepository;
+import com.example.account.type.ErrorCode;
+import com.example.account.type.TransactionResultType;
+import com.example.account.type.TransactionType;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class LedgerStoreTest {
+    private static final String ACCOUNT_NUMBER = "1000000000";
+
+    @Mock
+    private AccountRepository accountRepository;
+
+    @Mock
+    private TransactionRepository transactionRepository;
+
+    @Mock
+    private AccountCache accountCache;
+
+    @Mock
+    private TransactionCache transactionCache;
+
+    @InjectMocks
+    private LedgerStore ledgerStore;
+
+    @Test
+    @DisplayName("묶음의 첫 거래 전 잔액일 때만 마지막 스냅샷으로 바꾼다")
+    void persist() {
+        // given
+        given(accountRepository.getReferenceById(1L)).willReturn(Account.builder().id(1L).build());
+        given(accountRepository.applyBalance(1L, 1000L, 500L, true)).willReturn(1);
+        // when
+        ledgerStore.persist(List.of(
+                record(TransactionResultType.S, 300L, 1000L, 700L),
+                record(TransactionResultType.F, 900L, 700L, 700L),
+                record(TransactionResultType.S, 200L, 700L, 500L)));
+        // then
+        verify(transactionRepository, times(1)).saveAll(anyList());
+        verify(accountCache, times(1)).invalidateAfterCommit(1L);
+    }
+
+    @Test
+    @DisplayName("engine 밖에서 잔액이 바뀌었으면 덮어쓰지 않고 실패")
+    void persist_changedOutside() {
+        // given
+        given(accountRepository.getReferenceById(1L)).willReturn(Account.builder().id(1L).build());
+        given(accountRepository.applyBalance(1L, 1000L, 700L, true)).willReturn(0);
+        // when
+        AccountException exception = assertThrows(AccountException.class,
+                () -> ledgerStore.persist(List.of(record(TransactionResultType.S, 300L, 1000L, 700L))));
+        // then
+        assertEquals(ErrorCode.ACCOUNT_TRANSACTION_LOCK, exception.getErrorCode());
+        verify(transactionRepository, times(0)).saveAll(anyList());
+    }
+
+    private static LedgerRecord record(TransactionResultType resultType, Long amount,
+                                       Long previousBalance, Long balanceSnapshot) {
+        return new LedgerRecord(1L, 1L, ACCOUNT_NUMBER, TransactionType.USE, resultType,
+                amount, previousBalance, balanceSnapshot, "tx" + amount, LocalDateTime.now());
+    }
+}
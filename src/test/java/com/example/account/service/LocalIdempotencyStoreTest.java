@@ -0,0 +1,57 @@
+package com.example.account.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LocalIdempotencyStoreTest {
+    private final LocalIdempotencyStore idempotencyStore =
+            new LocalIdempotencyStore(100, Duration.ofMinutes(1), Duration.ofSeconds(30));
+
+    @Test
+    @DisplayName("처음 보는 key 는 처리 중으로 잡고, 끝나면 응답을 돌려준다")
+    void reserveAndComplete() {
+        // given
+        // when
+        Optional<Object> first = idempotencyStore.reserve("key");
+        Optional<Object> pending = idempotencyStore.reserve("key");
+        idempotencyStore.complete("key", "response");
+        Optional<Object> replay = idempotencyStore.reserve("key");
+        // then
+        assertTrue(first.isEmpty());
+        assertEquals(IdempotencyStore.PENDING, pending.orElseThrow());
+        assertEquals("response", replay.orElseThrow());
+    }
+
+    @Test
+    @DisplayName("실패해서 풀린 key 는 다시 잡을 수 있고, 저장된 응답은 풀리지 않는다")
+    void release() {
+        // given
+        idempotencyStore.reserve("failed");
+        idempotencyStore.reserve("done");
+        idempotencyStore.complete("done", "response");
+        // when
+        idempotencyStore.release("failed");
+        idempotencyStore.release("done");
+        // then
+        assertTrue(idempotencyStore.reserve("failed").isEmpty());
+        assertEquals("response", idempotencyStore.reserve("done").orElseThrow());
+    }
+
+    @Test
+    @DisplayName("처리 중 표시는 pending-ttl 이 지나면 만료")
+    void pendingExpires() throws InterruptedException {
+        // given
+        LocalIdempotencyStore store =
+                new LocalIdempotencyStore(100, Duration.ofMinutes(1), Duration.ofMillis(50));
+        store.reserve("key");
+        // when
+        Thread.sleep(100);
+        // then
+        assertTrue(store.reserve("key").isEmpty());
+    }
+}
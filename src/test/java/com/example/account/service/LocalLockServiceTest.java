@@ -0,0 +1,102 @@
+package com.example.account.service;
+
+import com.example.account.exception.AccountException;
+import com.example.account.type.ErrorCode;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LocalLockServiceTest {
+    private final LocalLockService lockService = new LocalLockService(16);
+
+    @Test
+    void successGetLock() {
+        // given
+        // when
+        // then
+        assertDoesNotThrow(() -> lockService.lock("1234"));
+    }
+
+    @Test
+    void failGetLock() {
+        // given
+        lockService.lock("1234");
+
+        // when
+        AccountException exception = assertThrows(AccountException.class,
+                () -> lockService.lock("1234"));
+
+        // then
+        assertEquals(ErrorCode.ACCOUNT_TRANSACTION_LOCK, exception.getErrorCode());
+    }
+
+    @Test
+    void getLockAfterUnlock() {
+        // given
+        lockService.lock("1234");
+
+        // when
+        lockService.unlock("1234");
+
+        // then
+        assertDoesNotThrow(() -> lockService.lock("1234"));
+    }
+
+    @Test
+    void waitForLockReleasedByOtherThread() {
+        // given
+        lockService.lock("1234");
+        CompletableFuture<String> waiter =
+                CompletableFuture.supplyAsync(() -> lockService.lock("1234"));
+
+        // when
+        lockService.unlock("1234");
+
+        // then
+        assertEquals("get success", waiter.join());
+    }
+
+    @Test
+    void lockAsyncWaitsWithoutBlockingCaller() {
+        // given
+        lockService.lock("1234");
+
+        // when
+        CompletableFuture<Long> waiter = lockService.lockAsync("1234");
+        assertFalse(waiter.isDone());
+        lockService.unlock("1234");
+
+        // then
+        assertDoesNotThrow(() -> waiter.join());
+        lockService.unlockAsync("1234", waiter.join()).join();
+        assertDoesNotThrow(() -> lockService.lock("1234"));
+    }
+
+    @Test
+    void ignoreUnlockOfLockNotHeld() {
+        // given
+        lockService.unlock("1234"); // 잡지 않은 lock 을 해제
+
+        // when
+        lockService.lock("1234");
+
+        // then
+        AccountException exception = assertThrows(AccountException.class,
+                () -> lockService.lock("1234"));
+        assertEquals(ErrorCode.ACCOUNT_TRANSACTION_LOCK, exception.getErrorCode());
+    }
+
+    @Test
+    void unlockWithEqualAccountNumber() {
+        // given
+        lockService.lock("1234");
+
+        // when
+        lockService.unlock(new String("1234")); // 같은 값의 다른 String 인스턴스
+
+        // then
+        assertEquals("get success", lockService.lock("1234"));
+    }
+}
@@ -4,16 +4,28 @@ import com.example.account.dto.UseBalance;
 import com.example.account.exception.AccountException;
 import com.example.account.type.ErrorCode;
 import org.aspectj.lang.ProceedingJoinPoint;
+import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.willAnswer;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 
@@ -22,6 +34,18 @@ class LockAopAspectTest {
     @Mock
     private LockService lockService;
 
+    @Mock
+    private AccountMetrics accountMetrics;
+
+    @Mock
+    private AsyncTaskExecutor taskExecutor;
+
+    @Mock
+    private BalanceUpdatePolicy balanceUpdatePolicy;
+
+    @Mock
+    private HotAccountService hotAccountService;
+
     @Mock
     private ProceedingJoinPoint proceedingJoinPoint;
 
@@ -47,6 +71,8 @@ class LockAopAspectTest {
                 .unlock(unlockArgumentCaptor.capture());
         assertEquals("1234",lockArgumentCaptor.getValue());
         assertEquals("1234",unlockArgumentCaptor.getValue());
+        verify(accountMetrics, times(1)).recordLockWait(anyLong(), eq(true));
+        verify(accountMetrics, times(1)).recordLockHold(anyLong());
     }
     @Test
     void lockAndUnlock_evenIfThrow1() throws Throwable {
@@ -71,4 +97,161 @@ class LockAopAspectTest {
         assertEquals("54321",lockArgumentCaptor.getValue());
         assertEquals("54321",unlockArgumentCaptor.getValue());
     }
-}
\ No newline at end of file
+
+    @Test
+    void lockFailed_recordWaitOnly() throws Throwable {
+        // given
+        UseBalance.Request request
+                = new UseBalance.Request(123L, "54321", 1000L);
+        given(lockService.lock(anyString()))
+                .willThrow(new AccountException(ErrorCode.ACCOUNT_TRANSACTION_LOCK));
+        // when
+        assertThrows(AccountException.class,
+                ()-> lockAopAspect.aroundMethod(proceedingJoinPoint, request));
+
+        // then
+        verify(proceedingJoinPoint, times(0)).proceed();
+        verify(lockService, times(0)).unlock(anyString());
+        verify(accountMetrics, times(1)).recordLockWait(anyLong(), eq(false));
+        verify(accountMetrics, times(0)).recordLockHold(anyLong());
+    }
+
+    @Test
+    @DisplayName("비동기 lock - 잡힌 뒤에 실행하고 해제한 다음 응답")
+    void asyncLockAndUnlock() throws Throwable {
+        // given
+        UseBalance.Request request
+                = new UseBalance.Request(123L, "1234", 1000L);
+        given(lockService.lockAsync(anyString()))
+                .willReturn(CompletableFuture.completedFuture(-7L));
+        given(lockService.unlockAsync(anyString(), anyLong()))
+                .willReturn(CompletableFuture.completedFuture(null));
+        willAnswer(invocation -> {
+            invocation.<Runnable>getArgument(0).run();
+            return null;
+        }).given(taskExecutor).execute(any());
+        given(proceedingJoinPoint.proceed())
+                .willReturn(CompletableFuture.completedFuture("response"));
+        // when
+        CompletableFuture<Object> response =
+                lockAopAspect.aroundAsyncMethod(proceedingJoinPoint, request);
+
+        // then
+        assertEquals("response", response.join());
+        verify(lockService, times(1)).lockAsync("1234");
+        verify(lockService, times(1)).unlockAsync("1234", -7L);
+        verify(accountMetrics, times(1)).recordLockWait(anyLong(), eq(true));
+        verify(accountMetrics, times(1)).recordLockHold(anyLong());
+    }
+
+    @Test
+    @DisplayName("비동기 lock - 실행 중 예외가 나도 해제")
+    void asyncLockAndUnlock_evenIfThrow() throws Throwable {
+        // given
+        UseBalance.Request request
+                = new UseBalance.Request(123L, "54321", 1000L);
+        given(lockService.lockAsync(anyString()))
+                .willReturn(CompletableFuture.completedFuture(-7L));
+        given(lockService.unlockAsync(anyString(), anyLong()))
+                .willReturn(CompletableFuture.completedFuture(null));
+        willAnswer(invocation -> {
+            invocation.<Runnable>getArgument(0).run();
+            return null;
+        }).given(taskExecutor).execute(any());
+        given(proceedingJoinPoint.proceed())
+                .willThrow(new AccountException(ErrorCode.AMOUNT_EXCEED_BALANCE));
+        // when
+        CompletableFuture<Object> response =
+                lockAopAspect.aroundAsyncMethod(proceedingJoinPoint, request);
+
+        // then
+        CompletionException exception = assertThrows(CompletionException.class, response::join);
+        assertEquals(ErrorCode.AMOUNT_EXCEED_BALANCE,
+                ((AccountException) exception.getCause()).getErrorCode());
+        verify(lockService, times(1)).unlockAsync("54321", -7L);
+    }
+
+    @Test
+    @DisplayName("비동기 lock - 획득 실패면 실행하지 않음")
+    void asyncLockFailed() throws Throwable {
+        // given
+        UseBalance.Request request
+                = new UseBalance.Request(123L, "54321", 1000L);
+        given(lockService.lockAsync(anyString()))
+                .willReturn(CompletableFuture.failedFuture(
+                        new AccountException(ErrorCode.ACCOUNT_TRANSACTION_LOCK)));
+        // when
+        CompletableFuture<Object> response =
+                lockAopAspect.aroundAsyncMethod(proceedingJoinPoint, request);
+
+        // then
+        CompletionException exception = assertThrows(CompletionException.class, response::join);
+        assertEquals(ErrorCode.ACCOUNT_TRANSACTION_LOCK,
+                ((AccountException) exception.getCause()).getErrorCode());
+        verify(proceedingJoinPoint, times(0)).proceed();
+        verify(lockService, times(0)).unlockAsync(anyString(), anyLong());
+        verify(accountMetrics, times(1)).recordLockWait(anyLong(), eq(false));
+    }
+
+    @Test
+    @DisplayName("낙관적 모드 - lock 없이 실행하고 충돌하면 다시 실행")
+    void optimistic_retryOnConflict() throws Throwable {
+        // given
+        UseBalance.Request request
+                = new UseBalance.Request(123L, "1234", 1000L);
+        given(balanceUpdatePolicy.isLockFree()).willReturn(true);
+        given(balanceUpdatePolicy.getMaxRetries()).willReturn(3);
+        given(proceedingJoinPoint.proceed())
+                .willThrow(new ObjectOptimisticLockingFailureException("Account", 1L))
+                .willReturn("done");
+        // when
+        Object result = lockAopAspect.aroundMethod(proceedingJoinPoint, request);
+
+        // then
+        assertEquals("done", result);
+        verify(proceedingJoinPoint, times(2)).proceed();
+        verify(lockService, times(0)).lock(anyString());
+        verify(lockService, times(0)).unlock(anyString());
+        verify(accountMetrics, times(1)).recordConflict(true);
+        verify(accountMetrics, times(0)).recordConflict(false);
+    }
+
+    @Test
+    @DisplayName("낙관적 모드 - 재시도를 다 쓰면 ACCOUNT_TRANSACTION_LOCK")
+    void optimistic_retryExhausted() throws Throwable {
+        // given
+        UseBalance.Request request
+                = new UseBalance.Request(123L, "1234", 1000L);
+        given(balanceUpdatePolicy.isLockFree()).willReturn(true);
+        given(balanceUpdatePolicy.getMaxRetries()).willReturn(2);
+        given(proceedingJoinPoint.proceed())
+                .willThrow(new ObjectOptimisticLockingFailureException("Account", 1L));
+        // when
+        AccountException exception = assertThrows(AccountException.class,
+                () -> lockAopAspect.aroundMethod(proceedingJoinPoint, request));
+
+        // then
+        assertEquals(ErrorCode.ACCOUNT_TRANSACTION_LOCK, exception.getErrorCode());
+        verify(proceedingJoinPoint, times(3)).proceed();
+        verify(accountMetrics, times(2)).recordConflict(true);
+        verify(accountMetrics, times(1)).recordConflict(false);
+    }
+
+    @Test
+    @DisplayName("낙관적 모드 - 비동기 메서드도 lock 없이 실행")
+    void optimistic_async() throws Throwable {
+        // given
+        UseBalance.Request request
+                = new UseBalance.Request(123L, "1234", 1000L);
+        given(balanceUpdatePolicy.isLockFree()).willReturn(true);
+        given(proceedingJoinPoint.proceed())
+                .willReturn(CompletableFuture.completedFuture("done"));
+        // when
+        CompletableFuture<Object> response = lockAopAspect.aroundAsyncMethod(proceedingJoinPoint, request);
+
+        // then
+        assertEquals("done", response.join());
+        verify(lockService, times(0)).lockAsync(anyString());
+        verify(accountMetrics, times(0)).recordConflict(anyBoolean());
+    }
+}
@@ -0,0 +1,139 @@
+package com.example.account.service;
+
+import com.example.account.exception.AccountException;
+import com.example.account.type.ErrorCode;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class QueuedLockServiceTest {
+    @Mock
+    private LockService delegate;
+
+    private QueuedLockService lockService;
+
+    @BeforeEach
+    void setUp() {
+        lockService = new QueuedLockService(delegate, 2, Duration.ofMillis(300));
+    }
+
+    @Test
+    void lockAndUnlock() {
+        // given
+        given(delegate.lock(anyString())).willReturn("get success");
+        // when
+        lockService.lock("1234");
+        lockService.unlock("1234");
+        // then
+        assertDoesNotThrow(() -> lockService.lock("1234"));
+        verify(delegate, times(2)).lock("1234");
+        verify(delegate, times(1)).unlock("1234");
+    }
+
+    @Test
+    @DisplayName("해제되면 기다리던 요청에게 넘겨줌")
+    void handOffToWaiter() throws InterruptedException {
+        // given
+        given(delegate.lock(anyString())).willReturn("get success");
+        lockService.lock("1234");
+        CompletableFuture<String> waiter =
+                CompletableFuture.supplyAsync(() -> lockService.lock("1234"));
+        Thread.sleep(50);
+        assertFalse(waiter.isDone());
+        // when
+        lockService.unlock("1234");
+        // then
+        assertEquals("get success", waiter.join());
+        verify(delegate, times(2)).lock("1234");
+    }
+
+    @Test
+    @DisplayName("대기열이 차 있으면 기다리지 않고 실패")
+    void failFastWhenQueueFull() {
+        // given
+        given(delegate.lock(anyString())).willReturn("get success");
+        lockService.lock("1234");
+        CompletableFuture<Long> first = lockService.lockAsync("1234");
+        CompletableFuture<Long> second = lockService.lockAsync("1234");
+        // when
+        long start = System.nanoTime();
+        AccountException exception = assertThrows(AccountException.class,
+                () -> lockService.lock("1234"));
+        // then
+        assertEquals(ErrorCode.ACCOUNT_TRANSACTION_LOCK, exception.getErrorCode());
+        assertTrue(System.nanoTime() - start < Duration.ofMillis(100).toNanos());
+        assertFalse(first.isDone());
+        assertFalse(second.isDone());
+        verify(delegate, times(1)).lock("1234");
+    }
+
+    @Test
+    @DisplayName("먼저 줄 선 요청부터 차례로 넘겨줌")
+    void handOffInFifoOrder() {
+        // given
+        given(delegate.lockAsync(anyString())).willReturn(CompletableFuture.completedFuture(1L));
+        given(delegate.unlockAsync(anyString(), anyLong())).willReturn(CompletableFuture.completedFuture(null));
+        CompletableFuture<Long> owner = lockService.lockAsync("1234");
+        CompletableFuture<Long> first = lockService.lockAsync("1234");
+        CompletableFuture<Long> second = lockService.lockAsync("1234");
+        assertTrue(owner.isDone());
+        // when
+        lockService.unlockAsync("1234", owner.join()).join();
+        // then
+        assertTrue(first.isDone());
+        assertFalse(second.isDone());
+        lockService.unlockAsync("1234", first.join()).join();
+        assertTrue(second.isDone());
+    }
+
+    @Test
+    @DisplayName("기다리다 시간이 지나면 대기열에서 빠지고 실패")
+    void waiterTimesOut() {
+        // given
+        given(delegate.lock(anyString())).willReturn("get success");
+        lockService.lock("1234");
+        // when
+        AccountException exception = assertThrows(AccountException.class,
+                () -> lockService.lock("1234"));
+        // then
+        assertEquals(ErrorCode.ACCOUNT_TRANSACTION_LOCK, exception.getErrorCode());
+        lockService.unlock("1234");
+        assertDoesNotThrow(() -> lockService.lock("1234"));
+        verify(delegate, times(2)).lock("1234");
+    }
+
+    @Test
+    @DisplayName("분산 lock 획득에 실패하면 다음 대기자에게 넘겨줌")
+    void handOffWhenDelegateFails() {
+        // given
+        given(delegate.lockAsync(anyString()))
+                .willReturn(CompletableFuture.completedFuture(1L))
+                .willReturn(CompletableFuture.failedFuture(
+                        new AccountException(ErrorCode.ACCOUNT_TRANSACTION_LOCK)))
+                .willReturn(CompletableFuture.completedFuture(3L));
+        given(delegate.unlockAsync(anyString(), anyLong())).willReturn(CompletableFuture.completedFuture(null));
+        CompletableFuture<Long> owner = lockService.lockAsync("1234");
+        CompletableFuture<Long> failing = lockService.lockAsync("1234");
+        CompletableFuture<Long> next = lockService.lockAsync("1234");
+        // when
+        lockService.unlockAsync("1234", owner.join()).join();
+        // then
+        assertThrows(CompletionException.class, failing::join);
+        assertEquals(3L, next.join());
+    }
+}
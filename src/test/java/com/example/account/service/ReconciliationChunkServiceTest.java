@@ -0,0 +1,123 @@
+package com.example.account.service;
+
+import com.example.account.domain.ReconciliationCheckpoint;
+import com.example.account.dto.Reconciliation;
+import com.example.account.dto.ReconciliationRow;
+import com.example.account.repository.ReconciliationCheckpointRepository;
+import com.example.account.repository.TransactionRepository;
+import com.example.account.type.TransactionType;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static com.example.account.type.TransactionType.CANCEL;
+import static com.example.account.type.TransactionType.USE;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class ReconciliationChunkServiceTest {
+    private static final LocalDateTime AT = LocalDateTime.of(2024, 1, 1, 0, 0);
+
+    @Mock
+    private TransactionRepository transactionRepository;
+
+    @Mock
+    private ReconciliationCheckpointRepository reconciliationCheckpointRepository;
+
+    @InjectMocks
+    private ReconciliationChunkService reconciliationChunkService;
+
+    @Test
+    @DisplayName("원장대로 계산한 잔액이 맞으면 불일치 없이 대조 위치를 만든다")
+    void reconcileMatched() {
+        // given
+        given(reconciliationCheckpointRepository.findByAccountIdBetween(1L, 10L))
+                .willReturn(List.of());
+        given(transactionRepository.streamForReconciliation(1L, 10L)).willReturn(Stream.of(
+                row(1L, 900L, 11L, USE, 100L, 900L, AT),
+                row(1L, 900L, 12L, USE, 100L, 800L, AT.plusSeconds(1)),
+                row(1L, 900L, 13L, CANCEL, 100L, 900L, AT.plusSeconds(2)),
+                row(2L, 50L, 21L, USE, 50L, 50L, AT)
+        ));
+        ArgumentCaptor<List<ReconciliationCheckpoint>> captor = ArgumentCaptor.forClass(List.class);
+        // when
+        Reconciliation.Result result = reconciliationChunkService.reconcile(1L, 10L, 100);
+        // then
+        verify(reconciliationCheckpointRepository).saveAll(captor.capture());
+        assertEquals(2, result.getAccountCount());
+        assertEquals(4, result.getTransactionCount());
+        assertEquals(0, result.getMismatchCount());
+        assertEquals(2, captor.getValue().size());
+        ReconciliationCheckpoint checkpoint = captor.getValue().get(0);
+        assertEquals(1L, checkpoint.getAccountId());
+        assertEquals(13L, checkpoint.getLastTransactionId());
+        assertEquals(AT.plusSeconds(2), checkpoint.getLastTransactionAt());
+        assertEquals(900L, checkpoint.getLedgerBalance());
+    }
+
+    @Test
+    @DisplayName("대조 위치의 잔액부터 이어서 계산하고, 스냅샷과 계좌 잔액 불일치를 보고한다")
+    void reconcileMismatchFromCheckpoint() {
+        // given
+        ReconciliationCheckpoint checkpoint = ReconciliationCheckpoint.builder()
+                .accountId(1L)
+                .lastTransactionId(10L)
+                .lastTransactionAt(AT)
+                .ledgerBalance(1000L)
+                .build();
+        given(reconciliationCheckpointRepository.findByAccountIdBetween(1L, 10L))
+                .willReturn(List.of(checkpoint));
+        given(transactionRepository.streamForReconciliation(1L, 10L)).willReturn(Stream.of(
+                row(1L, 650L, 11L, USE, 100L, 800L, AT.plusSeconds(1)),
+                row(1L, 650L, 12L, USE, 100L, 700L, AT.plusSeconds(2))
+        ));
+        // when
+        Reconciliation.Result result = reconciliationChunkService.reconcile(1L, 10L, 1);
+        // then
+        assertEquals(2, result.getMismatchCount());
+        assertEquals(1, result.getMismatches().size());
+        Reconciliation.Mismatch mismatch = result.getMismatches().get(0);
+        assertEquals("T11", mismatch.getTransactionId());
+        assertEquals(900L, mismatch.getExpectedBalance());
+        assertEquals(800L, mismatch.getActualBalance());
+        assertEquals(12L, checkpoint.getLastTransactionId());
+        assertEquals(700L, checkpoint.getLedgerBalance());
+    }
+
+    @Test
+    @DisplayName("마지막 거래 스냅샷과 계좌 잔액이 다르면 불일치")
+    void reconcileAccountBalanceMismatch() {
+        // given
+        given(reconciliationCheckpointRepository.findByAccountIdBetween(1L, 10L))
+                .willReturn(List.of());
+        given(transactionRepository.streamForReconciliation(1L, 10L)).willReturn(Stream.of(
+                row(3L, 1234L, 31L, USE, 100L, 900L, AT)
+        ));
+        // when
+        Reconciliation.Result result = reconciliationChunkService.reconcile(1L, 10L, 100);
+        // then
+        assertEquals(1, result.getMismatchCount());
+        Reconciliation.Mismatch mismatch = result.getMismatches().get(0);
+        assertEquals("1000000003", mismatch.getAccountNumber());
+        assertNull(mismatch.getTransactionId());
+        assertEquals(900L, mismatch.getExpectedBalance());
+        assertEquals(1234L, mismatch.getActualBalance());
+    }
+
+    private static ReconciliationRow row(Long accountId, Long accountBalance, Long id,
+                                         TransactionType type,
+                                         Long amount, Long snapshot, LocalDateTime at) {
+        return new ReconciliationRow(accountId, "100000000" + accountId, accountBalance,
+                id, "T" + id, type, amount, snapshot, at);
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.account.service;
+
+import com.example.account.dto.Reconciliation;
+import com.example.account.repository.AccountRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class ReconciliationServiceTest {
+    @Mock
+    private AccountRepository accountRepository;
+
+    @Mock
+    private ReconciliationChunkService reconciliationChunkService;
+
+    private ReconciliationService reconciliationService;
+
+    @BeforeEach
+    void setUp() {
+        reconciliationService = new ReconciliationService(
+                accountRepository, reconciliationChunkService, 2, 10, 2);
+    }
+
+    @AfterEach
+    void tearDown() {
+        reconciliationService.shutdown();
+    }
+
+    @Test
+    @DisplayName("계좌 id 범위를 chunk 로 나눠 대조하고 결과를 합친다")
+    void reconcileChunks() {
+        // given
+        given(accountRepository.findMaxId()).willReturn(Optional.of(35L));
+        given(reconciliationChunkService.reconcile(anyLong(), anyLong(), anyInt()))
+                .willAnswer(invocation -> {
+                    long from = invocation.getArgument(0);
+                    long to = invocation.getArgument(1);
+                    return new Reconciliation.Result(to - from + 1, 10, 1,
+                            List.of(new Reconciliation.Mismatch(String.valueOf(from), null, 0L, 1L)));
+                });
+        // when
+        Reconciliation.Result result = reconciliationService.reconcile();
+        // then
+        verify(reconciliationChunkService, times(4)).reconcile(anyLong(), anyLong(), anyInt());
+        assertEquals(35, result.getAccountCount());
+        assertEquals(40, result.getTransactionCount());
+        assertEquals(4, result.getMismatchCount());
+        assertEquals(2, result.getMismatches().size());
+    }
+
+    @Test
+    @DisplayName("계좌가 없으면 대조하지 않는다")
+    void reconcileNoAccount() {
+        // given
+        given(accountRepository.findMaxId()).willReturn(Optional.empty());
+        // when
+        Reconciliation.Result result = reconciliationService.reconcile();
+        // then
+        verify(reconciliationChunkService, never()).reconcile(anyLong(), anyLong(), anyInt());
+        assertEquals(0, result.getAccountCount());
+    }
+}
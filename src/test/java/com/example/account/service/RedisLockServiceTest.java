@@ -0,0 +1,123 @@
+package com.example.account.service;
+
+import com.example.account.exception.AccountException;
+import com.example.account.type.ErrorCode;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.redisson.api.RFuture;
+import org.redisson.api.RLock;
+import org.redisson.api.RedissonClient;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+@SuppressWarnings("unchecked")
+class RedisLockServiceTest {
+    @Mock
+    private RedissonClient redissonClient;
+
+    // RLock은 직접 생성한것은 아니니만 RLock의 동작에 따라 로직이 변하기 때문에 목으로 만들어준다.
+    @Mock
+    private RLock rLock;
+
+    @InjectMocks
+    RedisLockService lockService;
+
+    @Test
+    void successGetLock() throws InterruptedException {
+        // given
+        given(redissonClient.getLock(anyString()))
+                .willReturn(rLock);
+
+        given(rLock.tryLock(anyLong(), anyLong(), any()))
+                .willReturn(true);
+
+        // when
+        // then
+        assertDoesNotThrow(() -> lockService.lock("1234"));
+    }
+
+    @Test
+    void failGetLock() throws InterruptedException {
+        // given
+        given(redissonClient.getLock(anyString()))
+                .willReturn(rLock);
+
+        given(rLock.tryLock(anyLong(), anyLong(), any()))
+                .willReturn(false);
+
+        // when
+        AccountException exception = assertThrows(AccountException.class,
+                () -> lockService.lock("1234"));
+
+        // then
+        assertEquals(ErrorCode.ACCOUNT_TRANSACTION_LOCK, exception.getErrorCode());
+    }
+
+    @Test
+    void successGetLockAsync() {
+        // given
+        RFuture<Boolean> lockFuture = mock(RFuture.class);
+        given(redissonClient.getLock(anyString()))
+                .willReturn(rLock);
+        given(rLock.tryLockAsync(anyLong(), anyLong(), any(), anyLong()))
+                .willReturn(lockFuture);
+        given(lockFuture.toCompletableFuture())
+                .willReturn(CompletableFuture.completedFuture(true));
+
+        // when
+        Long ownerId = lockService.lockAsync("1234").join();
+
+        // then
+        verify(rLock).tryLockAsync(eq(1L), eq(15L), eq(TimeUnit.SECONDS), eq(ownerId.longValue()));
+    }
+
+    @Test
+    void failGetLockAsync() {
+        // given
+        RFuture<Boolean> lockFuture = mock(RFuture.class);
+        given(redissonClient.getLock(anyString()))
+                .willReturn(rLock);
+        given(rLock.tryLockAsync(anyLong(), anyLong(), any(), anyLong()))
+                .willReturn(lockFuture);
+        given(lockFuture.toCompletableFuture())
+                .willReturn(CompletableFuture.completedFuture(false));
+
+        // when
+        CompletionException exception = assertThrows(CompletionException.class,
+                () -> lockService.lockAsync("1234").join());
+
+        // then
+        assertEquals(ErrorCode.ACCOUNT_TRANSACTION_LOCK,
+                ((AccountException) exception.getCause()).getErrorCode());
+    }
+
+    @Test
+    void unlockAsyncWithOwnerId() {
+        // given
+        RFuture<Void> unlockFuture = mock(RFuture.class);
+        given(redissonClient.getLock(anyString()))
+                .willReturn(rLock);
+        given(rLock.unlockAsync(anyLong()))
+                .willReturn(unlockFuture);
+        given(unlockFuture.toCompletableFuture())
+                .willReturn(CompletableFuture.completedFuture(null));
+
+        // when
+        lockService.unlockAsync("1234", -42L).join();
+
+        // then
+        verify(rLock).unlockAsync(-42L);
+    }
+}
@@ -0,0 +1,131 @@
+package com.example.account.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.redisson.api.RAtomicLong;
+import org.redisson.api.RBucket;
+import org.redisson.api.RedissonClient;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+@SuppressWarnings("unchecked")
+class SnowflakeNodeIdLeaseTest {
+    private static final Duration TTL = Duration.ofSeconds(30);
+
+    @Mock
+    private RedissonClient redissonClient;
+
+    @Mock
+    private RAtomicLong sequence;
+
+    @Mock
+    private RBucket<Object> taken;
+
+    @Mock
+    private RBucket<Object> free;
+
+    @Mock
+    private RBucket<Object> next;
+
+    private final AtomicLong clock = new AtomicLong(1_000_000L);
+
+    private SnowflakeNodeIdLease lease;
+
+    @BeforeEach
+    void setUp() {
+        lease = new SnowflakeNodeIdLease(redissonClient, TTL, clock::get);
+        given(redissonClient.getAtomicLong("TXID:NODE:SEQ")).willReturn(sequence);
+    }
+
+    @Test
+    @DisplayName("INCR 로 정한 번호부터 비어 있는 번호를 빌린다")
+    void acquireFreeNodeId() {
+        // given
+        given(sequence.getAndIncrement()).willReturn(1023L);
+        given(redissonClient.getBucket("TXID:NODE:1023")).willReturn(taken);
+        given(redissonClient.getBucket("TXID:NODE:0")).willReturn(free);
+        given(taken.setIfAbsent(anyString(), eq(TTL))).willReturn(false);
+        given(free.setIfAbsent(anyString(), eq(TTL))).willReturn(true);
+        // when
+        long nodeId = lease.acquire();
+        // then
+        assertEquals(0L, nodeId);
+    }
+
+    @Test
+    @DisplayName("모든 번호가 사용 중이면 시작하지 않는다")
+    void failWhenAllTaken() {
+        // given
+        given(sequence.getAndIncrement()).willReturn(0L);
+        given(redissonClient.getBucket(anyString())).willReturn(taken);
+        given(taken.setIfAbsent(anyString(), eq(TTL))).willReturn(false);
+        // when
+        // then
+        assertThrows(IllegalStateException.class, () -> lease.acquire());
+        verify(taken, times(1024)).setIfAbsent(anyString(), any(Duration.class));
+    }
+
+    @Test
+    @DisplayName("다른 노드에 뺏기면 비어 있는 번호를 다시 빌려서 바꾼다")
+    void renewAfterLostLease() {
+        // given
+        given(sequence.getAndIncrement()).willReturn(0L, 1L);
+        given(redissonClient.getBucket("TXID:NODE:0")).willReturn(free);
+        given(redissonClient.getBucket("TXID:NODE:1")).willReturn(next);
+        given(free.setIfAbsent(anyString(), eq(TTL))).willReturn(true, false);
+        given(free.get()).willReturn("other-node");
+        given(next.setIfAbsent(anyString(), eq(TTL))).willReturn(true);
+        lease.acquire();
+        // when
+        lease.renew();
+        // then
+        assertEquals(1L, lease.currentNodeId());
+    }
+
+    @Test
+    @DisplayName("다시 빌리지 못하면 id 를 만들지 않는다")
+    void failWhenLostLeaseNotReplaced() {
+        // given
+        given(sequence.getAndIncrement()).willReturn(0L, 1L);
+        given(redissonClient.getBucket(anyString())).willReturn(taken);
+        given(redissonClient.getBucket("TXID:NODE:0")).willReturn(free);
+        given(free.setIfAbsent(anyString(), eq(TTL))).willReturn(true, false);
+        given(free.get()).willReturn("other-node");
+        given(taken.setIfAbsent(anyString(), eq(TTL))).willReturn(false);
+        SnowflakeTransactionIdGenerator generator = new SnowflakeTransactionIdGenerator(-1, lease);
+        // when
+        lease.renew();
+        // then
+        assertThrows(IllegalStateException.class, generator::generate);
+    }
+
+    @Test
+    @DisplayName("갱신하지 못한 채 TTL 이 지나면 id 를 만들지 않는다")
+    void failWhenLeaseExpired() {
+        // given
+        given(sequence.getAndIncrement()).willReturn(0L);
+        given(redissonClient.getBucket("TXID:NODE:0")).willReturn(free);
+        given(free.setIfAbsent(anyString(), eq(TTL))).willReturn(true);
+        SnowflakeTransactionIdGenerator generator = new SnowflakeTransactionIdGenerator(-1, lease);
+        generator.generate();
+        // when
+        clock.addAndGet(TTL.toMillis());
+        // then
+        assertThrows(IllegalStateException.class, generator::generate);
+    }
+}
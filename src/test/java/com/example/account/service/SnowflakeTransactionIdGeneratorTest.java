@@ -0,0 +1,109 @@
+package com.example.account.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SnowflakeTransactionIdGeneratorTest {
+    private static final long NOW = SnowflakeTransactionIdGenerator.EPOCH_MILLIS + 1_000_000L;
+
+    @Test
+    @DisplayName("13자 고정 길이이고 문자열 순서가 생성 순서와 같다")
+    void ordered() {
+        // given
+        AtomicLong clock = new AtomicLong(NOW);
+        SnowflakeTransactionIdGenerator generator = new SnowflakeTransactionIdGenerator(3, clock::get);
+        // when
+        String first = generator.generate();
+        String second = generator.generate();
+        clock.addAndGet(1);
+        String third = generator.generate();
+        // then
+        assertEquals(13, first.length());
+        assertTrue(first.compareTo(second) < 0);
+        assertTrue(second.compareTo(third) < 0);
+    }
+
+    @Test
+    @DisplayName("시간, 노드, 순번 자리")
+    void layout() {
+        // given
+        SnowflakeTransactionIdGenerator generator = new SnowflakeTransactionIdGenerator(5, () -> NOW);
+        // when
+        long first = generator.nextId();
+        long second = generator.nextId();
+        // then
+        assertEquals(1_000_000L, first >>> 22);
+        assertEquals(5L, (first >>> 12) & 1023);
+        assertEquals(0L, first & 4095);
+        assertEquals(1L, second & 4095);
+    }
+
+    @Test
+    @DisplayName("시계가 뒤로 가거나 순번을 다 써도 계속 증가")
+    void monotonic() {
+        // given
+        AtomicLong clock = new AtomicLong(NOW);
+        SnowflakeTransactionIdGenerator generator = new SnowflakeTransactionIdGenerator(0, clock::get);
+        long previous = generator.nextId();
+        // when
+        // then
+        clock.set(NOW - 10);
+        for (int i = 0; i < 10_000; i++) { // 한 밀리초의 순번(4096)을 넘긴다.
+            long id = generator.nextId();
+            assertTrue(id > previous);
+            previous = id;
+        }
+    }
+
+    @Test
+    @DisplayName("여러 스레드에서 생성해도 중복이 없다")
+    void unique() throws InterruptedException {
+        // given
+        SnowflakeTransactionIdGenerator generator = new SnowflakeTransactionIdGenerator(1, System::currentTimeMillis);
+        Set<String> ids = ConcurrentHashMap.newKeySet();
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        // when
+        for (int t = 0; t < 4; t++) {
+            executor.execute(() -> {
+                for (int i = 0; i < 10_000; i++) {
+                    ids.add(generator.generate());
+                }
+            });
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+        // then
+        assertEquals(40_000, ids.size());
+    }
+
+    @Test
+    @DisplayName("Crockford base32 인코딩")
+    void encode() {
+        // given
+        // when
+        // then
+        assertEquals("0000000000000", SnowflakeTransactionIdGenerator.encode(0));
+        assertEquals("000000000000Z", SnowflakeTransactionIdGenerator.encode(31));
+        assertEquals("0000000000010", SnowflakeTransactionIdGenerator.encode(32));
+        assertEquals("7ZZZZZZZZZZZZ", SnowflakeTransactionIdGenerator.encode(Long.MAX_VALUE));
+    }
+
+    @Test
+    @DisplayName("노드 id 범위 검사")
+    void invalidNodeId() {
+        // given
+        // when
+        // then
+        assertThrows(IllegalArgumentException.class, () -> new SnowflakeTransactionIdGenerator(1024));
+        assertThrows(IllegalArgumentException.class, () -> new SnowflakeTransactionIdGenerator(-1));
+    }
+}
@@ -0,0 +1,156 @@
+package com.example.account.service;
+
+import com.example.account.dto.UseBalance;
+import com.example.account.dto.UseBalanceBatch;
+import com.example.account.exception.AccountException;
+import com.example.account.type.ErrorCode;
+import com.example.account.type.TransactionResultType;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class TransactionBatchServiceTest {
+    @Mock
+    private LockService lockService;
+
+    @Mock
+    private TransactionService transactionService;
+
+    @Mock
+    private BalanceUpdatePolicy balanceUpdatePolicy;
+
+    @Mock
+    private LedgerEngine ledgerEngine;
+
+    @InjectMocks
+    private TransactionBatchService transactionBatchService;
+
+    @Test
+    @DisplayName("계좌별로 묶어서 lock 은 계좌당 한 번")
+    void useBalance_groupByAccount() {
+        // given
+        UseBalance.Request first = new UseBalance.Request(1L, "1000000000", 100L);
+        UseBalance.Request second = new UseBalance.Request(1L, "1000000001", 200L);
+        UseBalance.Request third = new UseBalance.Request(1L, "1000000000", 300L);
+        given(transactionService.useBalanceBatch(eq("1000000000"), anyList()))
+                .willReturn(Arrays.asList(success("1000000000", 100L), success("1000000000", 300L)));
+        given(transactionService.useBalanceBatch(eq("1000000001"), anyList()))
+                .willReturn(Arrays.asList(success("1000000001", 200L)));
+        // when
+        List<UseBalanceBatch.Result> results =
+                transactionBatchService.useBalance(Arrays.asList(first, second, third));
+        // then
+        verify(lockService, times(1)).lock("1000000000");
+        verify(lockService, times(1)).unlock("1000000000");
+        verify(lockService, times(1)).lock("1000000001");
+        verify(lockService, times(1)).unlock("1000000001");
+        verify(transactionService, times(1))
+                .useBalanceBatch("1000000000", Arrays.asList(first, third));
+        assertEquals(3, results.size());
+        assertEquals(100L, results.get(0).getAmount());
+        assertEquals(200L, results.get(1).getAmount());
+        assertEquals(300L, results.get(2).getAmount());
+    }
+
+    @Test
+    @DisplayName("lock 실패한 계좌의 건만 실패")
+    void useBalance_lockFailed() {
+        // given
+        given(lockService.lock("1000000000"))
+                .willReturn("get success");
+        given(lockService.lock("1000000001"))
+                .willThrow(new AccountException(ErrorCode.ACCOUNT_TRANSACTION_LOCK));
+        given(transactionService.useBalanceBatch(eq("1000000000"), anyList()))
+                .willReturn(Arrays.asList(success("1000000000", 100L)));
+        // when
+        List<UseBalanceBatch.Result> results = transactionBatchService.useBalance(Arrays.asList(
+                new UseBalance.Request(1L, "1000000000", 100L),
+                new UseBalance.Request(1L, "1000000001", 200L)));
+        // then
+        verify(lockService, times(0)).unlock("1000000001");
+        assertEquals(TransactionResultType.S, results.get(0).getTransactionResultType());
+        assertEquals(TransactionResultType.F, results.get(1).getTransactionResultType());
+        assertEquals(ErrorCode.ACCOUNT_TRANSACTION_LOCK, results.get(1).getErrorCode());
+    }
+
+    @Test
+    @DisplayName("처리 중 예외가 나도 lock 해제")
+    void useBalance_unlockEvenIfThrow() {
+        // given
+        given(transactionService.useBalanceBatch(eq("1000000000"), anyList()))
+                .willThrow(new RuntimeException("db"));
+        // when
+        assertThrows(RuntimeException.class,
+                () -> transactionBatchService.useBalance(Arrays.asList(
+                        new UseBalance.Request(1L, "1000000000", 100L))));
+        // then
+        verify(lockService, times(1)).unlock("1000000000");
+    }
+
+    @Test
+    @DisplayName("낙관적 모드 - lock 없이 처리하고 충돌이 계속되면 그 계좌의 건만 실패")
+    void useBalance_optimisticConflict() {
+        // given
+        given(balanceUpdatePolicy.isLockFree()).willReturn(true);
+        given(balanceUpdatePolicy.getMaxRetries()).willReturn(1);
+        given(transactionService.useBalanceBatch(eq("1000000000"), anyList()))
+                .willThrow(new ObjectOptimisticLockingFailureException("Account", 1L))
+                .willReturn(Arrays.asList(success("1000000000", 100L)));
+        given(transactionService.useBalanceBatch(eq("1000000001"), anyList()))
+                .willThrow(new ObjectOptimisticLockingFailureException("Account", 2L));
+        // when
+        List<UseBalanceBatch.Result> results = transactionBatchService.useBalance(Arrays.asList(
+                new UseBalance.Request(1L, "1000000000", 100L),
+                new UseBalance.Request(1L, "1000000001", 200L)));
+        // then
+        verify(lockService, times(0)).lock(anyString());
+        verify(transactionService, times(2)).useBalanceBatch(eq("1000000001"), anyList());
+        assertEquals(TransactionResultType.S, results.get(0).getTransactionResultType());
+        assertEquals(TransactionResultType.F, results.get(1).getTransactionResultType());
+        assertEquals(ErrorCode.ACCOUNT_TRANSACTION_LOCK, results.get(1).getErrorCode());
+    }
+
+    @Test
+    @DisplayName("engine 모드 - lock 없이 계좌 묶음을 엔진에 넘긴다")
+    void useBalance_engine() {
+        // given
+        UseBalance.Request first = new UseBalance.Request(1L, "1000000000", 100L);
+        UseBalance.Request second = new UseBalance.Request(1L, "1000000000", 200L);
+        given(ledgerEngine.isEnabled()).willReturn(true);
+        given(ledgerEngine.useBalanceBatch("1000000000", Arrays.asList(first, second)))
+                .willReturn(Arrays.asList(success("1000000000", 100L), success("1000000000", 200L)));
+        // when
+        List<UseBalanceBatch.Result> results =
+                transactionBatchService.useBalance(Arrays.asList(first, second));
+        // then
+        verify(lockService, times(0)).lock(anyString());
+        verify(transactionService, times(0)).useBalanceBatch(anyString(), anyList());
+        assertEquals(2, results.size());
+        assertEquals(200L, results.get(1).getAmount());
+    }
+
+    private static UseBalanceBatch.Result success(String accountNumber, Long amount) {
+        return UseBalanceBatch.Result.builder()
+                .accountNumber(accountNumber)
+                .transactionResultType(TransactionResultType.S)
+                .amount(amount)
+                .build();
+    }
+}
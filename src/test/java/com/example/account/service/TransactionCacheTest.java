@@ -0,0 +1,74 @@
+package com.example.account.service;
+
+import com.example.account.dto.CacheStatsResponse;
+import com.example.account.dto.TransactionDto;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TransactionCacheTest {
+    private final TransactionCache transactionCache =
+            new TransactionCache(100, Duration.ofMinutes(1));
+
+    @AfterEach
+    void clearSynchronization() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void putAndGet() {
+        // given
+        transactionCache.put(transaction("transactionId"));
+        // when
+        // then
+        assertEquals("transactionId",
+                transactionCache.get("transactionId").orElseThrow().getTransactionId());
+        assertTrue(transactionCache.get("other").isEmpty());
+    }
+
+    @Test
+    @DisplayName("적중/실패 통계")
+    void stats() {
+        // given
+        transactionCache.put(transaction("transactionId"));
+        // when
+        transactionCache.get("transactionId");
+        transactionCache.get("transactionId");
+        transactionCache.get("other");
+        CacheStatsResponse stats = transactionCache.stats();
+        // then
+        assertEquals(1, stats.getSize());
+        assertEquals(2, stats.getHitCount());
+        assertEquals(1, stats.getMissCount());
+    }
+
+    @Test
+    @DisplayName("트랜잭션 안에서는 커밋 이후에 저장")
+    void putAfterCommit() {
+        // given
+        TransactionSynchronizationManager.initSynchronization();
+        // when
+        transactionCache.putAfterCommit(transaction("transactionId"));
+        // then
+        assertTrue(transactionCache.get("transactionId").isEmpty());
+        TransactionSynchronizationManager.getSynchronizations()
+                .forEach(TransactionSynchronization::afterCommit);
+        assertTrue(transactionCache.get("transactionId").isPresent());
+    }
+
+    private static TransactionDto transaction(String transactionId) {
+        return TransactionDto.builder()
+                .transactionId(transactionId)
+                .accountNumber("1000000000")
+                .amount(1000L)
+                .build();
+    }
+}
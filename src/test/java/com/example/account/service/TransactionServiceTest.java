@@ -3,7 +3,13 @@ package com.example.account.service;
 import com.example.account.domain.Account;
 import com.example.account.domain.AccountUser;
 import com.example.account.domain.Transaction;
+import com.example.account.dto.AccountBalance;
+import com.example.account.dto.AccountSnapshot;
+import com.example.account.dto.FailedTransaction;
 import com.example.account.dto.TransactionDto;
+import com.example.account.dto.TransactionHistory;
+import com.example.account.dto.UseBalance;
+import com.example.account.dto.UseBalanceBatch;
 import com.example.account.exception.AccountException;
 import com.example.account.repository.AccountRepository;
 import com.example.account.repository.AccountUserRepository;
@@ -19,9 +25,13 @@ import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
 
 import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Optional;
+import java.util.function.Supplier;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
@@ -42,6 +52,24 @@ class TransactionServiceTest {
     @Mock
     private AccountUserRepository accountUserRepository;
 
+    @Mock
+    private TransactionCache transactionCache;
+
+    @Mock
+    private AccountCache accountCache;
+
+    @Mock
+    private BalanceUpdatePolicy balanceUpdatePolicy;
+
+    @Mock
+    private TransactionIdGenerator transactionIdGenerator;
+
+    @Mock
+    private HotAccountService hotAccountService;
+
+    @Mock
+    private ReplicaReadPolicy replicaReadPolicy;
+
     @InjectMocks
     private TransactionService transactionService;
 
@@ -84,6 +112,125 @@ class TransactionServiceTest {
         assertEquals(1000L, transactionDto.getAmount());
     }
 
+    @Test
+    @DisplayName("분할 계좌 - 계좌 잔액 대신 bucket 에서 차감하고 합계를 스냅샷으로 저장")
+    void useBalance_splitAccount(){
+        // given
+        AccountUser user = AccountUser.builder()
+                .id(12L)
+                .name("Pobi").build();
+        Account account = Account.builder()
+                .id(7L)
+                .accountUser(user)
+                .accountStatus(AccountStatus.IN_USE)
+                .balance(0L)
+                .bucketCount(4)
+                .accountNumber("1000000000").build();
+        given(accountUserRepository.findById(12L))
+                .willReturn(Optional.of(user));
+        given(accountRepository.findByAccountNumber("1000000000"))
+                .willReturn(Optional.of(account));
+        given(hotAccountService.debit(account, USE_AMOUNT))
+                .willReturn(9800L);
+        given(transactionRepository.save(any()))
+                .willAnswer(invocation -> invocation.getArgument(0));
+        // when
+        TransactionDto transactionDto = transactionService.useBalance(12L,
+                "1000000000", USE_AMOUNT);
+        // then
+        assertEquals(9800L, transactionDto.getBalanceSnapshot());
+        assertEquals(0L, account.getBalance());
+    }
+
+    @Test
+    @DisplayName("조건부 차감 - entity 를 읽지 않고 UPDATE 후 잔액 스냅샷으로 거래 저장")
+    void useBalance_conditionalDebit(){
+        // given
+        Account reference = Account.builder()
+                .id(7L).build();
+        given(balanceUpdatePolicy.isConditionalDebit()).willReturn(true);
+        given(accountRepository.debit("1000000000", 12L, USE_AMOUNT))
+                .willReturn(1);
+        given(accountRepository.findBalanceByAccountNumber("1000000000"))
+                .willReturn(Optional.of(new AccountBalance(7L, 9800L)));
+        given(accountRepository.getReferenceById(7L))
+                .willReturn(reference);
+        given(transactionRepository.save(any()))
+                .willAnswer(invocation -> invocation.getArgument(0));
+        given(transactionIdGenerator.generate())
+                .willReturn("0ABCDEFGHJKMN");
+        ArgumentCaptor<Transaction> captor = ArgumentCaptor.forClass(Transaction.class);
+        // when
+        TransactionDto transactionDto = transactionService.useBalance(12L,
+                "1000000000", USE_AMOUNT);
+        // then
+        verify(transactionRepository, times(1)).save(captor.capture());
+        verify(accountUserRepository, times(0)).findById(anyLong());
+        verify(accountRepository, times(0)).findByAccountNumber(anyString());
+        verify(accountCache, times(1)).invalidateAfterCommit(12L);
+        assertEquals(reference, captor.getValue().getAccount());
+        assertEquals(9800L, captor.getValue().getBalanceSnapshot());
+        assertEquals("1000000000", transactionDto.getAccountNumber());
+        assertEquals("0ABCDEFGHJKMN", transactionDto.getTransactionId());
+        assertEquals(TransactionResultType.S, transactionDto.getTransactionResultType());
+        assertEquals(9800L, transactionDto.getBalanceSnapshot());
+    }
+
+    @Test
+    @DisplayName("조건부 차감 실패 - 반영된 행이 없으면 계좌를 읽어 실패 이유를 가린다")
+    void useBalance_conditionalDebitFailed(){
+        // given
+        AccountUser user = AccountUser.builder()
+                .id(12L)
+                .name("Pobi").build();
+        Account account = Account.builder()
+                .accountUser(user)
+                .accountStatus(AccountStatus.IN_USE)
+                .balance(100L)
+                .accountNumber("1000000000").build();
+        given(balanceUpdatePolicy.isConditionalDebit()).willReturn(true);
+        given(accountRepository.debit("1000000000", 12L, USE_AMOUNT))
+                .willReturn(0);
+        given(accountUserRepository.findById(12L))
+                .willReturn(Optional.of(user));
+        given(accountRepository.findByAccountNumber("1000000000"))
+                .willReturn(Optional.of(account));
+        // when
+        AccountException accountException = assertThrows(AccountException.class,
+                () -> transactionService.useBalance(12L, "1000000000", USE_AMOUNT));
+        // then
+        assertEquals(ErrorCode.AMOUNT_EXCEED_BALANCE, accountException.getErrorCode());
+        verify(transactionRepository, times(0)).save(any());
+    }
+
+    @Test
+    @DisplayName("조건부 차감 실패 - 다른 사용자의 계좌")
+    void useBalance_conditionalDebitUnMatch(){
+        // given
+        AccountUser user = AccountUser.builder()
+                .id(12L)
+                .name("Pobi").build();
+        AccountUser owner = AccountUser.builder()
+                .id(13L)
+                .name("Harry").build();
+        given(balanceUpdatePolicy.isConditionalDebit()).willReturn(true);
+        given(accountRepository.debit("1000000000", 12L, USE_AMOUNT))
+                .willReturn(0);
+        given(accountUserRepository.findById(12L))
+                .willReturn(Optional.of(user));
+        given(accountRepository.findByAccountNumber("1000000000"))
+                .willReturn(Optional.of(Account.builder()
+                        .accountUser(owner)
+                        .accountStatus(AccountStatus.IN_USE)
+                        .balance(10000L)
+                        .accountNumber("1000000000").build()));
+        // when
+        AccountException accountException = assertThrows(AccountException.class,
+                () -> transactionService.useBalance(12L, "1000000000", USE_AMOUNT));
+        // then
+        assertEquals(ErrorCode.USER_ACCOUNT_UN_MATCH, accountException.getErrorCode());
+    }
+
     @Test
     @DisplayName("해당 유저 없음 - 잔액 사용 실패")
     void useBalance_userNotFound(){
@@ -193,8 +340,8 @@ class TransactionServiceTest {
     }
 
     @Test
-    @DisplayName("실패 트랜잭션 저장 성공")
-    void saveFailedUseTransaction(){
+    @DisplayName("일괄 잔액 사용 - 순서대로 차감, 실패 건은 실패 거래로 저장")
+    void useBalanceBatch(){
         // given
         AccountUser user = AccountUser.builder()
                 .id(12L)
@@ -202,30 +349,83 @@ class TransactionServiceTest {
         Account account = Account.builder()
                 .accountUser(user)
                 .accountStatus(AccountStatus.IN_USE)
-                .balance(10000L)
-                .accountNumber("438241200").build();
+                .balance(1000L)
+                .accountNumber("1000000000").build();
         given(accountRepository.findByAccountNumber(anyString()))
                 .willReturn(Optional.of(account));
-        given(transactionRepository.save(any()))
-                .willReturn(Transaction.builder()
-                        .account(account)
-                        .transactionType(TransactionType.USE)
-                        .transactionResultType(TransactionResultType.S)
-                        .transactionId("transactionId")
-                        .transactionAt(LocalDateTime.now())
-                        .amount(1000L)
-                        .balanceSnapshot(9000L)
-                        .build());
-        ArgumentCaptor<Transaction> captor = ArgumentCaptor.forClass(Transaction.class);
+        given(accountUserRepository.existsById(13L))
+                .willReturn(true);
+        ArgumentCaptor<List<Transaction>> captor = ArgumentCaptor.forClass(List.class);
         // when
-        transactionService.saveFailedUseTransaction(
-                "1000000000", USE_AMOUNT);
+        List<UseBalanceBatch.Result> results = transactionService.useBalanceBatch("1000000000",
+                Arrays.asList(
+                        new UseBalance.Request(12L, "1000000000", 600L),
+                        new UseBalance.Request(12L, "1000000000", 600L),
+                        new UseBalance.Request(13L, "1000000000", 100L),
+                        new UseBalance.Request(12L, "1000000000", 400L)));
         // then
-        verify(transactionRepository, times(1)).save(captor.capture());
-        assertEquals(USE_AMOUNT, captor.getValue().getAmount());
-        assertEquals(10000L, captor.getValue().getBalanceSnapshot());
-        assertEquals(TransactionResultType.F, captor.getValue().getTransactionResultType());
+        verify(transactionRepository, times(1)).saveAll(captor.capture());
+        verify(accountRepository, times(1)).findByAccountNumber(anyString());
+        assertEquals(4, captor.getValue().size());
+        assertEquals(400L, captor.getValue().get(0).getBalanceSnapshot());
+        assertEquals(0L, captor.getValue().get(3).getBalanceSnapshot());
+        assertEquals(0L, account.getBalance());
+
+        assertEquals(TransactionResultType.S, results.get(0).getTransactionResultType());
+        assertEquals(TransactionResultType.F, results.get(1).getTransactionResultType());
+        assertEquals(ErrorCode.AMOUNT_EXCEED_BALANCE, results.get(1).getErrorCode());
+        assertEquals(ErrorCode.USER_ACCOUNT_UN_MATCH, results.get(2).getErrorCode());
+        assertEquals(TransactionResultType.S, results.get(3).getTransactionResultType());
+    }
+
+    @Test
+    @DisplayName("일괄 잔액 사용 - 계좌 없음")
+    void useBalanceBatch_accountNotFound(){
+        // given
+        given(accountRepository.findByAccountNumber(anyString()))
+                .willReturn(Optional.empty());
+        // when
+        List<UseBalanceBatch.Result> results = transactionService.useBalanceBatch("1000000000",
+                Arrays.asList(new UseBalance.Request(12L, "1000000000", 600L)));
+        // then
+        verify(transactionRepository, times(0)).saveAll(any());
+        assertEquals(ErrorCode.ACCOUNT_NOT_FOUND, results.get(0).getErrorCode());
+        assertEquals(TransactionResultType.F, results.get(0).getTransactionResultType());
+    }
+
+    @Test
+    @DisplayName("실패 트랜잭션 묶음 저장 - 계좌는 한 번에 읽고 없는 계좌의 기록은 버림")
+    @SuppressWarnings("unchecked")
+    void saveFailedTransactions(){
+        // given
+        LocalDateTime failedAt = LocalDateTime.of(2024, 1, 1, 12, 0);
+        given(accountRepository.findSnapshotsByAccountNumbers(any()))
+                .willReturn(List.of(new AccountSnapshot(1L, "1000000000", 12L, AccountStatus.IN_USE, 10000L)));
+        Account reference = Account.builder().id(1L).build();
+        given(accountRepository.getReferenceById(1L))
+                .willReturn(reference);
+        ArgumentCaptor<List<Transaction>> captor = ArgumentCaptor.forClass(List.class);
+        // when
+        int saved = transactionService.saveFailedTransactions(List.of(
+                new FailedTransaction(TransactionType.USE, "1000000000", USE_AMOUNT, "T1", failedAt),
+                new FailedTransaction(TransactionType.CANCEL, "1000000000", CANCEL_AMOUNT, "T2", failedAt),
+                new FailedTransaction(TransactionType.USE, "9999999999", USE_AMOUNT, "T3", failedAt)));
+        // then
+        assertEquals(2, saved);
+        verify(accountRepository, times(1)).findSnapshotsByAccountNumbers(any());
+        verify(transactionRepository, times(1)).saveAll(captor.capture());
+        List<Transaction> transactions = captor.getValue();
+        assertEquals(2, transactions.size());
+        assertEquals(TransactionType.USE, transactions.get(0).getTransactionType());
+        assertEquals(TransactionType.CANCEL, transactions.get(1).getTransactionType());
+        assertEquals(TransactionResultType.F, transactions.get(0).getTransactionResultType());
+        assertEquals(10000L, transactions.get(0).getBalanceSnapshot());
+        assertEquals("T1", transactions.get(0).getTransactionId());
+        assertEquals(failedAt, transactions.get(0).getTransactionAt());
+        assertEquals(reference, transactions.get(1).getAccount());
+        verify(transactionCache, times(2)).putAfterCommit(any());
     }
+
     @Test
     void successCancelBalance(){
         // given
@@ -449,8 +649,8 @@ class TransactionServiceTest {
                 .amount(CANCEL_AMOUNT)
                 .balanceSnapshot(10000L)
                 .build();
-        given(transactionRepository.findByTransactionId(anyString()))
-                .willReturn(Optional.of(transaction));
+        given(transactionRepository.findDtoByTransactionId(anyString()))
+                .willReturn(Optional.of(TransactionDto.fromEntity(transaction)));
         // when
         TransactionDto transactionDto = transactionService.queryTransaction("trxId");
         // then
@@ -460,11 +660,53 @@ class TransactionServiceTest {
         assertEquals("transactionId", transactionDto.getTransactionId());
     }
 
+    @Test
+    @DisplayName("cache 에 있는 거래는 DB 조회 없이 반환")
+    void queryTransaction_cacheHit(){
+        // given
+        given(transactionCache.get(anyString()))
+                .willReturn(Optional.of(TransactionDto.builder()
+                        .transactionId("transactionId")
+                        .transactionType(TransactionType.USE)
+                        .transactionResultType(TransactionResultType.S)
+                        .amount(CANCEL_AMOUNT)
+                        .build()));
+        // when
+        TransactionDto transactionDto = transactionService.queryTransaction("transactionId");
+        // then
+        verify(transactionRepository, times(0)).findDtoByTransactionId(anyString());
+        assertEquals("transactionId", transactionDto.getTransactionId());
+        assertEquals(CANCEL_AMOUNT, transactionDto.getAmount());
+    }
+
+    @Test
+    @DisplayName("cache 에 없는 거래는 조회 후 cache 에 저장")
+    void queryTransaction_cacheMiss(){
+        // given
+        Account account = Account.builder()
+                .accountNumber("1000000000").build();
+        given(transactionRepository.findDtoByTransactionId(anyString()))
+                .willReturn(Optional.of(TransactionDto.fromEntity(Transaction.builder()
+                        .account(account)
+                        .transactionId("transactionId")
+                        .transactionType(TransactionType.USE)
+                        .transactionResultType(TransactionResultType.S)
+                        .amount(CANCEL_AMOUNT)
+                        .build())));
+        ArgumentCaptor<TransactionDto> captor = ArgumentCaptor.forClass(TransactionDto.class);
+        // when
+        transactionService.queryTransaction("transactionId");
+        // then
+        verify(transactionCache, times(1)).put(captor.capture());
+        assertEquals("transactionId", captor.getValue().getTransactionId());
+        assertEquals("1000000000", captor.getValue().getAccountNumber());
+    }
+
     @Test
     @DisplayName("원거래 없음 - 잔액 사용 취소 실패")
     void queryTransaction_TransactionNotFound(){
         // given
-        given(transactionRepository.findByTransactionId(anyString()))
+        given(transactionRepository.findDtoByTransactionId(anyString()))
                 .willReturn(Optional.empty());
 
         // when
@@ -474,4 +716,99 @@ class TransactionServiceTest {
 
         assertEquals(ErrorCode.TRANSACTION_NOT_FOUND, accountException.getErrorCode());
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("replica 에 아직 없는 거래는 primary 에서 다시 조회")
+    void queryTransaction_replicaMiss(){
+        // given
+        Account account = Account.builder()
+                .accountNumber("1000000000").build();
+        given(transactionRepository.findDtoByTransactionId(anyString()))
+                .willReturn(Optional.empty())
+                .willReturn(Optional.of(TransactionDto.fromEntity(Transaction.builder()
+                        .account(account)
+                        .transactionId("transactionId")
+                        .transactionType(TransactionType.USE)
+                        .transactionResultType(TransactionResultType.S)
+                        .amount(CANCEL_AMOUNT)
+                        .build())));
+        given(replicaReadPolicy.isEnabled()).willReturn(true);
+        given(replicaReadPolicy.readFromPrimary(any()))
+                .willAnswer(invocation -> invocation.<Supplier<?>>getArgument(0).get());
+        // when
+        TransactionDto transactionDto = transactionService.queryTransaction("transactionId");
+        // then
+        verify(replicaReadPolicy, times(1)).readFromPrimary(any());
+        verify(transactionRepository, times(2)).findDtoByTransactionId("transactionId");
+        assertEquals("transactionId", transactionDto.getTransactionId());
+    }
+
+    @Test
+    @DisplayName("거래 내역 - 한 건 더 읽히면 마지막 건으로 다음 커서")
+    void getTransactionHistory_nextCursor(){
+        // given
+        LocalDateTime now = LocalDateTime.of(2024, 1, 1, 12, 0);
+        given(transactionRepository.findHistory(eq("1000000000"), eq(TransactionHistory.Cursor.FIRST.transactionAt()),
+                eq(Long.MAX_VALUE), eq(TransactionType.USE), isNull(), eq(Limit.of(3))))
+                .willReturn(Arrays.asList(historyItem(30L, now), historyItem(20L, now), historyItem(10L, now.minusSeconds(1))));
+        // when
+        TransactionHistory.Response response = transactionService.getTransactionHistory(
+                "1000000000", TransactionType.USE, null, null, 2);
+        // then
+        assertEquals(2, response.getTransactions().size());
+        assertEquals("T20", response.getTransactions().get(1).getTransactionId());
+        TransactionHistory.Cursor next = TransactionHistory.Cursor.decode(response.getNextCursor());
+        assertEquals(now, next.transactionAt());
+        assertEquals(20L, next.id());
+    }
+
+    @Test
+    @DisplayName("거래 내역 - 마지막 페이지는 커서 없음")
+    void getTransactionHistory_lastPage(){
+        // given
+        LocalDateTime now = LocalDateTime.of(2024, 1, 1, 12, 0);
+        TransactionHistory.Cursor cursor = new TransactionHistory.Cursor(now, 20L);
+        given(transactionRepository.findHistory("1000000000", now, 20L, null, null, Limit.of(3)))
+                .willReturn(Arrays.asList(historyItem(10L, now.minusSeconds(1))));
+        // when
+        TransactionHistory.Response response = transactionService.getTransactionHistory(
+                "1000000000", null, null, cursor.encode(), 2);
+        // then
+        assertEquals(1, response.getTransactions().size());
+        assertEquals(null, response.getNextCursor());
+    }
+
+    @Test
+    @DisplayName("거래 내역 - 빈 페이지일 때만 계좌 확인")
+    void getTransactionHistory_emptyPage(){
+        // given
+        given(transactionRepository.findHistory(eq("1000000000"), any(), any(), isNull(), isNull(), eq(Limit.of(21))))
+                .willReturn(List.of());
+        given(accountRepository.findIdByAccountNumber("1000000000"))
+                .willReturn(Optional.empty());
+        // when
+        AccountException accountException = assertThrows(AccountException.class,
+                () -> transactionService.getTransactionHistory("1000000000", null, null, null, 20));
+        // then
+        assertEquals(ErrorCode.ACCOUNT_NOT_FOUND, accountException.getErrorCode());
+    }
+
+    @Test
+    @DisplayName("거래 내역 - 잘못된 커서나 페이지 크기")
+    void getTransactionHistory_invalidRequest(){
+        // given
+        // when
+        AccountException invalidCursor = assertThrows(AccountException.class,
+                () -> transactionService.getTransactionHistory("1000000000", null, null, "not-a-cursor", 20));
+        AccountException invalidSize = assertThrows(AccountException.class,
+                () -> transactionService.getTransactionHistory("1000000000", null, null, null, 101));
+        // then
+        assertEquals(ErrorCode.INVALID_REQUEST, invalidCursor.getErrorCode());
+        assertEquals(ErrorCode.INVALID_REQUEST, invalidSize.getErrorCode());
+    }
+
+    private static TransactionHistory.Item historyItem(Long id, LocalDateTime transactedAt) {
+        return new TransactionHistory.Item(id, "T" + id, TransactionType.USE,
+                TransactionResultType.S, 100L, 1000L, transactedAt);
+    }
+}